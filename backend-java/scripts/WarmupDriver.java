@@ -0,0 +1,60 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+
+/**
+ * Client for scripts/warmup-benchmark.sh: sends the first requests to a backend that has
+ * just reported ready and prints their latency. Requests go one at a time on one
+ * connection, repeating the cycle add items, send to kitchen, get order, preview bill,
+ * bill table. Run with the single-file launcher:
+ *
+ *   java scripts/WarmupDriver.java [base url] [requests]
+ *
+ * Prints one line: mean of the first 10, first 100 and all requests, and the maximum.
+ */
+public class WarmupDriver {
+
+    private static final String ORDER = """
+            {"table_name": "Table 1", "items": [
+              {"id": "item1", "name": "Chicken Burger", "price": 299.0, "category": "Mains", "department": "Kitchen", "quantity": 2},
+              {"id": "item3", "name": "Coca Cola", "price": 99.0, "category": "Beverages", "department": "Bar", "quantity": 1}]}
+            """;
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8097";
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        String table = base + "/api/orders/table/table1";
+        HttpRequest[] cycle = {
+                post(table, ORDER),
+                post(table + "/sent", ""),
+                HttpRequest.newBuilder(URI.create(table)).GET().build(),
+                HttpRequest.newBuilder(URI.create(table + "/bill")).GET().build(),
+                post(base + "/api/invoices/table/table1", ""),
+        };
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        double[] millis = new double[requests];
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = cycle[i % cycle.length];
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException(request.method() + " " + request.uri() + " answered " + response.statusCode());
+            }
+        }
+        System.out.printf("first 10 %6.1f ms   first 100 %5.1f ms   all %d %5.1f ms   max %6.1f ms%n",
+                mean(millis, 10), mean(millis, 100), requests, mean(millis, requests), Arrays.stream(millis).max().orElse(0));
+    }
+
+    private static HttpRequest post(String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri)).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private static double mean(double[] millis, int count) {
+        return Arrays.stream(millis, 0, Math.min(count, millis.length)).average().orElse(0);
+    }
+}
@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# Starts the backend in fast-start mode: Spring AOT-processed bean definitions,
+# an exploded classpath of plain jars and an AppCDS archive of the classes loaded
+# during startup. The first run (or --rebuild) builds the jar with the fast-start
+# profile and records the archive with a training run; later runs reuse both.
+#
+# Bean conditions are evaluated at build time under AOT, so properties that pick
+# beans (such as pos.print.sink) must be given to the build through AOT_ARGS, e.g.
+#   AOT_ARGS=-Dpos.print.sink=socket scripts/fast-start.sh --rebuild
+# Any other arguments are passed on to the application.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR_TOOL="${JAVA_HOME:+$JAVA_HOME/bin/}jar"
+JAR=target/pos-backend-1.0.0.jar
+APP_DIR=target/fast-start
+ARCHIVE="$APP_DIR/application.jsa"
+
+if [ "${1:-}" = "--rebuild" ]; then
+    shift
+    rm -rf "$APP_DIR"
+fi
+
+if [ ! -f "$ARCHIVE" ]; then
+    echo "Building fast-start jar..."
+    mvn -B -q -Pfast-start package -DskipTests ${AOT_ARGS:+"-Dspring-boot.aot.jvmArguments=$AOT_ARGS"}
+
+    # CDS only archives classes from jar files, so unpack the nested jars and
+    # put the application classes into a jar of their own
+    rm -rf "$APP_DIR"
+    mkdir -p "$APP_DIR/exploded"
+    (cd "$APP_DIR/exploded" && "$JAR_TOOL" -xf "../../../$JAR")
+    mv "$APP_DIR/exploded/BOOT-INF/lib" "$APP_DIR/lib"
+    "$JAR_TOOL" -cf "$APP_DIR/app.jar" -C "$APP_DIR/exploded/BOOT-INF/classes" .
+    rm -rf "$APP_DIR/exploded"
+
+    CLASSPATH="$APP_DIR/app.jar"
+    for lib in "$APP_DIR"/lib/*.jar; do
+        CLASSPATH="$CLASSPATH:$lib"
+    done
+    echo "$CLASSPATH" > "$APP_DIR/classpath"
+
+    echo "Recording class data sharing archive..."
+    "$JAVA" -XX:ArchiveClassesAtExit="$ARCHIVE" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+        -cp "$CLASSPATH" com.pos.PosApplication > "$APP_DIR/training.log" 2>&1
+fi
+
+exec "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto -Dspring.aot.enabled=true \
+    -cp "$(cat "$APP_DIR/classpath")" com.pos.PosApplication "$@"
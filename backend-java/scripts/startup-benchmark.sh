@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Measures the time from process start to the first successful GET /api/tables
+# for the regular packaged jar and for fast-start mode, and prints the median of
+# several runs of each.
+#
+#   scripts/startup-benchmark.sh [runs]    (default 5, port from BENCH_PORT or 8097)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${1:-5}"
+PORT="${BENCH_PORT:-8097}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR=target/pos-backend-1.0.0.jar
+
+now_ms() {
+    date +%s%3N
+}
+
+# Starts the given command, polls /api/tables and prints the elapsed milliseconds
+time_to_first_response() {
+    local start pid elapsed
+    start=$(now_ms)
+    "$@" --server.port="$PORT" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/api/tables"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited before responding" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$elapsed"
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+benchmark() {
+    local label=$1
+    shift
+    local results=()
+    for _ in $(seq 1 "$RUNS"); do
+        results+=("$(time_to_first_response "$@")")
+    done
+    printf '%-12s median %5d ms   runs: %s\n' "$label" \
+        "$(printf '%s\n' "${results[@]}" | median)" "${results[*]}"
+}
+
+# Prepare fast-start artifacts first (builds the AOT jar and the CDS archive)
+if [ ! -f target/fast-start/application.jsa ]; then
+    scripts/fast-start.sh --rebuild --server.port="$PORT" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/api/tables"; do sleep 0.2; done
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+fi
+
+benchmark "regular" "$JAVA" -jar "$JAR"
+benchmark "fast-start" scripts/fast-start.sh
@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Measures the first requests after /ready turns 200, with and without the startup
+# warm-up (pos.warmup.enabled). Each run starts a fresh JVM, waits for /ready and then
+# sends the requests through scripts/WarmupDriver.java, which prints the mean of the
+# first 10, first 100 and all requests and the slowest one.
+#
+#   scripts/warmup-benchmark.sh [runs] [requests]    (default 2 and 1000, port from BENCH_PORT or 8097)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${1:-2}"
+REQUESTS="${2:-1000}"
+PORT="${BENCH_PORT:-8097}"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR=target/pos-backend-1.0.0.jar
+
+if [ ! -f "$JAR" ]; then
+    mvn -B -q package -DskipTests
+fi
+
+# Starts the jar with the given warm-up setting, waits until it is ready and runs the driver
+first_requests() {
+    local pid status
+    "$JAVA" -jar "$JAR" --server.port="$PORT" --pos.warmup.enabled="$1" > /dev/null 2>&1 &
+    pid=$!
+    until status=$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/ready") && [ "$status" = 200 ]; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited before reporting ready" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    "$JAVA" scripts/WarmupDriver.java "http://localhost:$PORT" "$REQUESTS"
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+}
+
+for run in $(seq 1 "$RUNS"); do
+    printf 'no warm-up  run %d  %s\n' "$run" "$(first_requests false)"
+    printf 'warm-up     run %d  %s\n' "$run" "$(first_requests true)"
+done
@@ -1,9 +1,14 @@
 package com.pos;
 
+import com.pos.config.PosRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ImportRuntimeHints(PosRuntimeHints.class)
+@EnableScheduling
 public class PosApplication {
     
     public static void main(String[] args) {
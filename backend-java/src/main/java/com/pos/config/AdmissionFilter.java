@@ -0,0 +1,61 @@
+package com.pos.config;
+
+import com.pos.service.AdmissionControlService;
+import com.pos.service.AdmissionControlService.RequestClass;
+import com.pos.service.AdmissionControlService.Ticket;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Sheds load before it reaches a controller so order taking keeps working during peaks
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+    
+    public static final String TERMINAL_HEADER = "X-Terminal-Id";
+    
+    @Autowired
+    private AdmissionControlService admissionControl;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || request.getMethod().equals("OPTIONS");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestClass requestClass = AdmissionControlService.classify(request.getMethod(), request.getRequestURI());
+        String clientId = request.getHeader(TERMINAL_HEADER);
+        if (clientId == null || clientId.isBlank()) {
+            clientId = request.getRemoteAddr();
+        }
+        
+        Ticket ticket;
+        try {
+            ticket = admissionControl.tryAdmit(requestClass, clientId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ticket = null;
+        }
+        if (ticket == null) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Server is busy, please retry\"}");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ticket.release();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pos.config;
+
+import com.pos.service.AllocationTracker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Measures bytes allocated on the request thread per API request, keyed by the matched route.
+// Only registered with pos.alloc.enabled; the budgets themselves are enforced by AllocationBudgetTest
+@Component
+@ConditionalOnProperty(name = "pos.alloc.enabled", havingValue = "true")
+public class AllocationFilter extends OncePerRequestFilter {
+    
+    @Autowired
+    private AllocationTracker allocationTracker;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !allocationTracker.isEnabled() || !request.getRequestURI().startsWith("/api/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long before = allocationTracker.currentThreadAllocatedBytes();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long allocated = allocationTracker.currentThreadAllocatedBytes() - before;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            allocationTracker.record(request.getMethod() + " " + (pattern != null ? pattern : "(unmatched)"), allocated);
+        }
+    }
+}
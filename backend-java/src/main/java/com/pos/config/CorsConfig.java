@@ -8,6 +8,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 public class CorsConfig {
@@ -24,6 +25,8 @@ public class CorsConfig {
         config.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        // Response headers the frontend may read
+        config.setExposedHeaders(List.of("X-Next-Cursor", "X-Total-Count", "Idempotent-Replayed", "Retry-After"));
         
         source.registerCorsConfiguration("/api/**", config);
         return new CorsFilter(source);
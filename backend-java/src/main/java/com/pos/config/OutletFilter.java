@@ -0,0 +1,67 @@
+package com.pos.config;
+
+import com.pos.service.DataStorageService;
+import com.pos.service.OutletContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+// Routes every /api/** request to the outlet named in the X-Outlet-Id header
+@Component
+public class OutletFilter extends OncePerRequestFilter {
+    
+    public static final String OUTLET_HEADER = "X-Outlet-Id";
+    
+    private static final Pattern OUTLET_ID = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    
+    @Autowired
+    private DataStorageService dataStorage;
+    
+    @Value("${pos.outlets.max:64}")
+    private int maxOutlets;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String outletId = request.getHeader(OUTLET_HEADER);
+        if (outletId == null || outletId.isBlank()) {
+            outletId = OutletContext.DEFAULT_OUTLET;
+        }
+        if (!OUTLET_ID.matcher(outletId).matches()) {
+            reject(response, "Invalid outlet id");
+            return;
+        }
+        if (dataStorage.openOutlet(outletId, maxOutlets) == null) {
+            reject(response, "Outlet limit reached");
+            return;
+        }
+        
+        OutletContext.set(outletId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            OutletContext.clear();
+        }
+    }
+    
+    private void reject(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpStatus.BAD_REQUEST.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
@@ -0,0 +1,70 @@
+package com.pos.config;
+
+import com.pos.model.BillConfig;
+import com.pos.model.Category;
+import com.pos.model.DailySummary;
+import com.pos.model.Department;
+import com.pos.model.Invoice;
+import com.pos.model.KOTConfig;
+import com.pos.model.KOTCounter;
+import com.pos.model.KotTicket;
+import com.pos.model.MenuItem;
+import com.pos.model.OrderItem;
+import com.pos.model.RestaurantSettings;
+import com.pos.model.Table;
+import com.pos.model.TableOrder;
+import com.pos.model.TakeawayOrder;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Reflection and resource hints for the fast-start (AOT) runtime. Jackson binds the
+ * Lombok models and records through their generated accessors (every class in
+ * com.pos.model must be listed here), and POI loads its OOXML schema
+ * types and workbook providers reflectively when a workbook is created or read.
+ */
+public class PosRuntimeHints implements RuntimeHintsRegistrar {
+    
+    private static final List<Class<?>> MODELS = List.of(
+            BillConfig.class, Category.class, DailySummary.class, DailySummary.Sales.class,
+            DailySummary.ItemSales.class, Department.class, Invoice.class,
+            KOTConfig.class, KOTCounter.class, KotTicket.class, MenuItem.class,
+            OrderItem.class, RestaurantSettings.class, Table.class, TableOrder.class,
+            TakeawayOrder.class
+    );
+    
+    private static final List<String> POI_TYPES = List.of(
+            "org.apache.poi.xssf.usermodel.XSSFWorkbookFactory",
+            "org.apache.poi.hssf.usermodel.HSSFWorkbookFactory",
+            "org.apache.poi.ooxml.POIXMLDocumentPart",
+            "org.apache.poi.xssf.usermodel.XSSFSheet",
+            "org.apache.poi.xssf.model.StylesTable",
+            "org.apache.poi.xssf.model.SharedStringsTable",
+            "org.openxmlformats.schemas.spreadsheetml.x2006.main.impl.CTWorkbookImpl",
+            "org.openxmlformats.schemas.spreadsheetml.x2006.main.impl.CTWorksheetImpl",
+            "org.openxmlformats.schemas.spreadsheetml.x2006.main.impl.WorkbookDocumentImpl",
+            "org.openxmlformats.schemas.spreadsheetml.x2006.main.impl.WorksheetDocumentImpl",
+            "org.openxmlformats.schemas.spreadsheetml.x2006.main.impl.StyleSheetDocumentImpl",
+            "org.openxmlformats.schemas.spreadsheetml.x2006.main.impl.SstDocumentImpl"
+    );
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> model : MODELS) {
+            hints.reflection().registerType(model, MemberCategory.values());
+        }
+        for (String type : POI_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.values());
+        }
+        // Invoice journal lines (package-private record)
+        hints.reflection().registerType(TypeReference.of("com.pos.service.InvoiceJournal$Entry"), MemberCategory.values());
+        
+        hints.resources().registerPattern("org/apache/poi/schemas/ooxml/**");
+        hints.resources().registerPattern("org/apache/poi/xssf/usermodel/presetTableStyles.xml");
+        hints.resources().registerPattern("META-INF/services/org.apache.poi.*");
+    }
+}
@@ -0,0 +1,41 @@
+package com.pos.config;
+
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.AnnotationIntrospectorPair;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Lets list endpoints serialize only the fields a screen asks for (see ListResponses)
+@Configuration
+public class ProjectionConfig {
+    
+    public static final String FILTER_ID = "projection";
+    
+    private static final String MODEL_PACKAGE = "com.pos.model.";
+    
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer projectionCustomizer() {
+        // Without a per-response filter every model property is written as before
+        return builder -> builder
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()))
+                .postConfigurer(mapper -> mapper.setAnnotationIntrospector(AnnotationIntrospectorPair.pair(
+                        new ModelFilterIntrospector(), mapper.getSerializationConfig().getAnnotationIntrospector())));
+    }
+    
+    // Attaches the projection filter to every model class without annotating each one
+    private static final class ModelFilterIntrospector extends NopAnnotationIntrospector {
+        @Override
+        public Object findFilterId(Annotated annotated) {
+            if (annotated instanceof AnnotatedClass annotatedClass
+                    && annotatedClass.getRawType().getName().startsWith(MODEL_PACKAGE)) {
+                return FILTER_ID;
+            }
+            return null;
+        }
+    }
+}
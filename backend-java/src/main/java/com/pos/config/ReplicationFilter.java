@@ -0,0 +1,47 @@
+package com.pos.config;
+
+import com.pos.service.ReplicationService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+// A replication follower serves reads only; writes must go to the leader until it is promoted
+@Component
+public class ReplicationFilter extends OncePerRequestFilter {
+    
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    
+    @Autowired
+    private ReplicationService replicationService;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !uri.startsWith("/api/") || uri.startsWith("/api/replication/") || uri.startsWith("/api/admin/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // The KOT number endpoint is a GET but advances the counter
+        // and a batch is a POST that only carries GETs
+        boolean write = (!READ_METHODS.contains(request.getMethod()) && !request.getRequestURI().equals("/api/batch"))
+                || request.getRequestURI().equals("/api/kot/next-number");
+        if (write && replicationService.isFollower()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"This node is a read-only replication follower\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
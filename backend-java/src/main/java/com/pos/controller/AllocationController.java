@@ -0,0 +1,24 @@
+package com.pos.controller;
+
+import com.pos.service.AllocationTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/allocations")
+public class AllocationController {
+    
+    @Autowired
+    private AllocationTracker allocationTracker;
+    
+    // Bytes allocated per request by endpoint, against its budget, with per-minute history
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getAllocations() {
+        return ResponseEntity.ok(allocationTracker.getStats());
+    }
+}
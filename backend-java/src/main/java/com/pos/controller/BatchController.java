@@ -0,0 +1,302 @@
+package com.pos.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.pos.config.AdmissionFilter;
+import com.pos.service.AdmissionControlService;
+import com.pos.service.AdmissionControlService.RequestClass;
+import com.pos.service.AdmissionControlService.Ticket;
+import com.pos.service.CatalogSnapshot;
+import com.pos.service.DataStorageService;
+import com.pos.service.OutletContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs several GET requests in one round trip. Sub-requests are dispatched in
+ * parallel to the existing controllers and answered together; all of them read the
+ * same catalog snapshot (tables, menu items, categories, departments), whose
+ * version is returned as catalogVersion. Orders, invoices, takeaway orders and
+ * configs are read live.
+ */
+@RestController
+@RequestMapping("/api/batch")
+public class BatchController {
+
+    private static final List<String> FORWARDED_HEADERS =
+            List.of(ListResponses.NEXT_CURSOR_HEADER, ListResponses.TOTAL_COUNT_HEADER);
+
+    @Value("${pos.batch.max-requests:20}")
+    private int maxRequests;
+
+    @Value("${pos.batch.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    @Autowired
+    private DataStorageService dataStorage;
+
+    @Autowired
+    private AdmissionControlService admissionControl;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TableController tableController;
+
+    @Autowired
+    private CategoryController categoryController;
+
+    @Autowired
+    private DepartmentController departmentController;
+
+    @Autowired
+    private MenuItemController menuItemController;
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private InvoiceController invoiceController;
+
+    @Autowired
+    private TakeawayController takeawayController;
+
+    @Autowired
+    private SettingsController settingsController;
+
+    private final List<Route> routes = new ArrayList<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        route("/api/tables", call -> tableController.getTables(
+                call.param("fields"), call.intParam("limit"), call.param("cursor")));
+        route("/api/categories", call -> categoryController.getCategories(
+                call.param("fields"), call.intParam("limit"), call.param("cursor")));
+        route("/api/departments", call -> departmentController.getDepartments(
+                call.param("fields"), call.intParam("limit"), call.param("cursor")));
+        route("/api/menu-items", call -> menuItemController.getMenuItems(
+                call.param("fields"), call.intParam("limit"), call.param("cursor")));
+        route("/api/menu-items/search", call -> call.param("q") == null
+                ? ResponseEntity.badRequest().body(Map.of("error", "q is required"))
+                : menuItemController.searchMenuItems(call.param("q"), call.intParam("limit", 20), call.param("fields")));
+        route("/api/orders", call -> orderController.getOrders(
+                call.param("fields"), call.intParam("limit"), call.param("cursor")));
+        route("/api/orders/history", call -> orderController.getOrderHistory(call.intParam("limit", 50)));
+        route("/api/orders/history/stats", call -> orderController.getOrderHistoryStats());
+        route("/api/orders/table/{tableId}", call -> orderController.getTableOrder(call.variable("tableId")));
+        route("/api/orders/table/{tableId}/bill", call -> orderController.getTableBill(call.variable("tableId")));
+        route("/api/invoices", call -> invoiceController.getInvoices(
+                call.param("orderType"), call.param("tableName"), call.dateParam("from"), call.dateParam("to"),
+                call.param("itemId"), call.param("fields"), call.intParam("limit"), call.param("cursor"),
+                call.clientId(), null));
+        route("/api/takeaway/orders", call -> takeawayController.getActiveOrders(
+                call.param("status"), call.param("fields"), call.intParam("limit"), call.param("cursor")));
+        route("/api/takeaway/orders/{orderId}", call -> takeawayController.getOrder(call.variable("orderId")));
+        route("/api/takeaway/history", call -> takeawayController.getHistory(call.intParam("limit", 50)));
+        route("/api/restaurant-settings", call -> settingsController.getRestaurantSettings());
+        route("/api/config/kot", call -> settingsController.getKOTConfig());
+        route("/api/config/bill", call -> settingsController.getBillConfig());
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void route(String pattern, Function<Call, ResponseEntity<?>> handler) {
+        routes.add(new Route(PathPatternParser.defaultInstance.parse(pattern), handler));
+    }
+
+    @PostMapping
+    public ResponseEntity<?> batch(@RequestBody Map<String, List<Map<String, String>>> request,
+                                   HttpServletRequest servletRequest) throws InterruptedException {
+        List<Map<String, String>> subRequests = request.get("requests");
+        if (subRequests == null || subRequests.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "requests must not be empty"));
+        }
+        if (subRequests.size() > maxRequests) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxRequests + " requests per batch"));
+        }
+
+        String outletId = OutletContext.current();
+        CatalogSnapshot catalog = dataStorage.getCatalog();
+        String header = servletRequest.getHeader(AdmissionFilter.TERMINAL_HEADER);
+        String clientId = header != null && !header.isBlank() ? header : servletRequest.getRemoteAddr();
+
+        List<Callable<Map<String, Object>>> tasks = new ArrayList<>();
+        for (int i = 0; i < subRequests.size(); i++) {
+            Map<String, String> subRequest = subRequests.get(i);
+            String id = subRequest.getOrDefault("id", String.valueOf(i));
+            tasks.add(() -> {
+                OutletContext.set(outletId);
+                OutletContext.pinCatalog(catalog);
+                try {
+                    return execute(id, subRequest.getOrDefault("method", "GET"), subRequest.get("path"), clientId);
+                } finally {
+                    OutletContext.clear();
+                }
+            });
+        }
+
+        List<Future<Map<String, Object>>> futures = executor.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+        List<Map<String, Object>> responses = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            String id = subRequests.get(i).getOrDefault("id", String.valueOf(i));
+            try {
+                responses.add(futures.get(i).get());
+            } catch (CancellationException e) {
+                responses.add(error(id, HttpStatus.GATEWAY_TIMEOUT, "Timed out"));
+            } catch (ExecutionException e) {
+                responses.add(error(id, HttpStatus.INTERNAL_SERVER_ERROR, "Request failed"));
+            }
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("catalogVersion", catalog.getVersion());
+        body.put("responses", responses);
+        return ResponseEntity.ok(body);
+    }
+
+    private Map<String, Object> execute(String id, String method, String path, String clientId) throws Exception {
+        if (!"GET".equalsIgnoreCase(method)) {
+            return error(id, HttpStatus.METHOD_NOT_ALLOWED, "Only GET requests can be batched");
+        }
+        if (path == null || !path.startsWith("/api/")) {
+            return error(id, HttpStatus.BAD_REQUEST, "path must start with /api/");
+        }
+        UriComponents uri = UriComponentsBuilder.fromUriString(path).build();
+        PathContainer pathContainer = PathContainer.parsePath(uri.getPath());
+        for (Route route : routes) {
+            PathPattern.PathMatchInfo match = route.pattern().matchAndExtract(pathContainer);
+            if (match != null) {
+                return invoke(id, route, new Call(match.getUriVariables(), uri.getQueryParams(), clientId), uri.getPath(), clientId);
+            }
+        }
+        return error(id, HttpStatus.NOT_FOUND, "Not available in a batch: " + uri.getPath());
+    }
+
+    private Map<String, Object> invoke(String id, Route route, Call call, String path, String clientId) throws Exception {
+        // Heavy reads keep their own admission limits inside a batch
+        Ticket ticket = null;
+        if (AdmissionControlService.classify("GET", path) == RequestClass.HEAVY_READ) {
+            ticket = admissionControl.tryAdmit(RequestClass.HEAVY_READ, clientId);
+            if (ticket == null) {
+                return error(id, HttpStatus.TOO_MANY_REQUESTS, "Server is busy, please retry");
+            }
+        }
+        try {
+            ResponseEntity<?> response;
+            try {
+                response = route.handler().apply(call);
+            } catch (NumberFormatException e) {
+                return error(id, HttpStatus.BAD_REQUEST, "Invalid number: " + e.getMessage());
+            } catch (DateTimeParseException e) {
+                return error(id, HttpStatus.BAD_REQUEST, "Invalid date: " + e.getParsedString());
+            }
+            return toResult(id, response);
+        } finally {
+            if (ticket != null) {
+                ticket.release();
+            }
+        }
+    }
+
+    // Serializes the body here, on the sub-request's thread, honouring any fields= projection
+    private Map<String, Object> toResult(String id, ResponseEntity<?> response) throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("status", response.getStatusCode().value());
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String header : FORWARDED_HEADERS) {
+            String value = response.getHeaders().getFirst(header);
+            if (value != null) {
+                headers.put(header, value);
+            }
+        }
+        if (!headers.isEmpty()) {
+            result.put("headers", headers);
+        }
+        Object body = response.getBody();
+        if (body != null) {
+            TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+            if (body instanceof MappingJacksonValue projected) {
+                objectMapper.writer(projected.getFilters()).writeValue(buffer, projected.getValue());
+            } else {
+                objectMapper.writeValue(buffer, body);
+            }
+            result.put("body", buffer);
+        }
+        return result;
+    }
+
+    private static Map<String, Object> error(String id, HttpStatus status, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("status", status.value());
+        result.put("body", Map.of("error", message));
+        return result;
+    }
+
+    private record Route(PathPattern pattern, Function<Call, ResponseEntity<?>> handler) {
+    }
+
+    private record Call(Map<String, String> variables, MultiValueMap<String, String> params, String clientId) {
+
+        String variable(String name) {
+            return variables.get(name);
+        }
+
+        String param(String name) {
+            String value = params.getFirst(name);
+            return value != null ? URLDecoder.decode(value, StandardCharsets.UTF_8) : null;
+        }
+
+        Integer intParam(String name) {
+            String value = param(name);
+            return value != null ? Integer.valueOf(value) : null;
+        }
+
+        LocalDate dateParam(String name) {
+            String value = param(name);
+            return value != null ? LocalDate.parse(value) : null;
+        }
+
+        int intParam(String name, int defaultValue) {
+            Integer value = intParam(name);
+            return value != null ? value : defaultValue;
+        }
+    }
+}
@@ -7,7 +7,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,8 +17,11 @@ public class CategoryController {
     private DataStorageService dataStorage;
     
     @GetMapping
-    public ResponseEntity<List<Category>> getCategories() {
-        return ResponseEntity.ok(dataStorage.getAllCategories());
+    public ResponseEntity<?> getCategories(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return ListResponses.of(dataStorage.getAllCategories(), fields, limit, cursor);
     }
     
     @PostMapping
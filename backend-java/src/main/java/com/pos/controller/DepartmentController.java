@@ -7,7 +7,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,8 +17,11 @@ public class DepartmentController {
     private DataStorageService dataStorage;
     
     @GetMapping
-    public ResponseEntity<List<Department>> getDepartments() {
-        return ResponseEntity.ok(dataStorage.getAllDepartments());
+    public ResponseEntity<?> getDepartments(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return ListResponses.of(dataStorage.getAllDepartments(), fields, limit, cursor);
     }
     
     @PostMapping
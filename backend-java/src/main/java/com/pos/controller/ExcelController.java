@@ -50,6 +50,11 @@ public class ExcelController {
         }
     }
     
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getExportCacheStats() {
+        return ResponseEntity.ok(excelService.getCacheStats());
+    }
+    
     @PostMapping("/import")
     public ResponseEntity<Map<String, Object>> importMenuData(@RequestParam("file") MultipartFile file) {
         try {
@@ -0,0 +1,83 @@
+package com.pos.controller;
+
+import com.pos.service.FlightRecorderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/admin/jfr")
+public class FlightRecorderController {
+
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+
+    @Autowired
+    private FlightRecorderService flightRecorder;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(flightRecorder.getStatus());
+    }
+
+    @PostMapping("/start")
+    public ResponseEntity<?> start(
+            @RequestParam(defaultValue = "default") String settings,
+            @RequestParam(defaultValue = "30") int maxAgeMinutes) throws Exception {
+        if (!SETTINGS.contains(settings)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "settings must be 'default' or 'profile'"));
+        }
+        if (!flightRecorder.start(settings, Duration.ofMinutes(Math.max(1, maxAgeMinutes)))) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "A recording is already running"));
+        }
+        return ResponseEntity.ok(flightRecorder.getStatus());
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<?> stop() throws Exception {
+        Path file = flightRecorder.stop();
+        if (file == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "No recording is running"));
+        }
+        return ResponseEntity.ok(flightRecorder.getStatus());
+    }
+
+    // Downloads the running recording so far, or the last stopped one; open it in JDK Mission Control
+    @GetMapping("/recording")
+    public ResponseEntity<Resource> download() throws Exception {
+        Path file = flightRecorder.snapshot();
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + file.getFileName())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(new FileSystemResource(file));
+    }
+
+    @PostMapping("/live/start")
+    public ResponseEntity<Map<String, Object>> startLive() {
+        flightRecorder.startLive();
+        return ResponseEntity.ok(flightRecorder.getLiveSummary());
+    }
+
+    @PostMapping("/live/stop")
+    public ResponseEntity<Map<String, Object>> stopLive() {
+        flightRecorder.stopLive();
+        return ResponseEntity.ok(flightRecorder.getLiveSummary());
+    }
+
+    @GetMapping("/live")
+    public ResponseEntity<Map<String, Object>> getLiveSummary() {
+        return ResponseEntity.ok(flightRecorder.getLiveSummary());
+    }
+}
@@ -1,20 +1,46 @@
 package com.pos.controller;
 
+import com.pos.service.AdmissionControlService;
+import com.pos.service.WarmupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
 public class HealthController {
     
+    private static final double SATURATED = 0.9;
+    
+    @Autowired
+    private AdmissionControlService admissionControl;
+    
+    @Autowired
+    private WarmupService warmupService;
+    
     @GetMapping("/")
-    public ResponseEntity<Map<String, String>> healthCheck() {
-        return ResponseEntity.ok(Map.of(
-                "status", "healthy",
-                "service", "POS Backend API",
-                "message", "Backend is running. Use /api/* endpoints for API access."
-        ));
+    public ResponseEntity<Map<String, Object>> healthCheck() {
+        double saturation = admissionControl.getSaturation();
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", saturation >= SATURATED ? "saturated" : "healthy");
+        health.put("ready", admissionControl.isAcceptingOrders());
+        health.put("service", "POS Backend API");
+        health.put("message", "Backend is running. Use /api/* endpoints for API access.");
+        health.put("admission", admissionControl.getStats());
+        health.put("warmup", warmupService.getLastRun());
+        return ResponseEntity.ok(health);
+    }
+    
+    // For load balancers: 503 during the startup warm-up and while order writes cannot be admitted
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        boolean ready = admissionControl.isAcceptingOrders();
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("ready", ready, "warmingUp", admissionControl.isWarmingUp(),
+                        "saturation", admissionControl.getSaturation()));
     }
 }
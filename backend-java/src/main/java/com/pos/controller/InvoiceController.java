@@ -1,13 +1,22 @@
 package com.pos.controller;
 
+import com.pos.config.AdmissionFilter;
 import com.pos.model.Invoice;
+import com.pos.service.BillingService;
 import com.pos.service.DataStorageService;
+import com.pos.service.IdempotencyCache;
+import com.pos.service.InvoiceIndex;
+import com.pos.service.InvoiceIngestService;
+import com.pos.service.PrintSpooler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/invoices")
@@ -16,14 +25,110 @@ public class InvoiceController {
     @Autowired
     private DataStorageService dataStorage;
     
+    @Autowired
+    private BillingService billingService;
+    
+    @Autowired
+    private PrintSpooler printSpooler;
+    
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+    
+    @Autowired
+    private InvoiceIngestService invoiceIngest;
+    
+    // With any filter the matches come from the invoice index, newest first. With async
+    // ingestion the list waits for the terminal's own invoices, or for X-Invoice-Sequence
     @GetMapping
-    public ResponseEntity<List<Invoice>> getInvoices() {
-        return ResponseEntity.ok(dataStorage.getAllInvoices());
+    public ResponseEntity<?> getInvoices(
+            @RequestParam(required = false) String orderType,
+            @RequestParam(required = false) String tableName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String itemId,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = AdmissionFilter.TERMINAL_HEADER, required = false) String terminalId,
+            @RequestHeader(value = InvoiceIngestService.SEQUENCE_HEADER, required = false) Long minSequence) {
+        if (!invoiceIngest.awaitReadYourWrites(terminalId, minSequence)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+                    .body(Map.of("error", "Recent invoices are not applied yet, please retry"));
+        }
+        if (orderType == null && tableName == null && from == null && to == null && itemId == null) {
+            return ListResponses.of(dataStorage.getAllInvoices(), fields, limit, cursor);
+        }
+        InvoiceIndex.Result matches = dataStorage.filterInvoices(orderType, tableName, from, to, itemId);
+        return ListResponses.ofPage(matches.getTotal(), matches::page, fields, limit, cursor);
+    }
+    
+    @GetMapping("/ingest/stats")
+    public ResponseEntity<Map<String, Object>> getIngestStats() {
+        return ResponseEntity.ok(invoiceIngest.getStats());
     }
     
     @PostMapping
-    public ResponseEntity<Invoice> addInvoice(@RequestBody Invoice invoice) {
-        Invoice created = dataStorage.createInvoice(invoice);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+    public ResponseEntity<?> addInvoice(
+            @RequestBody Invoice invoice,
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = AdmissionFilter.TERMINAL_HEADER, required = false) String terminalId) {
+        
+        return idempotencyCache.execute("invoices", idempotencyKey, invoice, () -> {
+            if (invoice.getId() != null && dataStorage.getInvoiceById(invoice.getId()) != null) {
+                return duplicate(invoice.getId());
+            }
+            if (invoiceIngest.isEnabled()) {
+                return ingest(invoice, terminalId);
+            }
+            Invoice created = dataStorage.createInvoice(billingService.priceInvoice(invoice));
+            if (created == null) {
+                return duplicate(invoice.getId());
+            }
+            printSpooler.autoPrintBill(created);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        });
+    }
+    
+    // A retry without an Idempotency-Key resends the id the terminal generated
+    private static ResponseEntity<?> duplicate(String id) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Invoice " + id + " already exists"));
+    }
+    
+    // 202 once the invoice is journaled; it shows up in reads when the writer has applied it
+    private ResponseEntity<?> ingest(Invoice invoice, String terminalId) {
+        InvoiceIngestService.Acceptance acceptance;
+        try {
+            acceptance = invoiceIngest.accept(invoice, terminalId);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Could not journal invoice"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Interrupted"));
+        }
+        if (acceptance.error() != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", acceptance.error()));
+        }
+        if (acceptance.invoice() == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+                    .body(Map.of("error", "Invoice queue is full, please retry"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(InvoiceIngestService.SEQUENCE_HEADER, String.valueOf(acceptance.sequence()))
+                .body(acceptance.invoice());
+    }
+    
+    @PostMapping("/table/{tableId}")
+    public ResponseEntity<?> createTableInvoice(
+            @PathVariable String tableId,
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey) {
+        
+        return idempotencyCache.execute("invoices/table/" + tableId, idempotencyKey, null, () -> {
+            Invoice created = billingService.createTableInvoice(tableId);
+            if (created == null) {
+                return ResponseEntity.notFound().build();
+            }
+            printSpooler.autoPrintBill(created);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        });
     }
 }
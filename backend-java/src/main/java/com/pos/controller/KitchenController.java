@@ -0,0 +1,35 @@
+package com.pos.controller;
+
+import com.pos.model.KotTicket;
+import com.pos.service.KitchenDispatchService;
+import com.pos.service.KitchenDisplayFeed;
+import com.pos.service.OutletContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/kitchen")
+public class KitchenController {
+    
+    @Autowired
+    private KitchenDispatchService kitchenDispatch;
+    
+    @Autowired
+    private KitchenDisplayFeed displayFeed;
+    
+    @GetMapping("/tickets")
+    public ResponseEntity<List<KotTicket>> getTickets(
+            @RequestParam String department,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(displayFeed.recent(OutletContext.current(), department, limit));
+    }
+    
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(kitchenDispatch.getStats());
+    }
+}
@@ -0,0 +1,153 @@
+package com.pos.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.pos.config.ProjectionConfig;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shared shaping of list responses: {@code fields=} keeps only the named properties
+ * (dotted names such as {@code items.name} reach into nested objects) and
+ * {@code limit}/{@code cursor} page through the list. The body stays a JSON array;
+ * the cursor for the next page is returned in the X-Next-Cursor header and the
+ * full list size in X-Total-Count.
+ */
+final class ListResponses {
+    
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    
+    private ListResponses() {
+    }
+    
+    static ResponseEntity<?> of(List<?> items, String fields, Integer limit, String cursor) {
+        return ofPage(items.size(), (from, to) -> from == 0 && to == items.size() ? items : items.subList(from, to),
+                fields, limit, cursor);
+    }
+    
+    /** Same as {@link #of} for lists that fetch only the requested page, such as filtered invoices. */
+    static ResponseEntity<?> ofPage(int total, PageFetcher fetcher, String fields, Integer limit, String cursor) {
+        int offset;
+        try {
+            offset = decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+        if (limit != null && limit < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be positive"));
+        }
+        
+        int from = Math.min(offset, total);
+        int to = limit != null ? (int) Math.min((long) from + limit, total) : total;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(total));
+        if (to < total) {
+            response.header(NEXT_CURSOR_HEADER, encodeCursor(to));
+        }
+        
+        List<?> page = fetcher.fetch(from, to);
+        if (fields == null || fields.isBlank()) {
+            return response.body(page);
+        }
+        MappingJacksonValue projected = new MappingJacksonValue(page);
+        projected.setFilters(new SimpleFilterProvider().addFilter(ProjectionConfig.FILTER_ID, new FieldFilter(fields)));
+        return response.body(projected);
+    }
+    
+    interface PageFetcher {
+        List<?> fetch(int from, int to);
+    }
+    
+    private static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!decoded.startsWith("o:")) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int offset = Integer.parseInt(decoded.substring(2));
+        if (offset < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return offset;
+    }
+    
+    private static String encodeCursor(int offset) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("o:" + offset).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // Decides per property while Jackson writes, so unselected properties are never read
+    private static final class FieldFilter extends SimpleBeanPropertyFilter {
+        private final Set<String> fields = new LinkedHashSet<>();
+        
+        FieldFilter(String fields) {
+            for (String field : fields.split(",")) {
+                if (!field.isBlank()) {
+                    this.fields.add(field.trim());
+                }
+            }
+        }
+        
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider, PropertyWriter writer)
+                throws Exception {
+            if (selected(path(gen.getOutputContext()), writer.getName())) {
+                writer.serializeAsField(pojo, gen, provider);
+            } else if (!gen.canOmitFields()) {
+                writer.serializeAsOmittedField(pojo, gen, provider);
+            }
+        }
+        
+        private boolean selected(List<String> path, String name) {
+            // A selected parent, e.g. "items", includes everything beneath it
+            StringBuilder prefix = new StringBuilder();
+            for (String segment : path) {
+                if (prefix.length() > 0) {
+                    prefix.append('.');
+                }
+                prefix.append(segment);
+                if (fields.contains(prefix.toString())) {
+                    return true;
+                }
+            }
+            String full = prefix.length() > 0 ? prefix + "." + name : name;
+            if (fields.contains(full)) {
+                return true;
+            }
+            String nested = full + ".";
+            for (String field : fields) {
+                if (field.startsWith(nested)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        // Property names leading from the response root to the object being written
+        private static List<String> path(JsonStreamContext context) {
+            List<String> path = new ArrayList<>();
+            for (JsonStreamContext parent = context.getParent(); parent != null; parent = parent.getParent()) {
+                if (parent.inObject() && parent.getCurrentName() != null) {
+                    path.add(parent.getCurrentName());
+                }
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+}
@@ -7,7 +7,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,8 +17,19 @@ public class MenuItemController {
     private DataStorageService dataStorage;
     
     @GetMapping
-    public ResponseEntity<List<MenuItem>> getMenuItems() {
-        return ResponseEntity.ok(dataStorage.getAllMenuItems());
+    public ResponseEntity<?> getMenuItems(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return ListResponses.of(dataStorage.getAllMenuItems(), fields, limit, cursor);
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMenuItems(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields) {
+        return ListResponses.of(dataStorage.searchMenuItems(q, Math.min(Math.max(limit, 1), 100)), fields, null, null);
     }
     
     @PostMapping
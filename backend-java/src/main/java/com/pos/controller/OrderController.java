@@ -1,9 +1,14 @@
 package com.pos.controller;
 
+import com.pos.model.Invoice;
 import com.pos.model.OrderItem;
 import com.pos.model.TableOrder;
+import com.pos.service.BillingService;
 import com.pos.service.DataStorageService;
+import com.pos.service.IdempotencyCache;
+import com.pos.service.KitchenDispatchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,9 +22,31 @@ public class OrderController {
     @Autowired
     private DataStorageService dataStorage;
     
+    @Autowired
+    private BillingService billingService;
+    
+    @Autowired
+    private KitchenDispatchService kitchenDispatch;
+    
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+    
     @GetMapping
-    public ResponseEntity<List<TableOrder>> getOrders() {
-        return ResponseEntity.ok(dataStorage.getAllTableOrders());
+    public ResponseEntity<?> getOrders(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return ListResponses.of(dataStorage.getAllTableOrders(), fields, limit, cursor);
+    }
+    
+    @GetMapping("/history")
+    public ResponseEntity<List<Map<String, Object>>> getOrderHistory(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(dataStorage.getOrderHistory(limit));
+    }
+    
+    @GetMapping("/history/stats")
+    public ResponseEntity<Map<String, Object>> getOrderHistoryStats() {
+        return ResponseEntity.ok(dataStorage.getOrderHistoryStats());
     }
     
     @GetMapping("/table/{tableId}")
@@ -28,30 +55,48 @@ public class OrderController {
         return ResponseEntity.ok(order);
     }
     
+    @GetMapping("/table/{tableId}/bill")
+    public ResponseEntity<Invoice> getTableBill(@PathVariable String tableId) {
+        Invoice bill = billingService.previewTableBill(tableId);
+        if (bill == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(bill);
+    }
+    
     @PostMapping("/table/{tableId}")
-    public ResponseEntity<TableOrder> addItemsToTable(
+    public ResponseEntity<?> addItemsToTable(
             @PathVariable String tableId,
-            @RequestBody Map<String, Object> request) {
-        
-        String tableName = (String) request.get("table_name");
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> itemsData = (List<Map<String, Object>>) request.get("items");
+            @RequestBody Map<String, Object> request,
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey) {
         
-        List<OrderItem> items = itemsData.stream()
-                .map(this::mapToOrderItem)
-                .toList();
-        
-        TableOrder order = dataStorage.createOrUpdateTableOrder(tableId, tableName, items);
-        return ResponseEntity.ok(order);
+        return idempotencyCache.execute("orders/table/" + tableId, idempotencyKey, request, () -> {
+            String tableName = (String) request.get("table_name");
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> itemsData = (List<Map<String, Object>>) request.get("items");
+            
+            List<OrderItem> items = itemsData.stream()
+                    .map(this::mapToOrderItem)
+                    .toList();
+            
+            TableOrder order = dataStorage.createOrUpdateTableOrder(tableId, tableName, items);
+            return ResponseEntity.ok(order);
+        });
     }
     
     @PostMapping("/table/{tableId}/sent")
-    public ResponseEntity<TableOrder> markItemsAsSent(@PathVariable String tableId) {
-        TableOrder order = dataStorage.markItemsAsSent(tableId);
-        if (order == null) {
+    public ResponseEntity<?> markItemsAsSent(
+            @PathVariable String tableId,
+            @RequestParam(required = false) Integer kotNumber) throws InterruptedException {
+        KitchenDispatchService.Dispatch dispatch = kitchenDispatch.sendToKitchen(tableId, kotNumber);
+        if (dispatch.busy()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+                    .body(Map.of("error", "Kitchen dispatch is busy, please retry"));
+        }
+        if (dispatch.order() == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(order);
+        return ResponseEntity.ok(dispatch.order());
     }
     
     @PostMapping("/table/{tableId}/complete")
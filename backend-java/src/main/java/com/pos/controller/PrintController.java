@@ -0,0 +1,40 @@
+package com.pos.controller;
+
+import com.pos.model.Invoice;
+import com.pos.service.DataStorageService;
+import com.pos.service.PrintSpooler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/print")
+public class PrintController {
+    
+    @Autowired
+    private DataStorageService dataStorage;
+    
+    @Autowired
+    private PrintSpooler printSpooler;
+    
+    @PostMapping("/invoices/{invoiceId}")
+    public ResponseEntity<Map<String, String>> printInvoice(@PathVariable String invoiceId) {
+        Invoice invoice = dataStorage.getInvoiceById(invoiceId);
+        if (invoice == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!printSpooler.printBill(invoice)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "No bill printer selected or print queue full"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Bill queued for printing"));
+    }
+    
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getStats() {
+        return ResponseEntity.ok(printSpooler.getStats());
+    }
+}
@@ -0,0 +1,31 @@
+package com.pos.controller;
+
+import com.pos.service.ReplicationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/replication")
+public class ReplicationController {
+    
+    @Autowired
+    private ReplicationService replicationService;
+    
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(replicationService.getStatus());
+    }
+    
+    @PostMapping("/promote")
+    public ResponseEntity<Map<String, Object>> promote() {
+        if (!replicationService.promote()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Only a follower can be promoted"));
+        }
+        return ResponseEntity.ok(replicationService.getStatus());
+    }
+}
@@ -0,0 +1,83 @@
+package com.pos.controller;
+
+import com.pos.model.DailySummary;
+import com.pos.service.DailyCloseService;
+import com.pos.service.DataStorageService;
+import com.pos.service.OutletContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+    
+    @Autowired
+    private DataStorageService dataStorage;
+    
+    @Autowired
+    private DailyCloseService dailyClose;
+    
+    @GetMapping("/top-items")
+    public ResponseEntity<?> getTopItems(
+            @RequestParam(defaultValue = "day") String period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) String department,
+            @RequestParam(defaultValue = "quantity") String metric,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        if (!metric.equals("quantity") && !metric.equals("revenue")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "metric must be 'quantity' or 'revenue'"));
+        }
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be positive"));
+        }
+        LocalDateTime time = at != null ? at : LocalDateTime.now();
+        List<Map<String, Object>> top = dataStorage.getTopSellingItems(period, time, department, metric, limit);
+        if (top == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "period must be 'hour', 'day' or 'month'"));
+        }
+        return ResponseEntity.ok(top);
+    }
+    
+    // End-of-day close (Z-report) of the current outlet; closing a day again recomputes it
+    @PostMapping("/daily/close")
+    public ResponseEntity<DailySummary> closeDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        return ResponseEntity.ok(dailyClose.close(OutletContext.current(), day));
+    }
+    
+    @GetMapping("/daily/{date}")
+    public ResponseEntity<DailySummary> getDailySummary(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        DailySummary summary = dailyClose.getSummary(OutletContext.current(), date);
+        if (summary == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(summary);
+    }
+    
+    @GetMapping("/range")
+    public ResponseEntity<?> getRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "month") String groupBy,
+            @RequestParam(defaultValue = "20") int items) {
+        
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "to must not be before from"));
+        }
+        Map<String, Object> range = dailyClose.getRange(OutletContext.current(), from, to, groupBy, Math.max(0, items));
+        if (range == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "groupBy must be 'day', 'month' or 'year'"));
+        }
+        return ResponseEntity.ok(range);
+    }
+}
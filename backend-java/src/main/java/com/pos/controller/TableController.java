@@ -7,7 +7,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,8 +17,11 @@ public class TableController {
     private DataStorageService dataStorage;
     
     @GetMapping
-    public ResponseEntity<List<Table>> getTables() {
-        return ResponseEntity.ok(dataStorage.getAllTables());
+    public ResponseEntity<?> getTables(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return ListResponses.of(dataStorage.getAllTables(), fields, limit, cursor);
     }
     
     @PostMapping
@@ -0,0 +1,85 @@
+package com.pos.controller;
+
+import com.pos.model.OrderItem;
+import com.pos.model.TakeawayOrder;
+import com.pos.service.DataStorageService;
+import com.pos.service.IdempotencyCache;
+import com.pos.service.TakeawayQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/takeaway")
+public class TakeawayController {
+    
+    @Autowired
+    private DataStorageService dataStorage;
+    
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+    
+    @GetMapping("/orders")
+    public ResponseEntity<?> getActiveOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        return ListResponses.of(dataStorage.getActiveTakeawayOrders(status), fields, limit, cursor);
+    }
+    
+    @GetMapping("/orders/{orderId}")
+    public ResponseEntity<TakeawayOrder> getOrder(@PathVariable String orderId) {
+        TakeawayOrder order = dataStorage.getTakeawayOrder(orderId);
+        if (order == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(order);
+    }
+    
+    @PostMapping("/orders")
+    public ResponseEntity<?> placeOrder(
+            @RequestBody TakeawayOrder request,
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey) {
+        
+        List<OrderItem> items = request.items();
+        if (items == null || items.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "A takeaway order needs at least one item"));
+        }
+        return idempotencyCache.execute("takeaway/orders", idempotencyKey, request, () -> {
+            TakeawayOrder order = dataStorage.placeTakeawayOrder(request.customerName(), items);
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        });
+    }
+    
+    @PostMapping("/orders/{orderId}/status")
+    public ResponseEntity<?> updateStatus(@PathVariable String orderId, @RequestBody Map<String, String> request) {
+        String status = request.get("status");
+        if (!TakeawayQueue.STATUSES.contains(status)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Status must be one of " + TakeawayQueue.STATUSES));
+        }
+        if (dataStorage.getTakeawayOrder(orderId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        TakeawayOrder updated = dataStorage.advanceTakeawayOrder(orderId, status);
+        if (updated == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Order is already " + status + " or further along"));
+        }
+        return ResponseEntity.ok(updated);
+    }
+    
+    @GetMapping("/history")
+    public ResponseEntity<List<TakeawayOrder>> getHistory(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(dataStorage.getTakeawayHistory(limit));
+    }
+    
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(dataStorage.getTakeawayStats());
+    }
+}
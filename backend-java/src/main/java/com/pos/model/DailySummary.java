@@ -0,0 +1,47 @@
+package com.pos.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// End-of-day (Z-report) totals of one outlet's invoices for one day
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySummary {
+    private String outletId;
+    private LocalDate date;
+    private LocalDateTime closedAt;
+    private long invoiceCount;
+    private double subtotal;
+    private double tax;
+    private double total;
+    private Map<String, Sales> orderTypes = new LinkedHashMap<>(); // invoices and total per order type
+    private List<Sales> hours;                                    // 24 buckets: invoices and total
+    private Map<String, ItemSales> items = new LinkedHashMap<>(); // by menu item id
+    private Map<String, Sales> departments = new LinkedHashMap<>(); // quantity and revenue
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Sales {
+        private long count;
+        private double amount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemSales {
+        private String name;
+        private String department;
+        private long quantity;
+        private double revenue;
+    }
+}
@@ -0,0 +1,21 @@
+package com.pos.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KotTicket {
+    private int kotNumber;
+    private String outletId;
+    private String tableId;
+    private String tableName;
+    private String department;
+    private List<OrderItem> items;
+    private LocalDateTime createdAt;
+}
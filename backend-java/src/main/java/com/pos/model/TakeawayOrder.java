@@ -0,0 +1,39 @@
+package com.pos.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A takeaway ticket. Immutable: the items are copied in and handed out as copies, so an
+ * order that has been published to the queue can only change by replacing it.
+ */
+public record TakeawayOrder(
+        String id,
+        int orderNumber,
+        String customerName,
+        List<OrderItem> items,
+        String status, // "placed", "preparing", "ready" or "collected"
+        LocalDateTime placedAt,
+        LocalDateTime preparingAt,
+        LocalDateTime readyAt,
+        LocalDateTime collectedAt) {
+
+    public TakeawayOrder {
+        items = copyOf(items);
+    }
+
+    @Override
+    public List<OrderItem> items() {
+        return copyOf(items);
+    }
+
+    private static List<OrderItem> copyOf(List<OrderItem> items) {
+        if (items == null) {
+            return null;
+        }
+        return items.stream()
+                .map(item -> item == null ? null : new OrderItem(item.getId(), item.getName(), item.getPrice(),
+                        item.getCategory(), item.getDepartment(), item.getQuantity(), item.isSentToKitchen()))
+                .toList();
+    }
+}
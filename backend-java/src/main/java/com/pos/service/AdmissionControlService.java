@@ -0,0 +1,271 @@
+package com.pos.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for API requests. Order writes may use every request slot,
+ * including a reserved share nothing else can take; other requests only get the
+ * shared slots and are rejected immediately when those are gone. Heavy reads
+ * (invoice lists, Excel export/import) additionally run a few at a time behind a
+ * short bounded queue, and each client is capped on in-flight requests and on its
+ * heavy read rate.
+ */
+@Service
+public class AdmissionControlService {
+
+    public enum RequestClass { ORDER_WRITE, HEAVY_READ, STANDARD }
+
+    private static final int MAX_TRACKED_CLIENTS = 4096;
+
+    @Value("${pos.admission.max-concurrent:64}")
+    private int maxConcurrent;
+
+    @Value("${pos.admission.order-reserved:16}")
+    private int orderReserved;
+
+    @Value("${pos.admission.order-wait-ms:500}")
+    private long orderWaitMillis;
+
+    @Value("${pos.admission.heavy-concurrent:2}")
+    private int heavyConcurrent;
+
+    @Value("${pos.admission.heavy-queue:8}")
+    private int heavyQueue;
+
+    @Value("${pos.admission.heavy-wait-ms:2000}")
+    private long heavyWaitMillis;
+
+    @Value("${pos.admission.per-client-max:16}")
+    private int perClientMax;
+
+    @Value("${pos.admission.per-client-heavy-per-minute:30}")
+    private int perClientHeavyPerMinute;
+
+    private Semaphore shared;
+    private Semaphore reserved;
+    private Semaphore heavy;
+    private final AtomicInteger heavyWaiting = new AtomicInteger();
+    private volatile boolean warmingUp;
+    private final Map<String, ClientState> clients = new ConcurrentHashMap<>();
+    private final Map<RequestClass, AtomicLong> admitted = new ConcurrentHashMap<>();
+    private final Map<RequestClass, AtomicLong> rejected = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        orderReserved = Math.min(orderReserved, maxConcurrent - 1);
+        shared = new Semaphore(maxConcurrent - orderReserved);
+        reserved = new Semaphore(orderReserved);
+        heavy = new Semaphore(heavyConcurrent);
+        for (RequestClass requestClass : RequestClass.values()) {
+            admitted.put(requestClass, new AtomicLong());
+            rejected.put(requestClass, new AtomicLong());
+        }
+    }
+
+    // Billing is part of taking an order, so invoice writes share the order path
+    public static RequestClass classify(String method, String uri) {
+        boolean read = method.equals("GET") || method.equals("HEAD");
+        if (!read && (uri.startsWith("/api/orders/") || uri.startsWith("/api/kot/") || uri.startsWith("/api/takeaway/")
+                || uri.equals("/api/invoices") || uri.startsWith("/api/invoices/table/"))) {
+            return RequestClass.ORDER_WRITE;
+        }
+        if (uri.equals("/api/kot/next-number")) {
+            return RequestClass.ORDER_WRITE;
+        }
+        if ((read && uri.equals("/api/invoices")) || uri.startsWith("/api/menu/export") || uri.equals("/api/menu/import")) {
+            return RequestClass.HEAVY_READ;
+        }
+        return RequestClass.STANDARD;
+    }
+
+    /**
+     * Tries to admit a request. Returns a ticket that must be released when the request
+     * finishes, or null if the request should be rejected.
+     */
+    public Ticket tryAdmit(RequestClass requestClass, String clientId) throws InterruptedException {
+        ClientState client = clientState(clientId);
+        Ticket ticket = switch (requestClass) {
+            case ORDER_WRITE -> admitOrderWrite();
+            case HEAVY_READ -> admitHeavyRead(client);
+            case STANDARD -> admitStandard(client);
+        };
+        (ticket != null ? admitted : rejected).get(requestClass).incrementAndGet();
+        return ticket;
+    }
+
+    private Ticket admitOrderWrite() throws InterruptedException {
+        if (shared.tryAcquire()) {
+            return new Ticket(shared, null, null);
+        }
+        if (reserved.tryAcquire(orderWaitMillis, TimeUnit.MILLISECONDS)) {
+            return new Ticket(reserved, null, null);
+        }
+        return null;
+    }
+
+    private Ticket admitStandard(ClientState client) {
+        if (!client.enter(perClientMax)) {
+            return null;
+        }
+        if (!shared.tryAcquire()) {
+            client.exit();
+            return null;
+        }
+        return new Ticket(shared, null, client);
+    }
+
+    // A request turned away after taking a rate token gets it back: only admitted reads count
+    private Ticket admitHeavyRead(ClientState client) throws InterruptedException {
+        if (!client.takeHeavyToken(perClientHeavyPerMinute)) {
+            return null;
+        }
+        if (heavyWaiting.incrementAndGet() > heavyQueue + heavyConcurrent) {
+            heavyWaiting.decrementAndGet();
+            client.returnHeavyToken(perClientHeavyPerMinute);
+            return null;
+        }
+        boolean acquired = false;
+        try {
+            acquired = heavy.tryAcquire(heavyWaitMillis, TimeUnit.MILLISECONDS);
+        } finally {
+            heavyWaiting.decrementAndGet();
+            if (!acquired) {
+                client.returnHeavyToken(perClientHeavyPerMinute);
+            }
+        }
+        if (!acquired) {
+            return null;
+        }
+        if (admitStandard(client) == null) {
+            heavy.release();
+            client.returnHeavyToken(perClientHeavyPerMinute);
+            return null;
+        }
+        return new Ticket(shared, heavy, client);
+    }
+
+    private ClientState clientState(String clientId) {
+        ClientState client = clients.get(clientId);
+        if (client != null) {
+            return client;
+        }
+        if (clients.size() >= MAX_TRACKED_CLIENTS) {
+            clients.values().removeIf(ClientState::isIdle);
+        }
+        return clients.computeIfAbsent(clientId, id -> new ClientState());
+    }
+
+    /** Fraction of all request slots currently in use, from 0.0 to 1.0. */
+    public double getSaturation() {
+        int inUse = maxConcurrent - shared.availablePermits() - reserved.availablePermits();
+        return (double) inUse / maxConcurrent;
+    }
+
+    /** Ready once warmed up, and while order writes can still be admitted without waiting. */
+    public boolean isAcceptingOrders() {
+        return !warmingUp && (shared.availablePermits() > 0 || reserved.availablePermits() > 0);
+    }
+
+    public boolean isWarmingUp() {
+        return warmingUp;
+    }
+
+    public void setWarmingUp(boolean warmingUp) {
+        this.warmingUp = warmingUp;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("saturation", Math.round(getSaturation() * 1000) / 1000.0);
+        stats.put("warmingUp", warmingUp);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("sharedAvailable", shared.availablePermits());
+        stats.put("orderReservedAvailable", reserved.availablePermits());
+        stats.put("heavyRunning", heavyConcurrent - heavy.availablePermits());
+        stats.put("heavyQueued", Math.max(0, heavyWaiting.get()));
+        stats.put("trackedClients", clients.size());
+        Map<String, Object> classes = new LinkedHashMap<>();
+        for (RequestClass requestClass : RequestClass.values()) {
+            classes.put(requestClass.name(), Map.of(
+                    "admitted", admitted.get(requestClass).get(),
+                    "rejected", rejected.get(requestClass).get()));
+        }
+        stats.put("classes", classes);
+        return stats;
+    }
+
+    /** Slots held by an admitted request. */
+    public static final class Ticket {
+        private final Semaphore pool;
+        private final Semaphore heavy;
+        private final ClientState client;
+
+        private Ticket(Semaphore pool, Semaphore heavy, ClientState client) {
+            this.pool = pool;
+            this.heavy = heavy;
+            this.client = client;
+        }
+
+        public void release() {
+            pool.release();
+            if (heavy != null) {
+                heavy.release();
+            }
+            if (client != null) {
+                client.exit();
+            }
+        }
+    }
+
+    private static final class ClientState {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private double heavyTokens = -1;
+        private long lastRefill;
+
+        boolean enter(int max) {
+            if (inFlight.incrementAndGet() > max) {
+                inFlight.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        void exit() {
+            inFlight.decrementAndGet();
+        }
+
+        boolean isIdle() {
+            return inFlight.get() == 0;
+        }
+
+        // Token bucket holding up to one minute's allowance of heavy reads
+        synchronized boolean takeHeavyToken(int perMinute) {
+            long now = System.nanoTime();
+            if (heavyTokens < 0) {
+                heavyTokens = perMinute;
+            } else {
+                heavyTokens = Math.min(perMinute, heavyTokens + (now - lastRefill) * perMinute / 60e9);
+            }
+            lastRefill = now;
+            if (heavyTokens < 1) {
+                return false;
+            }
+            heavyTokens--;
+            return true;
+        }
+
+        synchronized void returnHeavyToken(int perMinute) {
+            heavyTokens = Math.min(perMinute, heavyTokens + 1);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.pos.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bytes allocated per API request, by endpoint ("POST /api/orders/table/{tableId}"),
+ * from the JVM's per-thread allocation counter. Each endpoint can have a budget in
+ * pos.alloc.budgets. AllocationBudgetTest fails the build when a request goes over it;
+ * with pos.alloc.enabled a running server also measures live traffic, logging and
+ * counting requests over budget and keeping per-minute averages for the last
+ * pos.alloc.history-minutes to compare before and after a deploy.
+ */
+@Service
+public class AllocationTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(AllocationTracker.class);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Value("${pos.alloc.enabled:false}")
+    private boolean enabled;
+
+    // "METHOD pattern=bytes" entries separated by ';'
+    @Value("${pos.alloc.budgets:}")
+    private String budgetSpec;
+
+    @Value("${pos.alloc.history-minutes:60}")
+    private int historyMinutes;
+
+    private final Map<String, Long> budgets = new HashMap<>();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (enabled && !THREADS.isThreadAllocatedMemorySupported()) {
+            log.warn("Per-thread allocation counters are not supported by this JVM; allocation tracking is off");
+            enabled = false;
+        }
+        if (enabled) {
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+        }
+        for (String entry : budgetSpec.split(";")) {
+            int split = entry.lastIndexOf('=');
+            if (split > 0) {
+                budgets.put(entry.substring(0, split).trim(), Long.parseLong(entry.substring(split + 1).trim()));
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // Budget in bytes for an endpoint such as "GET /api/menu-items", or null if it has none
+    public Long getBudget(String endpoint) {
+        return budgets.get(endpoint);
+    }
+
+    /** Bytes allocated by the calling thread since it started. */
+    public long currentThreadAllocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    public void record(String endpoint, long bytes) {
+        Long budget = budgets.get(endpoint);
+        boolean over = budget != null && bytes > budget;
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointStats()).record(bytes, over, historyMinutes);
+        if (over) {
+            log.warn("{} allocated {} bytes, over its budget of {}", endpoint, bytes, budget);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        Map<String, Object> byEndpoint = new LinkedHashMap<>();
+        new TreeMap<>(endpoints).forEach((endpoint, endpointStats) ->
+                byEndpoint.put(endpoint, endpointStats.toMap(budgets.get(endpoint))));
+        stats.put("endpoints", byEndpoint);
+        return stats;
+    }
+
+    private static final class EndpointStats {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalBytes = new AtomicLong();
+        private final AtomicLong maxBytes = new AtomicLong();
+        private final AtomicLong overBudget = new AtomicLong();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        // Oldest first: {epoch minute, requests, bytes}
+        private final Deque<long[]> minutes = new ArrayDeque<>();
+
+        void record(long bytes, boolean over, int historyMinutes) {
+            count.incrementAndGet();
+            totalBytes.addAndGet(bytes);
+            maxBytes.accumulateAndGet(bytes, Math::max);
+            histogram.record(bytes);
+            if (over) {
+                overBudget.incrementAndGet();
+            }
+            long minute = System.currentTimeMillis() / 60_000;
+            synchronized (minutes) {
+                long[] current = minutes.peekLast();
+                if (current == null || current[0] != minute) {
+                    current = new long[]{minute, 0, 0};
+                    minutes.addLast(current);
+                    while (minutes.size() > historyMinutes) {
+                        minutes.removeFirst();
+                    }
+                }
+                current[1]++;
+                current[2] += bytes;
+            }
+        }
+
+        Map<String, Object> toMap(Long budget) {
+            long requests = count.get();
+            // count and percentiles from the histogram, with the exact maximum
+            Map<String, Object> map = new LinkedHashMap<>(histogram.summary("Bytes"));
+            map.put("maxBytes", maxBytes.get());
+            map.put("meanBytes", requests > 0 ? totalBytes.get() / requests : 0);
+            map.put("budgetBytes", budget);
+            map.put("overBudget", overBudget.get());
+            List<Map<String, Object>> history = new ArrayList<>();
+            synchronized (minutes) {
+                for (long[] minute : minutes) {
+                    Map<String, Object> point = new LinkedHashMap<>();
+                    point.put("minute", Instant.ofEpochSecond(minute[0] * 60).toString());
+                    point.put("requests", minute[1]);
+                    point.put("meanBytes", minute[2] / minute[1]);
+                    history.add(point);
+                }
+            }
+            map.put("history", history);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.pos.service;
+
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+import com.pos.model.TableOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class BillingService {
+    
+    private static final long BASIS_POINTS = 10_000;
+    
+    @Autowired
+    private DataStorageService dataStorage;
+    
+    // Price a bill for the open order on a table without storing it
+    public Invoice previewTableBill(String tableId) {
+        TableOrder order = dataStorage.getTableOrderByTableId(tableId);
+        if (order == null) {
+            return null;
+        }
+        return tableBill(order);
+    }
+    
+    // Price, store and close the open order on a table in one step. The bill is priced from
+    // the order as it is removed, so an item added concurrently is either on this bill or
+    // opens a new order; the bill number comes from the outlet's id sequence.
+    public Invoice createTableInvoice(String tableId) {
+        Invoice[] bill = new Invoice[1];
+        if (dataStorage.completeTableOrder(tableId, order -> bill[0] = tableBill(order)) == null) {
+            return null;
+        }
+        Invoice invoice = bill[0];
+        invoice.setId(dataStorage.nextId());
+        invoice.setBillNumber("BILL-" + invoice.getId());
+        return dataStorage.createInvoice(invoice);
+    }
+    
+    private Invoice tableBill(TableOrder order) {
+        Invoice invoice = new Invoice();
+        invoice.setOrderType("dine-in");
+        invoice.setTableName(order.getTableName());
+        invoice.setItems(order.getItems());
+        return priceInvoice(invoice);
+    }
+    
+    // Recompute line prices, subtotal, tax and total from the server-side price table
+    public Invoice priceInvoice(Invoice invoice) {
+        PriceTable priceTable = dataStorage.getPriceTable();
+        long taxBasisPoints = Math.round(dataStorage.getRestaurantSettings().getTaxRate() * 100);
+        
+        List<OrderItem> source = invoice.getItems() != null ? invoice.getItems() : List.of();
+        List<OrderItem> lines = new ArrayList<>(source.size());
+        long subtotal = 0;
+        for (OrderItem item : source) {
+            long unitPrice = priceTable.priceOf(item.getId());
+            if (unitPrice < 0) {
+                // Not on the menu any more: keep the price captured when the line was ordered
+                unitPrice = PriceTable.toMinor(item.getPrice());
+            }
+            subtotal += unitPrice * item.getQuantity();
+            lines.add(new OrderItem(item.getId(), item.getName(), PriceTable.fromMinor(unitPrice),
+                    item.getCategory(), item.getDepartment(), item.getQuantity(), item.isSentToKitchen()));
+        }
+        // Round half up to the nearest minor unit
+        long tax = (subtotal * taxBasisPoints + BASIS_POINTS / 2) / BASIS_POINTS;
+        
+        invoice.setItems(lines);
+        invoice.setSubtotal(PriceTable.fromMinor(subtotal));
+        invoice.setTax(PriceTable.fromMinor(tax));
+        invoice.setTotal(PriceTable.fromMinor(subtotal + tax));
+        if (invoice.getTimestamp() == null) {
+            invoice.setTimestamp(LocalDateTime.now());
+        }
+        return invoice;
+    }
+}
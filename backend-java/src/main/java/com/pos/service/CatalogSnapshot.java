@@ -0,0 +1,153 @@
+package com.pos.service;
+
+import com.pos.model.Category;
+import com.pos.model.Department;
+import com.pos.model.MenuItem;
+import com.pos.model.Table;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of an outlet's catalog: tables, menu items, categories
+ * and departments. Writers derive the next snapshot with the with/without methods
+ * and publish it in one volatile write, so readers always see a consistent catalog
+ * and can hand out its lists without copying. Entities inside a snapshot are never
+ * modified; a change replaces the entity with a new instance. The store copies every
+ * entity it is given, and lookups by id return copies, but the lists are shared with
+ * every other reader: callers must treat the entities in them as read-only.
+ */
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, 0,
+            Entities.empty(), Entities.empty(), Entities.empty(), Entities.empty());
+
+    private final long version;
+    // Version at which menu items, categories or departments last changed; table status
+    // churns with every order, so anything built from the menu alone keys on this instead
+    private final long menuVersion;
+    private final Entities<Table> tables;
+    private final Entities<MenuItem> menuItems;
+    private final Entities<Category> categories;
+    private final Entities<Department> departments;
+
+    private CatalogSnapshot(long version, long menuVersion, Entities<Table> tables, Entities<MenuItem> menuItems,
+                            Entities<Category> categories, Entities<Department> departments) {
+        this.version = version;
+        this.menuVersion = menuVersion;
+        this.tables = tables;
+        this.menuItems = menuItems;
+        this.categories = categories;
+        this.departments = departments;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getMenuVersion() {
+        return menuVersion;
+    }
+
+    public Entities<Table> getTables() {
+        return tables;
+    }
+
+    public Entities<MenuItem> getMenuItems() {
+        return menuItems;
+    }
+
+    public Entities<Category> getCategories() {
+        return categories;
+    }
+
+    public Entities<Department> getDepartments() {
+        return departments;
+    }
+
+    CatalogSnapshot withTables(Entities<Table> tables) {
+        return new CatalogSnapshot(version + 1, menuVersion, tables, menuItems, categories, departments);
+    }
+
+    CatalogSnapshot withMenuItems(Entities<MenuItem> menuItems) {
+        return new CatalogSnapshot(version + 1, version + 1, tables, menuItems, categories, departments);
+    }
+
+    CatalogSnapshot withCategories(Entities<Category> categories) {
+        return new CatalogSnapshot(version + 1, version + 1, tables, menuItems, categories, departments);
+    }
+
+    CatalogSnapshot withDepartments(Entities<Department> departments) {
+        return new CatalogSnapshot(version + 1, version + 1, tables, menuItems, categories, departments);
+    }
+
+    // Several collections changed as one step, e.g. a menu import
+    CatalogSnapshot withCatalog(Entities<MenuItem> menuItems, Entities<Category> categories, Entities<Department> departments) {
+        return new CatalogSnapshot(version + 1, version + 1, tables, menuItems, categories, departments);
+    }
+
+    /**
+     * One immutable collection of entities, in insertion order with lookup by id.
+     * Unchanged collections are shared between consecutive snapshots.
+     */
+    public static final class Entities<T> {
+
+        private static final Entities<?> EMPTY = new Entities<>(new LinkedHashMap<>());
+
+        private final Map<String, T> byId;
+        private final List<T> list;
+
+        private Entities(LinkedHashMap<String, T> byId) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.list = List.copyOf(byId.values());
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Entities<T> empty() {
+            return (Entities<T>) EMPTY;
+        }
+
+        public List<T> list() {
+            return list;
+        }
+
+        public T get(String id) {
+            return byId.get(id);
+        }
+
+        public boolean contains(String id) {
+            return byId.containsKey(id);
+        }
+
+        public int size() {
+            return list.size();
+        }
+
+        Entities<T> with(String id, T value) {
+            LinkedHashMap<String, T> next = new LinkedHashMap<>(byId);
+            next.put(id, value);
+            return new Entities<>(next);
+        }
+
+        // One copy for many entities, instead of one copy each
+        Entities<T> withAll(Map<String, T> values) {
+            if (values.isEmpty()) {
+                return this;
+            }
+            LinkedHashMap<String, T> next = new LinkedHashMap<>(byId);
+            next.putAll(values);
+            return new Entities<>(next);
+        }
+
+        Entities<T> without(String id) {
+            if (!byId.containsKey(id)) {
+                return this;
+            }
+            LinkedHashMap<String, T> next = new LinkedHashMap<>(byId);
+            next.remove(id);
+            return new Entities<>(next);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.pos.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed set of non-negative ints in the Roaring layout: values are split by their
+ * high 16 bits into chunks, and each chunk is stored as a sorted char array while it
+ * holds up to 4096 values, or as a 65536-bit bitmap once it is denser. Intersections
+ * and unions work chunk by chunk and pick the cheaper algorithm for each pair. Not
+ * thread safe; the owner synchronizes access.
+ */
+final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index >= 0) {
+            containers[index] = containers[index].add((char) value);
+            return;
+        }
+        insertAt(-index - 1, key, new ArrayContainer().add((char) value));
+    }
+
+    void remove(int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove((char) value);
+        if (container.cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        } else {
+            containers[index] = container;
+        }
+    }
+
+    boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.insertAt(result.size, a.keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    static CompressedBitmap or(List<CompressedBitmap> bitmaps) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (CompressedBitmap bitmap : bitmaps) {
+            for (int i = 0; i < bitmap.size; i++) {
+                int index = result.indexOf(bitmap.keys[i]);
+                if (index >= 0) {
+                    result.containers[index] = result.containers[index].or(bitmap.containers[i]);
+                } else {
+                    result.insertAt(-index - 1, bitmap.keys[i], bitmap.containers[i].or(new ArrayContainer()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Up to limit values, largest first, after skipping the first skip of them. */
+    int[] descending(int skip, int limit) {
+        int[] values = new int[Math.max(0, Math.min(limit, cardinality() - skip))];
+        int count = 0;
+        for (int i = size - 1; i >= 0 && count < values.length; i--) {
+            Container container = containers[i];
+            int cardinality = container.cardinality();
+            if (skip >= cardinality) {
+                // Whole chunks are skipped by their size, without visiting their values
+                skip -= cardinality;
+                continue;
+            }
+            int high = keys[i] << 16;
+            int[] written = {count};
+            int[] toSkip = {skip};
+            container.forEachDescending(low -> {
+                if (toSkip[0] > 0) {
+                    toSkip[0]--;
+                    return true;
+                }
+                values[written[0]++] = high | low;
+                return written[0] < values.length;
+            });
+            count = written[0];
+            skip = 0;
+        }
+        return values;
+    }
+
+    private int indexOf(char key) {
+        // Values mostly arrive in increasing order, so check the last chunk first
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertAt(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private interface Container {
+        Container add(char value);
+
+        Container remove(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        // Results never share storage with the operands
+        Container and(Container other);
+
+        Container or(Container other);
+
+        void forEachDescending(IntPredicate action);
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char value) {
+            int index = cardinality > 0 && values[cardinality - 1] < value
+                    ? -cardinality - 1
+                    : Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || array.values[j] < values[i]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_MAX ? union.toBitmap() : union;
+        }
+
+        @Override
+        public void forEachDescending(IntPredicate action) {
+            for (int i = cardinality - 1; i >= 0; i--) {
+                if (!action.test(values[i])) {
+                    return;
+                }
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words = new long[WORDS];
+        private int cardinality;
+
+        @Override
+        public Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) != 0) {
+                words[value >>> 6] &= ~bit;
+                cardinality--;
+            }
+            if (cardinality <= ARRAY_MAX) {
+                return toArray();
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            BitmapContainer bitmap = (BitmapContainer) other;
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < WORDS; i++) {
+                result.words[i] = words[i] & bitmap.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            return result.cardinality <= ARRAY_MAX ? result.toArray() : result;
+        }
+
+        @Override
+        public Container or(Container other) {
+            BitmapContainer result = new BitmapContainer();
+            System.arraycopy(words, 0, result.words, 0, WORDS);
+            result.cardinality = cardinality;
+            if (other instanceof BitmapContainer bitmap) {
+                result.cardinality = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    result.words[i] |= bitmap.words[i];
+                    result.cardinality += Long.bitCount(result.words[i]);
+                }
+            } else {
+                other.forEachDescending(value -> {
+                    result.add((char) value);
+                    return true;
+                });
+            }
+            return result;
+        }
+
+        @Override
+        public void forEachDescending(IntPredicate action) {
+            for (int i = WORDS - 1; i >= 0; i--) {
+                long word = words[i];
+                while (word != 0) {
+                    int bit = 63 - Long.numberOfLeadingZeros(word);
+                    if (!action.test((i << 6) | bit)) {
+                        return;
+                    }
+                    word &= ~(1L << bit);
+                }
+            }
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int[] index = {cardinality};
+            forEachDescending(value -> {
+                values[--index[0]] = (char) value;
+                return true;
+            });
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
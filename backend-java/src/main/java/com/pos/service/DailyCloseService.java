@@ -0,0 +1,332 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pos.model.DailySummary;
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * End-of-day close (Z-report). Folds one day's invoices of an outlet into a compact
+ * DailySummary, written as one JSON file per outlet and day, so long-range reports
+ * read a few hundred small records instead of every invoice. Yesterday is closed
+ * automatically shortly after midnight; a day can also be closed by hand, and closing
+ * again recomputes it. Summaries are loaded from disk once per outlet and then kept in
+ * memory.
+ */
+@Service
+public class DailyCloseService {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyCloseService.class);
+
+    @Value("${pos.eod.dir:daily-summaries}")
+    private String directory;
+
+    @Autowired
+    private DataStorageService dataStorage;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InvoiceIngestService invoiceIngest;
+
+    private final Map<String, NavigableMap<LocalDate, DailySummary>> summaries = new ConcurrentHashMap<>();
+
+    /**
+     * Closes yesterday for every outlet, and any earlier day the invoice journal still
+     * holds that has no summary yet. Once a day is closed for all outlets its journal
+     * segment is no longer needed.
+     */
+    @Scheduled(cron = "${pos.eod.close-cron:0 5 0 * * *}")
+    public void closeYesterday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Set<LocalDate> days = new TreeSet<>(invoiceIngest.getJournalDays());
+        days.add(yesterday);
+        for (LocalDate day : days) {
+            boolean closedEverywhere = true;
+            for (String outletId : dataStorage.getOutletIds()) {
+                try {
+                    // An earlier day was closed before, possibly from more invoices than a restart kept
+                    if (day.equals(yesterday) || getSummary(outletId, day) == null) {
+                        close(outletId, day);
+                    }
+                } catch (RuntimeException e) {
+                    closedEverywhere = false;
+                    log.warn("End-of-day close of {} for outlet {} failed: {}", day, outletId, e.getMessage());
+                }
+            }
+            if (closedEverywhere) {
+                invoiceIngest.dayClosed(day);
+            }
+        }
+    }
+
+    public DailySummary close(String outletId, LocalDate date) {
+        List<Invoice> invoices = dataStorage.forOutlet(outletId).getAllInvoices().stream()
+                .filter(invoice -> invoice.getTimestamp() != null && invoice.getTimestamp().toLocalDate().equals(date))
+                .toList();
+        NavigableMap<LocalDate, DailySummary> closed = summariesOf(outletId);
+        synchronized (closed) {
+            DailySummary existing = closed.get(date);
+            if (invoices.isEmpty() && existing != null) {
+                // The invoices are gone (e.g. after a restart); keep what was closed before
+                return existing;
+            }
+            Totals totals = new Totals();
+            invoices.forEach(totals::add);
+            DailySummary summary = totals.toSummary(outletId, date, LocalDateTime.now());
+            write(outletId, summary);
+            closed.put(date, summary);
+            return summary;
+        }
+    }
+
+    public DailySummary getSummary(String outletId, LocalDate date) {
+        return summariesOf(outletId).get(date);
+    }
+
+    /**
+     * Totals over closed days from..to, plus today's invoices so far when the range
+     * reaches today. Periods are grouped by day, month or year; items are limited to
+     * the best sellers by revenue. Returns null for an unknown groupBy.
+     */
+    public Map<String, Object> getRange(String outletId, LocalDate from, LocalDate to, String groupBy, int itemLimit) {
+        Function<LocalDate, String> periodOf = switch (groupBy) {
+            case "day" -> LocalDate::toString;
+            case "month" -> date -> date.toString().substring(0, 7);
+            case "year" -> date -> date.toString().substring(0, 4);
+            default -> null;
+        };
+        if (periodOf == null) {
+            return null;
+        }
+
+        Map<LocalDate, DailySummary> days = new TreeMap<>(summariesOf(outletId).subMap(from, true, to, true));
+        LocalDate today = LocalDate.now();
+        boolean includesToday = !today.isBefore(from) && !today.isAfter(to);
+        if (includesToday) {
+            Totals live = new Totals();
+            dataStorage.forOutlet(outletId).getAllInvoices().stream()
+                    .filter(invoice -> invoice.getTimestamp() != null && invoice.getTimestamp().toLocalDate().equals(today))
+                    .forEach(live::add);
+            days.put(today, live.toSummary(outletId, today, null));
+        }
+
+        Totals overall = new Totals();
+        Map<String, Totals> periods = new LinkedHashMap<>();
+        Map<String, Integer> daysPerPeriod = new HashMap<>();
+        days.forEach((date, summary) -> {
+            overall.add(summary);
+            String period = periodOf.apply(date);
+            periods.computeIfAbsent(period, p -> new Totals()).add(summary);
+            daysPerPeriod.merge(period, 1, Integer::sum);
+        });
+
+        List<Map<String, Object>> periodRows = new ArrayList<>();
+        periods.forEach((period, totals) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("period", period);
+            row.put("days", daysPerPeriod.get(period));
+            row.put("invoiceCount", totals.invoices);
+            row.put("subtotal", PriceTable.fromMinor(totals.subtotal));
+            row.put("tax", PriceTable.fromMinor(totals.tax));
+            row.put("total", PriceTable.fromMinor(totals.total));
+            periodRows.add(row);
+        });
+
+        DailySummary summary = overall.toSummary(outletId, null, null);
+        Map<String, DailySummary.ItemSales> topItems = new LinkedHashMap<>();
+        summary.getItems().entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.comparingDouble(DailySummary.ItemSales::getRevenue).reversed()))
+                .limit(itemLimit)
+                .forEach(entry -> topItems.put(entry.getKey(), entry.getValue()));
+        summary.setItems(topItems);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("outletId", outletId);
+        result.put("from", from);
+        result.put("to", to);
+        result.put("groupBy", groupBy);
+        result.put("daysClosed", days.size() - (includesToday ? 1 : 0));
+        result.put("includesOpenDay", includesToday);
+        result.put("totals", summary);
+        result.put("periods", periodRows);
+        return result;
+    }
+
+    private NavigableMap<LocalDate, DailySummary> summariesOf(String outletId) {
+        return summaries.computeIfAbsent(outletId, this::load);
+    }
+
+    private Path outletDirectory(String outletId) {
+        return Paths.get(directory).resolve(outletId.replaceAll("[^A-Za-z0-9_-]", "_"));
+    }
+
+    private NavigableMap<LocalDate, DailySummary> load(String outletId) {
+        NavigableMap<LocalDate, DailySummary> loaded = new ConcurrentSkipListMap<>();
+        Path dir = outletDirectory(outletId);
+        if (!Files.isDirectory(dir)) {
+            return loaded;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json")).forEach(file -> {
+                try {
+                    DailySummary summary = objectMapper.readValue(file.toFile(), DailySummary.class);
+                    loaded.put(summary.getDate(), summary);
+                } catch (IOException | DateTimeParseException e) {
+                    log.warn("Skipping unreadable daily summary {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read daily summaries in " + dir, e);
+        }
+        return loaded;
+    }
+
+    // Written to a temporary file and moved into place, so a crash never leaves half a summary
+    private void write(String outletId, DailySummary summary) {
+        Path dir = outletDirectory(outletId);
+        try {
+            Files.createDirectories(dir);
+            Path target = dir.resolve(summary.getDate() + ".json");
+            Path temp = dir.resolve(summary.getDate() + ".json.tmp");
+            objectMapper.writeValue(temp.toFile(), summary);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write daily summary for " + summary.getDate(), e);
+        }
+    }
+
+    // Running sums in minor currency units, fed by invoices or by closed days
+    private static final class Totals {
+        long invoices;
+        long subtotal;
+        long tax;
+        long total;
+        final Map<String, long[]> orderTypes = new TreeMap<>();
+        final long[][] hours = new long[24][2];
+        final Map<String, ItemTotals> items = new HashMap<>();
+        final Map<String, long[]> departments = new TreeMap<>();
+
+        void add(Invoice invoice) {
+            long invoiceTotal = PriceTable.toMinor(invoice.getTotal());
+            invoices++;
+            subtotal += PriceTable.toMinor(invoice.getSubtotal());
+            tax += PriceTable.toMinor(invoice.getTax());
+            total += invoiceTotal;
+            String orderType = invoice.getOrderType() != null ? invoice.getOrderType() : "unknown";
+            addTo(orderTypes, orderType, 1, invoiceTotal);
+            long[] hour = hours[invoice.getTimestamp().getHour()];
+            hour[0]++;
+            hour[1] += invoiceTotal;
+            if (invoice.getItems() != null) {
+                for (OrderItem item : invoice.getItems()) {
+                    long revenue = PriceTable.toMinor(item.getPrice()) * item.getQuantity();
+                    addItem(item.getId(), item.getName(), item.getDepartment(), item.getQuantity(), revenue);
+                }
+            }
+        }
+
+        void add(DailySummary summary) {
+            invoices += summary.getInvoiceCount();
+            subtotal += PriceTable.toMinor(summary.getSubtotal());
+            tax += PriceTable.toMinor(summary.getTax());
+            total += PriceTable.toMinor(summary.getTotal());
+            summary.getOrderTypes().forEach((type, sales) ->
+                    addTo(orderTypes, type, sales.getCount(), PriceTable.toMinor(sales.getAmount())));
+            if (summary.getHours() != null) {
+                for (int h = 0; h < Math.min(24, summary.getHours().size()); h++) {
+                    hours[h][0] += summary.getHours().get(h).getCount();
+                    hours[h][1] += PriceTable.toMinor(summary.getHours().get(h).getAmount());
+                }
+            }
+            summary.getItems().forEach((id, item) -> addItem(id, item.getName(), item.getDepartment(),
+                    item.getQuantity(), PriceTable.toMinor(item.getRevenue())));
+        }
+
+        private void addItem(String id, String name, String department, long quantity, long revenue) {
+            ItemTotals totals = items.computeIfAbsent(id != null ? id : String.valueOf(name), key -> new ItemTotals(name, department));
+            totals.quantity += quantity;
+            totals.revenue += revenue;
+            if (department != null) {
+                addTo(departments, department, quantity, revenue);
+            }
+        }
+
+        private static void addTo(Map<String, long[]> map, String key, long count, long amount) {
+            long[] sums = map.computeIfAbsent(key, k -> new long[2]);
+            sums[0] += count;
+            sums[1] += amount;
+        }
+
+        DailySummary toSummary(String outletId, LocalDate date, LocalDateTime closedAt) {
+            DailySummary summary = new DailySummary();
+            summary.setOutletId(outletId);
+            summary.setDate(date);
+            summary.setClosedAt(closedAt);
+            summary.setInvoiceCount(invoices);
+            summary.setSubtotal(PriceTable.fromMinor(subtotal));
+            summary.setTax(PriceTable.fromMinor(tax));
+            summary.setTotal(PriceTable.fromMinor(total));
+            orderTypes.forEach((type, sums) -> summary.getOrderTypes().put(type, sales(sums)));
+            List<DailySummary.Sales> hourly = new ArrayList<>(24);
+            for (long[] hour : hours) {
+                hourly.add(sales(hour));
+            }
+            summary.setHours(hourly);
+            items.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> summary.getItems().put(entry.getKey(), new DailySummary.ItemSales(
+                            entry.getValue().name, entry.getValue().department,
+                            entry.getValue().quantity, PriceTable.fromMinor(entry.getValue().revenue))));
+            departments.forEach((department, sums) -> summary.getDepartments().put(department, sales(sums)));
+            return summary;
+        }
+
+        private static DailySummary.Sales sales(long[] sums) {
+            return new DailySummary.Sales(sums[0], PriceTable.fromMinor(sums[1]));
+        }
+    }
+
+    private static final class ItemTotals {
+        final String name;
+        final String department;
+        long quantity;
+        long revenue;
+
+        ItemTotals(String name, String department) {
+            this.name = name;
+            this.department = department;
+        }
+    }
+}
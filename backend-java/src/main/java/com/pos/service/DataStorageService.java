@@ -1,335 +1,321 @@
 package com.pos.service;
 
 import com.pos.model.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class DataStorageService {
     
-    // In-memory storage
-    private final Map<String, Table> tables = new ConcurrentHashMap<>();
-    private final Map<String, TableOrder> tableOrders = new ConcurrentHashMap<>();
-    private final Map<String, Invoice> invoices = new ConcurrentHashMap<>();
-    private final Map<String, MenuItem> menuItems = new ConcurrentHashMap<>();
-    private final Map<String, Category> categories = new ConcurrentHashMap<>();
-    private final Map<String, Department> departments = new ConcurrentHashMap<>();
-    
-    private RestaurantSettings restaurantSettings;
-    private KOTConfig kotConfig;
-    private BillConfig billConfig;
-    private KOTCounter kotCounter;
-    
-    private final AtomicLong orderIdCounter = new AtomicLong(1);
-    
-    public DataStorageService() {
-        // Initialize default configurations
-        this.restaurantSettings = new RestaurantSettings();
-        this.kotConfig = new KOTConfig();
-        this.billConfig = new BillConfig();
-        this.kotCounter = new KOTCounter();
-        
-        // Initialize with some sample data
-        initializeSampleData();
-    }
-    
-    private void initializeSampleData() {
-        // Sample categories
-        Category cat1 = new Category("cat1", "Appetizers");
-        Category cat2 = new Category("cat2", "Mains");
-        Category cat3 = new Category("cat3", "Desserts");
-        Category cat4 = new Category("cat4", "Beverages");
-        categories.put(cat1.getId(), cat1);
-        categories.put(cat2.getId(), cat2);
-        categories.put(cat3.getId(), cat3);
-        categories.put(cat4.getId(), cat4);
-        
-        // Sample departments
-        Department dept1 = new Department("dept1", "Kitchen");
-        Department dept2 = new Department("dept2", "Bar");
-        departments.put(dept1.getId(), dept1);
-        departments.put(dept2.getId(), dept2);
-        
-        // Sample menu items
-        MenuItem item1 = new MenuItem("item1", "Chicken Burger", "CB001", 299.0, "Mains", "Kitchen", "Grilled chicken with lettuce and mayo");
-        MenuItem item2 = new MenuItem("item2", "French Fries", "FF001", 149.0, "Appetizers", "Kitchen", "Crispy golden fries");
-        MenuItem item3 = new MenuItem("item3", "Coca Cola", "CC001", 99.0, "Beverages", "Bar", "Chilled soft drink");
-        menuItems.put(item1.getId(), item1);
-        menuItems.put(item2.getId(), item2);
-        menuItems.put(item3.getId(), item3);
-        
-        // Sample tables
-        Table table1 = new Table("table1", "Table 1", 4, "Indoor", "available");
-        Table table2 = new Table("table2", "Table 2", 2, "Indoor", "available");
-        Table table3 = new Table("table3", "Table 3", 6, "Outdoor", "available");
-        tables.put(table1.getId(), table1);
-        tables.put(table2.getId(), table2);
-        tables.put(table3.getId(), table3);
+    // One independent store per outlet, created on first use
+    private final Map<String, OutletStore> outlets = new ConcurrentHashMap<>();
+    
+    // Throwaway outlets (e.g. for the startup warm-up): routable, but never replicated,
+    // closed at end of day or listed
+    private final Set<String> scratchOutlets = ConcurrentHashMap.newKeySet();
+    
+    // Routable outlets, counted where they are created so a cap cannot be overrun
+    private final AtomicInteger outletCount = new AtomicInteger();
+    
+    private final boolean offHeapInvoiceItems;
+    
+    private volatile boolean seedSampleData = true;
+    private volatile MutationListener mutationListener;
+    
+    public DataStorageService(@Value("${pos.invoice.off-heap-items:false}") boolean offHeapInvoiceItems) {
+        this.offHeapInvoiceItems = offHeapInvoiceItems;
+        forOutlet(OutletContext.DEFAULT_OUTLET);
+    }
+    
+    // Outlet routing
+    public OutletStore forOutlet(String outletId) {
+        return openOutlet(outletId, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Returns the outlet's store, creating it unless there are already maxOutlets
+     * outlets; then returns null. The check and the creation are one atomic step, so
+     * concurrent first requests for new outlets cannot go past the cap.
+     */
+    public OutletStore openOutlet(String outletId, int maxOutlets) {
+        OutletStore store = outlets.get(outletId);
+        if (store == null) {
+            store = outlets.computeIfAbsent(outletId, id -> {
+                if (outletCount.incrementAndGet() > maxOutlets) {
+                    outletCount.decrementAndGet();
+                    return null;
+                }
+                OutletStore created = new OutletStore(id, offHeapInvoiceItems, seedSampleData);
+                created.setMutationListener(mutationListener);
+                return created;
+            });
+        }
+        return store;
+    }
+    
+    public Collection<OutletStore> getOutlets() {
+        if (scratchOutlets.isEmpty()) {
+            return outlets.values();
+        }
+        List<OutletStore> stores = new ArrayList<>(outlets.values());
+        stores.removeIf(store -> scratchOutlets.contains(store.getOutletId()));
+        return stores;
+    }
+    
+    // A sample-data outlet with no mutation listener, until discardScratchOutlet removes it
+    public OutletStore createScratchOutlet(String outletId) {
+        scratchOutlets.add(outletId);
+        OutletStore store = new OutletStore(outletId, offHeapInvoiceItems, true);
+        outlets.put(outletId, store);
+        return store;
+    }
+    
+    public void discardScratchOutlet(String outletId) {
+        outlets.remove(outletId);
+        scratchOutlets.remove(outletId);
+    }
+    
+    // Replication: every store reports its changes to the listener
+    public void setMutationListener(MutationListener listener) {
+        this.mutationListener = listener;
+        getOutlets().forEach(store -> store.setMutationListener(listener));
+    }
+    
+    // Replication: an empty store, not yet routable, to receive a snapshot from the leader
+    public OutletStore newSnapshotStore(String outletId) {
+        return new OutletStore(outletId, offHeapInvoiceItems, false);
+    }
+    
+    // Replication: swaps in the outlets of a complete snapshot, so reads go on being served
+    // from the previous state until the whole snapshot has arrived
+    public void replaceWithSnapshot(Map<String, OutletStore> snapshot) {
+        this.seedSampleData = false;
+        snapshot.values().forEach(store -> store.setMutationListener(mutationListener));
+        outlets.putAll(snapshot);
+        outlets.keySet().removeIf(outletId -> !snapshot.containsKey(outletId) && !scratchOutlets.contains(outletId));
+        outletCount.set(snapshot.size());
+    }
+    
+    public int getOutletCount() {
+        return outletCount.get();
+    }
+    
+    public Set<String> getOutletIds() {
+        Set<String> outletIds = new TreeSet<>(outlets.keySet());
+        outletIds.removeAll(scratchOutlets);
+        return outletIds;
+    }
+    
+    private OutletStore store() {
+        return forOutlet(OutletContext.current());
     }
     
     // Table operations
     public List<Table> getAllTables() {
-        return new ArrayList<>(tables.values());
+        return store().getAllTables();
     }
     
     public Table getTableById(String id) {
-        return tables.get(id);
+        return store().getTableById(id);
     }
     
     public Table createTable(Table table) {
-        if (table.getId() == null || table.getId().isEmpty()) {
-            table.setId(generateId());
-        }
-        tables.put(table.getId(), table);
-        return table;
+        return store().createTable(table);
     }
     
     public Table updateTable(String id, Table table) {
-        if (tables.containsKey(id)) {
-            table.setId(id);
-            tables.put(id, table);
-            return table;
-        }
-        return null;
+        return store().updateTable(id, table);
     }
     
     public boolean deleteTable(String id) {
-        return tables.remove(id) != null;
+        return store().deleteTable(id);
     }
     
     // Table Order operations
     public List<TableOrder> getAllTableOrders() {
-        return new ArrayList<>(tableOrders.values());
+        return store().getAllTableOrders();
     }
     
     public TableOrder getTableOrderByTableId(String tableId) {
-        return tableOrders.values().stream()
-                .filter(order -> order.getTableId().equals(tableId))
-                .findFirst()
-                .orElse(null);
+        return store().getTableOrderByTableId(tableId);
     }
     
     public TableOrder createOrUpdateTableOrder(String tableId, String tableName, List<OrderItem> items) {
-        TableOrder existingOrder = getTableOrderByTableId(tableId);
-        
-        if (existingOrder == null) {
-            // Create new order
-            TableOrder newOrder = new TableOrder();
-            newOrder.setId(orderIdCounter.getAndIncrement());
-            newOrder.setTableId(tableId);
-            newOrder.setTableName(tableName);
-            newOrder.setItems(new ArrayList<>(items));
-            newOrder.setStartTime(LocalDateTime.now());
-            tableOrders.put(tableId, newOrder);
-            
-            // Update table status
-            Table table = tables.get(tableId);
-            if (table != null) {
-                table.setStatus("occupied");
-            }
-            
-            return newOrder;
-        } else {
-            // Update existing order - merge items
-            List<OrderItem> existingItems = existingOrder.getItems();
-            
-            for (OrderItem newItem : items) {
-                boolean found = false;
-                for (OrderItem existingItem : existingItems) {
-                    if (existingItem.getId().equals(newItem.getId()) && !existingItem.isSentToKitchen()) {
-                        // Update quantity of pending item
-                        existingItem.setQuantity(existingItem.getQuantity() + newItem.getQuantity());
-                        found = true;
-                        break;
-                    }
-                }
-                if (!found) {
-                    // Add new item
-                    existingItems.add(newItem);
-                }
-            }
-            
-            return existingOrder;
-        }
+        return store().createOrUpdateTableOrder(tableId, tableName, items);
     }
     
     public TableOrder markItemsAsSent(String tableId) {
-        TableOrder order = getTableOrderByTableId(tableId);
-        if (order != null) {
-            for (OrderItem item : order.getItems()) {
-                item.setSentToKitchen(true);
-            }
-        }
-        return order;
+        return store().markItemsAsSent(tableId);
+    }
+    
+    public TableOrder markItemsAsSent(String tableId, List<OrderItem> newlySent) {
+        return store().markItemsAsSent(tableId, newlySent);
     }
     
     public boolean completeTableOrder(String tableId) {
-        TableOrder removed = tableOrders.remove(tableId);
-        if (removed != null) {
-            // Update table status
-            Table table = tables.get(tableId);
-            if (table != null) {
-                table.setStatus("available");
-            }
-            return true;
-        }
-        return false;
+        return store().completeTableOrder(tableId);
+    }
+    
+    public TableOrder completeTableOrder(String tableId, Consumer<TableOrder> bill) {
+        return store().completeTableOrder(tableId, bill);
+    }
+    
+    public List<Map<String, Object>> getOrderHistory(int limit) {
+        return store().getOrderHistory(limit);
+    }
+    
+    public Map<String, Object> getOrderHistoryStats() {
+        return store().getOrderHistoryStats();
     }
     
     // Invoice operations
     public List<Invoice> getAllInvoices() {
-        return new ArrayList<>(invoices.values());
+        return store().getAllInvoices();
+    }
+    
+    public Invoice getInvoiceById(String id) {
+        return store().getInvoiceById(id);
     }
     
     public Invoice createInvoice(Invoice invoice) {
-        if (invoice.getId() == null || invoice.getId().isEmpty()) {
-            invoice.setId(generateId());
-        }
-        invoices.put(invoice.getId(), invoice);
-        return invoice;
+        return store().createInvoice(invoice);
+    }
+    
+    public InvoiceIndex.Result filterInvoices(String orderType, String tableName, LocalDate from, LocalDate to, String itemId) {
+        return store().filterInvoices(orderType, tableName, from, to, itemId);
+    }
+    
+    public List<Map<String, Object>> getTopSellingItems(String period, LocalDateTime time, String department, String metric, int limit) {
+        return store().getTopSellingItems(period, time, department, metric, limit);
     }
     
     // Menu Item operations
+    public CatalogSnapshot getCatalog() {
+        return store().getCatalog();
+    }
+    
     public List<MenuItem> getAllMenuItems() {
-        return new ArrayList<>(menuItems.values());
+        return store().getAllMenuItems();
     }
     
     public MenuItem getMenuItemById(String id) {
-        return menuItems.get(id);
+        return store().getMenuItemById(id);
     }
     
     public MenuItem createMenuItem(MenuItem item) {
-        if (item.getId() == null || item.getId().isEmpty()) {
-            item.setId(generateId());
-        }
-        // Check for duplicate product code
-        boolean duplicate = menuItems.values().stream()
-                .anyMatch(existing -> existing.getProductCode().equals(item.getProductCode()));
-        if (duplicate) {
-            return null;
-        }
-        menuItems.put(item.getId(), item);
-        return item;
+        return store().createMenuItem(item);
     }
     
     public MenuItem updateMenuItem(String id, MenuItem item) {
-        if (menuItems.containsKey(id)) {
-            // Check for duplicate product code (excluding current item)
-            boolean duplicate = menuItems.values().stream()
-                    .filter(existing -> !existing.getId().equals(id))
-                    .anyMatch(existing -> existing.getProductCode().equals(item.getProductCode()));
-            if (duplicate) {
-                return null;
-            }
-            item.setId(id);
-            menuItems.put(id, item);
-            return item;
-        }
-        return null;
+        return store().updateMenuItem(id, item);
     }
     
     public boolean deleteMenuItem(String id) {
-        return menuItems.remove(id) != null;
+        return store().deleteMenuItem(id);
+    }
+    
+    public List<MenuItem> searchMenuItems(String query, int limit) {
+        return store().searchMenuItems(query, limit);
+    }
+    
+    public PriceTable getPriceTable() {
+        return store().getPriceTable();
     }
     
     // Category operations
+    public List<Integer> importCatalog(List<Category> categories, List<Department> departments, List<MenuItem> items) {
+        return store().importCatalog(categories, departments, items);
+    }
+    
     public List<Category> getAllCategories() {
-        return new ArrayList<>(categories.values());
+        return store().getAllCategories();
     }
     
     public Category createCategory(Category category) {
-        if (category.getId() == null || category.getId().isEmpty()) {
-            category.setId(generateId());
-        }
-        categories.put(category.getId(), category);
-        return category;
+        return store().createCategory(category);
     }
     
     public boolean deleteCategory(String id) {
-        return categories.remove(id) != null;
+        return store().deleteCategory(id);
     }
     
     // Department operations
     public List<Department> getAllDepartments() {
-        return new ArrayList<>(departments.values());
+        return store().getAllDepartments();
     }
     
     public Department createDepartment(Department department) {
-        if (department.getId() == null || department.getId().isEmpty()) {
-            department.setId(generateId());
-        }
-        departments.put(department.getId(), department);
-        return department;
+        return store().createDepartment(department);
     }
     
     public boolean deleteDepartment(String id) {
-        return departments.remove(id) != null;
+        return store().deleteDepartment(id);
+    }
+    
+    // Takeaway operations
+    public TakeawayOrder placeTakeawayOrder(String customerName, List<OrderItem> items) {
+        return store().placeTakeawayOrder(customerName, items);
+    }
+    
+    public TakeawayOrder advanceTakeawayOrder(String id, String status) {
+        return store().advanceTakeawayOrder(id, status);
+    }
+    
+    public TakeawayOrder getTakeawayOrder(String id) {
+        return store().getTakeawayOrder(id);
+    }
+    
+    public List<TakeawayOrder> getActiveTakeawayOrders(String status) {
+        return store().getActiveTakeawayOrders(status);
+    }
+    
+    public List<TakeawayOrder> getTakeawayHistory(int limit) {
+        return store().getTakeawayHistory(limit);
+    }
+    
+    public Map<String, Object> getTakeawayStats() {
+        return store().getTakeawayStats();
     }
     
     // Settings operations
     public RestaurantSettings getRestaurantSettings() {
-        return restaurantSettings;
+        return store().getRestaurantSettings();
     }
     
     public void updateRestaurantSettings(RestaurantSettings settings) {
-        if (settings.getRestaurantName() != null) {
-            this.restaurantSettings.setRestaurantName(settings.getRestaurantName());
-        }
-        if (settings.getAddress() != null) {
-            this.restaurantSettings.setAddress(settings.getAddress());
-        }
-        if (settings.getPhone() != null) {
-            this.restaurantSettings.setPhone(settings.getPhone());
-        }
-        if (settings.getEmail() != null) {
-            this.restaurantSettings.setEmail(settings.getEmail());
-        }
-        if (settings.getCurrency() != null) {
-            this.restaurantSettings.setCurrency(settings.getCurrency());
-        }
-        this.restaurantSettings.setTaxRate(settings.getTaxRate());
+        store().updateRestaurantSettings(settings);
     }
     
     // Config operations
     public KOTConfig getKOTConfig() {
-        return kotConfig;
+        return store().getKOTConfig();
     }
     
     public void updateKOTConfig(KOTConfig config) {
-        this.kotConfig = config;
+        store().updateKOTConfig(config);
     }
     
     public BillConfig getBillConfig() {
-        return billConfig;
+        return store().getBillConfig();
     }
     
     public void updateBillConfig(BillConfig config) {
-        this.billConfig = config;
+        store().updateBillConfig(config);
     }
     
     // KOT Counter operations
     public int getNextKOTNumber() {
-        LocalDate today = LocalDate.now();
-        
-        if (kotCounter.getLastResetDate().isBefore(today)) {
-            // Reset counter for new day
-            kotCounter.setCurrentNumber(1);
-            kotCounter.setLastResetDate(today);
-        } else {
-            kotCounter.setCurrentNumber(kotCounter.getCurrentNumber() + 1);
-        }
-        
-        return kotCounter.getCurrentNumber();
+        return store().getNextKOTNumber();
     }
     
-    // Utility method to generate unique IDs
-    private String generateId() {
-        return String.valueOf(System.currentTimeMillis());
+    public String nextId() {
+        return store().nextId();
     }
 }
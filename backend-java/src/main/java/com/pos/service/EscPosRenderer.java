@@ -0,0 +1,163 @@
+package com.pos.service;
+
+import com.pos.model.*;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Renders KOTs and bills as ESC/POS byte streams for thermal printers
+@Component
+public class EscPosRenderer {
+    
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final Charset CHARSET = StandardCharsets.ISO_8859_1;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    
+    public byte[] renderKot(List<KotTicket> tickets, KOTConfig config) {
+        Document doc = new Document(columnsFor(config.getPaperSize()));
+        boolean compact = "compact".equals(config.getFormatType());
+        KotTicket first = tickets.get(0);
+        
+        doc.center().bold(true).doubleSize(true).line("KOT #" + first.getKotNumber()).doubleSize(false).bold(false);
+        doc.line(first.getTableName() != null ? first.getTableName() : "Takeaway");
+        doc.line(formatTime(first.getCreatedAt()));
+        doc.left().rule();
+        for (KotTicket ticket : tickets) {
+            if (!compact) {
+                doc.bold(true).line("[" + ticket.getDepartment() + "]").bold(false);
+            }
+            for (OrderItem item : ticket.getItems()) {
+                doc.columns(item.getQuantity() + " x " + item.getName(), "");
+            }
+            doc.rule();
+        }
+        return doc.feedAndCut();
+    }
+    
+    public byte[] renderBill(Invoice invoice, RestaurantSettings settings, BillConfig config) {
+        Document doc = new Document(columnsFor(config.getPaperSize()));
+        boolean detailed = "detailed".equals(config.getFormatType());
+        boolean compact = "compact".equals(config.getFormatType());
+        String currency = settings.getCurrency() != null ? settings.getCurrency() + " " : "";
+        
+        doc.center().bold(true).doubleSize(true).line(settings.getRestaurantName()).doubleSize(false).bold(false);
+        if (!compact) {
+            if (settings.getAddress() != null) {
+                doc.line(settings.getAddress());
+            }
+            if (settings.getPhone() != null) {
+                doc.line("Tel: " + settings.getPhone());
+            }
+        }
+        doc.left().rule();
+        if (invoice.getBillNumber() != null) {
+            doc.line("Bill: " + invoice.getBillNumber());
+        }
+        doc.line(("takeaway".equals(invoice.getOrderType()) ? "Takeaway" : "Dine-in")
+                + (invoice.getTableName() != null ? " - " + invoice.getTableName() : ""));
+        doc.line(formatTime(invoice.getTimestamp()));
+        doc.rule();
+        
+        if (invoice.getItems() != null) {
+            for (OrderItem item : invoice.getItems()) {
+                double lineTotal = item.getPrice() * item.getQuantity();
+                if (detailed) {
+                    doc.line(item.getName());
+                    doc.columns("  " + item.getQuantity() + " x " + money(item.getPrice()), money(lineTotal));
+                } else {
+                    doc.columns(item.getQuantity() + " x " + item.getName(), money(lineTotal));
+                }
+            }
+        }
+        doc.rule();
+        doc.columns("Subtotal", currency + money(invoice.getSubtotal()));
+        doc.columns("Tax (" + settings.getTaxRate() + "%)", currency + money(invoice.getTax()));
+        doc.bold(true).columns("TOTAL", currency + money(invoice.getTotal())).bold(false);
+        doc.rule();
+        doc.center().line("Thank you!");
+        return doc.feedAndCut();
+    }
+    
+    private static int columnsFor(String paperSize) {
+        if ("58mm".equals(paperSize)) {
+            return 32;
+        }
+        if ("112mm".equals(paperSize)) {
+            return 64;
+        }
+        return 48;
+    }
+    
+    private static String money(double amount) {
+        return String.format("%.2f", amount);
+    }
+    
+    private static String formatTime(LocalDateTime time) {
+        return (time != null ? time : LocalDateTime.now()).format(TIME_FORMAT);
+    }
+    
+    private static final class Document {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        private final int width;
+        
+        Document(int width) {
+            this.width = width;
+            command(ESC, '@');
+        }
+        
+        Document center() {
+            return command(ESC, 'a', 1);
+        }
+        
+        Document left() {
+            return command(ESC, 'a', 0);
+        }
+        
+        Document bold(boolean on) {
+            return command(ESC, 'E', on ? 1 : 0);
+        }
+        
+        Document doubleSize(boolean on) {
+            return command(GS, '!', on ? 0x11 : 0x00);
+        }
+        
+        Document line(String text) {
+            out.writeBytes((text != null ? text : "").getBytes(CHARSET));
+            out.write('\n');
+            return this;
+        }
+        
+        Document rule() {
+            return line("-".repeat(width));
+        }
+        
+        // Left text and right-aligned value on one line; long text wraps onto its own line
+        Document columns(String left, String right) {
+            int space = width - left.length() - right.length();
+            if (space < 1) {
+                line(left);
+                return line(" ".repeat(Math.max(0, width - right.length())) + right);
+            }
+            return line(left + " ".repeat(space) + right);
+        }
+        
+        byte[] feedAndCut() {
+            command(ESC, 'd', 4);
+            command(GS, 'V', 66, 0);
+            return out.toByteArray();
+        }
+        
+        private Document command(int... bytes) {
+            for (int b : bytes) {
+                out.write(b);
+            }
+            return this;
+        }
+    }
+}
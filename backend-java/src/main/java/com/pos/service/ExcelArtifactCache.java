@@ -0,0 +1,109 @@
+package com.pos.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generated Excel files kept in memory, one per key (the template, or an outlet's
+ * export) together with the catalog version it was built from. A request for a newer
+ * version rebuilds the file once, however many downloads arrive at the same time;
+ * the least recently used files are dropped when the total size exceeds the limit.
+ * Cached arrays are shared and must not be modified.
+ */
+@Service
+public class ExcelArtifactCache {
+
+    @Value("${pos.excel.cache-max-bytes:33554432}")
+    private long maxBytes;
+
+    // Access ordered, so iteration starts at the least recently used file; guarded by this
+    private final LinkedHashMap<String, Artifact> artifacts = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Map<String, Object> buildLocks = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public interface Builder {
+        byte[] build() throws IOException;
+    }
+
+    public byte[] get(String key, long version, Builder builder) throws IOException {
+        byte[] cached = lookup(key, version);
+        if (cached == null) {
+            synchronized (buildLocks.computeIfAbsent(key, k -> new Object())) {
+                cached = lookup(key, version);
+                if (cached == null) {
+                    builds.incrementAndGet();
+                    byte[] data = builder.build();
+                    store(key, version, data);
+                    return data;
+                }
+            }
+        }
+        hits.incrementAndGet();
+        return cached;
+    }
+
+    private synchronized byte[] lookup(String key, long version) {
+        Artifact artifact = artifacts.get(key);
+        return artifact != null && artifact.version == version ? artifact.data : null;
+    }
+
+    private synchronized void store(String key, long version, byte[] data) {
+        Artifact existing = artifacts.get(key);
+        if (existing != null && existing.version > version) {
+            // Built from an older snapshot than the one already cached
+            return;
+        }
+        if (existing != null) {
+            artifacts.remove(key);
+            totalBytes -= existing.data.length;
+        }
+        if (data.length > maxBytes) {
+            return;
+        }
+        artifacts.put(key, new Artifact(version, data));
+        totalBytes += data.length;
+        Iterator<Artifact> eldest = artifacts.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().data.length;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized void removeByPrefix(String prefix) {
+        Iterator<Map.Entry<String, Artifact>> entries = artifacts.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Artifact> entry = entries.next();
+            if (entry.getKey().startsWith(prefix)) {
+                totalBytes -= entry.getValue().data.length;
+                entries.remove();
+            }
+        }
+        buildLocks.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", artifacts.size());
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hits.get());
+        stats.put("builds", builds.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private record Artifact(long version, byte[] data) {
+    }
+}
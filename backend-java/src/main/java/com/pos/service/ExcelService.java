@@ -11,15 +11,74 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 @Service
 public class ExcelService {
     
+    private static final String TEMPLATE_KEY = "template";
+    
     @Autowired
     private DataStorageService dataStorage;
     
+    @Autowired
+    private ExcelArtifactCache artifactCache;
+    
+    // The template never changes, so it is built once and served from the cache
     public byte[] generateTemplate() throws IOException {
+        PosEvents.Excel event = new PosEvents.Excel();
+        event.begin();
+        byte[] data = artifactCache.get(TEMPLATE_KEY, 0, this::buildTemplate);
+        commit(event, "template", 1, data.length);
+        return data;
+    }
+    
+    // Rebuilt only when the outlet's menu, categories or departments have changed since the last export
+    public byte[] exportMenuData() throws IOException {
+        // All three sheets come from one catalog snapshot so they agree with each other
+        OutletStore store = dataStorage.forOutlet(OutletContext.current());
+        CatalogSnapshot catalog = store.getCatalog();
+        PosEvents.Excel event = new PosEvents.Excel();
+        event.begin();
+        byte[] data = artifactCache.get(exportKey(store), catalog.getMenuVersion(), () -> buildExport(catalog));
+        commit(event, "export", catalog.getMenuItems().size(), data.length);
+        return data;
+    }
+    
+    // Downloads emit "template"/"export"; cache misses also emit the "-build" event inside them
+    private static void commit(PosEvents.Excel event, String operation, int rows, long bytes) {
+        if (event.shouldCommit()) {
+            event.outletId = OutletContext.current();
+            event.operation = operation;
+            event.itemCount = rows;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+    
+    // Keyed by store instance too: a store that replaced the outlet's previous one counts
+    // its versions from the start again. The replaced store's export ages out of the cache
+    private static String exportKey(OutletStore store) {
+        return exportPrefix(store.getOutletId()) + store.getInstanceId();
+    }
+    
+    private static String exportPrefix(String outletId) {
+        return "export|" + outletId + "|";
+    }
+    
+    // Drops the cached exports of an outlet that no longer exists
+    public void discardExport(String outletId) {
+        artifactCache.removeByPrefix(exportPrefix(outletId));
+    }
+    
+    public Map<String, Object> getCacheStats() {
+        return artifactCache.getStats();
+    }
+    
+    private byte[] buildTemplate() throws IOException {
+        PosEvents.Excel event = new PosEvents.Excel();
+        event.begin();
         try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             
             // Create Categories sheet
@@ -52,17 +111,20 @@ public class ExcelService {
             }
             
             workbook.write(out);
-            return out.toByteArray();
+            byte[] data = out.toByteArray();
+            commit(event, "template-build", 1, data.length);
+            return data;
         }
     }
     
-    public byte[] exportMenuData() throws IOException {
+    private byte[] buildExport(CatalogSnapshot catalog) throws IOException {
+        PosEvents.Excel event = new PosEvents.Excel();
+        event.begin();
         try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            
             // Export Categories
             Sheet categoriesSheet = workbook.createSheet("Categories");
             createHeader(categoriesSheet, new String[]{"Category Name"});
-            List<Category> categories = dataStorage.getAllCategories();
+            List<Category> categories = catalog.getCategories().list();
             for (int i = 0; i < categories.size(); i++) {
                 Row row = categoriesSheet.createRow(i + 1);
                 row.createCell(0).setCellValue(categories.get(i).getName());
@@ -72,7 +134,7 @@ public class ExcelService {
             // Export Departments
             Sheet departmentsSheet = workbook.createSheet("Departments");
             createHeader(departmentsSheet, new String[]{"Department Name"});
-            List<Department> departments = dataStorage.getAllDepartments();
+            List<Department> departments = catalog.getDepartments().list();
             for (int i = 0; i < departments.size(); i++) {
                 Row row = departmentsSheet.createRow(i + 1);
                 row.createCell(0).setCellValue(departments.get(i).getName());
@@ -82,7 +144,7 @@ public class ExcelService {
             // Export Menu Items
             Sheet itemsSheet = workbook.createSheet("Menu Items");
             createHeader(itemsSheet, new String[]{"Product Code", "Item Name", "Price", "Category", "Department", "Description"});
-            List<MenuItem> items = dataStorage.getAllMenuItems();
+            List<MenuItem> items = catalog.getMenuItems().list();
             for (int i = 0; i < items.size(); i++) {
                 Row row = itemsSheet.createRow(i + 1);
                 MenuItem item = items.get(i);
@@ -99,18 +161,27 @@ public class ExcelService {
             }
             
             workbook.write(out);
-            return out.toByteArray();
+            byte[] data = out.toByteArray();
+            commit(event, "export-build", items.size(), data.length);
+            return data;
         }
     }
     
     public Map<String, Object> importMenuData(MultipartFile file) throws IOException {
+        return importMenuData(file.getInputStream(), file.getSize());
+    }
+    
+    public Map<String, Object> importMenuData(InputStream input, long size) throws IOException {
+        PosEvents.Excel event = new PosEvents.Excel();
+        event.begin();
         Map<String, Object> result = new HashMap<>();
         List<String> errors = new ArrayList<>();
-        int categoriesAdded = 0;
-        int departmentsAdded = 0;
-        int itemsAdded = 0;
+        List<Category> categories = new ArrayList<>();
+        List<Department> departments = new ArrayList<>();
+        List<MenuItem> items = new ArrayList<>();
+        List<Integer> itemRows = new ArrayList<>();
         
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
+        try (Workbook workbook = WorkbookFactory.create(input)) {
             
             // Import Categories
             Sheet categoriesSheet = workbook.getSheet("Categories");
@@ -120,10 +191,7 @@ public class ExcelService {
                     if (row != null && row.getCell(0) != null) {
                         String name = row.getCell(0).getStringCellValue();
                         if (!name.startsWith("Example:") && !name.trim().isEmpty()) {
-                            Category category = new Category(null, name.trim());
-                            if (dataStorage.createCategory(category) != null) {
-                                categoriesAdded++;
-                            }
+                            categories.add(new Category(null, name.trim()));
                         }
                     }
                 }
@@ -137,10 +205,7 @@ public class ExcelService {
                     if (row != null && row.getCell(0) != null) {
                         String name = row.getCell(0).getStringCellValue();
                         if (!name.startsWith("Example:") && !name.trim().isEmpty()) {
-                            Department department = new Department(null, name.trim());
-                            if (dataStorage.createDepartment(department) != null) {
-                                departmentsAdded++;
-                            }
+                            departments.add(new Department(null, name.trim()));
                         }
                     }
                 }
@@ -163,12 +228,8 @@ public class ExcelService {
                             String department = getCellValue(row.getCell(4));
                             String description = getCellValue(row.getCell(5));
                             
-                            MenuItem item = new MenuItem(null, name, productCode, price, category, department, description);
-                            if (dataStorage.createMenuItem(item) != null) {
-                                itemsAdded++;
-                            } else {
-                                errors.add("Row " + (i + 1) + ": Product code '" + productCode + "' already exists");
-                            }
+                            items.add(new MenuItem(null, name, productCode, price, category, department, description));
+                            itemRows.add(i + 1);
                         } catch (Exception e) {
                             errors.add("Row " + (i + 1) + ": " + e.getMessage());
                         }
@@ -177,6 +238,16 @@ public class ExcelService {
             }
         }
         
+        // The whole workbook is published as one catalog change
+        List<Integer> rejected = dataStorage.importCatalog(categories, departments, items);
+        for (int index : rejected) {
+            errors.add("Row " + itemRows.get(index) + ": Product code '" + items.get(index).getProductCode() + "' already exists");
+        }
+        int categoriesAdded = categories.size();
+        int departmentsAdded = departments.size();
+        int itemsAdded = items.size() - rejected.size();
+        commit(event, "import", categoriesAdded + departmentsAdded + itemsAdded, size);
+        
         Map<String, Object> stats = new HashMap<>();
         stats.put("categories_added", categoriesAdded);
         stats.put("departments_added", departmentsAdded);
@@ -0,0 +1,46 @@
+package com.pos.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writes each spooled batch as a raw ESC/POS file under one directory per outlet and printer
+@Component
+@ConditionalOnProperty(name = "pos.print.sink", havingValue = "file", matchIfMissing = true)
+public class FilePrintSink implements PrintSink {
+    
+    private final Path directory;
+    private final AtomicLong sequence = new AtomicLong();
+    
+    public FilePrintSink(@Value("${pos.print.dir:print-spool}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+    
+    // Written to a temporary file and moved into place, so a failed batch leaves no file and is retried whole
+    @Override
+    public void write(String outletId, String printer, List<byte[]> jobs) throws IOException {
+        Path printerDir = directory.resolve(safeName(outletId)).resolve(safeName(printer));
+        Files.createDirectories(printerDir);
+        String name = System.currentTimeMillis() + "-" + sequence.incrementAndGet() + ".bin";
+        Path temp = printerDir.resolve(name + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            for (byte[] job : jobs) {
+                out.write(job);
+            }
+        }
+        Files.move(temp, printerDir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static String safeName(String name) {
+        return name.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+}
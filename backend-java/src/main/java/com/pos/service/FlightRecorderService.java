@@ -0,0 +1,192 @@
+package com.pos.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Controls JDK Flight Recorder from the admin API. A recording captures the POS events
+ * (see {@link PosEvents}) together with a JDK settings profile and is written to disk
+ * when stopped; a running recording can be dumped at any time. The live stream instead
+ * keeps per-event counts and durations in memory, including GC pauses and contended
+ * locks, for a quick look without downloading anything.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // JDK events that explain pauses the POS events alone would not
+    private static final Map<String, Duration> LIVE_JDK_EVENTS = Map.of(
+            "jdk.GarbageCollection", Duration.ZERO,
+            "jdk.JavaMonitorEnter", Duration.ofMillis(10),
+            "jdk.ThreadPark", Duration.ofMillis(10));
+
+    @Value("${pos.jfr.dir:jfr-recordings}")
+    private String directory;
+
+    private Recording recording;
+    private Path lastFile;
+    private RecordingStream liveStream;
+    private Instant liveSince;
+    private final Map<String, EventStats> liveStats = new TreeMap<>();
+
+    /** Starts a recording with the "default" or "profile" JDK settings; false if one is running. */
+    public synchronized boolean start(String settings, Duration maxAge) throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return false;
+        }
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        for (String event : PosEvents.ALL) {
+            started.enable(event).withThreshold(Duration.ZERO);
+        }
+        started.setName("pos-" + settings);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.start();
+        recording = started;
+        return true;
+    }
+
+    /** Stops the running recording and writes it to a file; null if none is running. */
+    public synchronized Path stop() throws IOException {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return null;
+        }
+        Path file = newFile("pos-");
+        recording.stop();
+        recording.dump(file);
+        recording.close();
+        recording = null;
+        lastFile = file;
+        return file;
+    }
+
+    /**
+     * A file with the recorded data: a fresh dump of the running recording, or the
+     * file written when the last recording stopped. Null if there is neither.
+     */
+    public synchronized Path snapshot() throws IOException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            Path file = Paths.get(directory).resolve("snapshot.jfr");
+            Files.createDirectories(file.getParent());
+            recording.dump(file);
+            return file;
+        }
+        return lastFile;
+    }
+
+    public synchronized boolean startLive() {
+        if (liveStream != null) {
+            return false;
+        }
+        RecordingStream stream = new RecordingStream();
+        // Handlers are per event name, since a concurrent recording shows its events here too
+        for (String event : PosEvents.ALL) {
+            stream.enable(event).withThreshold(Duration.ZERO);
+            stream.onEvent(event, this::record);
+        }
+        LIVE_JDK_EVENTS.forEach((event, threshold) -> {
+            stream.enable(event).withThreshold(threshold);
+            stream.onEvent(event, this::record);
+        });
+        stream.setMaxAge(Duration.ofMinutes(1));
+        liveStats.clear();
+        liveSince = Instant.now();
+        stream.startAsync();
+        liveStream = stream;
+        return true;
+    }
+
+    public synchronized boolean stopLive() {
+        if (liveStream == null) {
+            return false;
+        }
+        liveStream.close();
+        liveStream = null;
+        return true;
+    }
+
+    private synchronized void record(RecordedEvent event) {
+        liveStats.computeIfAbsent(event.getEventType().getName(), name -> new EventStats())
+                .add(event.getDuration().toNanos());
+    }
+
+    /** Count, total, mean and max duration per event type since the live stream started. */
+    public synchronized Map<String, Object> getLiveSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("running", liveStream != null);
+        summary.put("since", liveSince);
+        Map<String, Object> events = new LinkedHashMap<>();
+        liveStats.forEach((name, stats) -> events.put(name, stats.toMap()));
+        summary.put("events", events);
+        return summary;
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        boolean running = recording != null && recording.getState() == RecordingState.RUNNING;
+        status.put("recording", running);
+        if (running) {
+            status.put("name", recording.getName());
+            status.put("startedAt", recording.getStartTime());
+            status.put("maxAge", recording.getMaxAge() != null ? recording.getMaxAge().toString() : null);
+        }
+        status.put("lastFile", lastFile != null ? lastFile.toAbsolutePath().toString() : null);
+        status.put("liveStream", liveStream != null);
+        return status;
+    }
+
+    private Path newFile(String prefix) throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        return dir.resolve(prefix + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        stopLive();
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private static final class EventStats {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        void add(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("totalMs", Math.round(totalNanos / 1e4) / 100.0);
+            map.put("meanMs", count > 0 ? Math.round(totalNanos / 1e4 / count) / 100.0 : 0.0);
+            map.put("maxMs", Math.round(maxNanos / 1e4) / 100.0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers responses of mutating requests by Idempotency-Key so client retries are
+ * answered from memory instead of running the mutation again. A request is matched to
+ * its key by a SHA-256 of its serialized body. Concurrent duplicates wait a bounded time
+ * for the first request's response and get 409 if it is still running. Entries expire
+ * after a TTL and the oldest entries are evicted once the cache is full, but never while
+ * their request is still running: that would let a duplicate run the mutation again.
+ */
+@Service
+public class IdempotencyCache {
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    
+    @Value("${pos.idempotency.ttl-seconds:600}")
+    private long ttlSeconds;
+    
+    @Value("${pos.idempotency.max-entries:10000}")
+    private int maxEntries;
+    
+    @Value("${pos.idempotency.wait-ms:5000}")
+    private long waitMillis;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * Runs the action once per (scope, key). A retry with the same key gets the stored
+     * response; reusing a key for a different request body is rejected with 422, and a
+     * duplicate that arrives while the first request is still running gets 409 once the
+     * wait runs out.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object requestBody, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String cacheKey = OutletContext.current() + "|" + scope + "|" + key;
+        byte[] fingerprint = fingerprint(requestBody);
+        long now = System.currentTimeMillis();
+        
+        Entry fresh = new Entry(fingerprint, now + ttlSeconds * 1000);
+        Entry existing = entries.putIfAbsent(cacheKey, fresh);
+        while (existing != null && existing.expiresAt <= now && existing.response.isDone()) {
+            if (entries.replace(cacheKey, existing, fresh)) {
+                existing = null;
+            } else {
+                existing = entries.putIfAbsent(cacheKey, fresh);
+            }
+        }
+        if (existing != null) {
+            return replay(existing, fingerprint);
+        }
+        
+        insertionOrder.add(cacheKey);
+        evict(now);
+        try {
+            ResponseEntity<?> response = action.get();
+            fresh.response.complete(response);
+            if (response.getStatusCode().is5xxServerError()) {
+                // Let the client retry a failed mutation for real
+                entries.remove(cacheKey, fresh);
+            }
+            return response;
+        } catch (RuntimeException e) {
+            entries.remove(cacheKey, fresh);
+            fresh.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    private byte[] fingerprint(Object requestBody) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest(requestBody != null ? objectMapper.writeValueAsBytes(requestBody) : new byte[0]);
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request body", e);
+        }
+    }
+    
+    private ResponseEntity<?> replay(Entry entry, byte[] fingerprint) {
+        if (!MessageDigest.isEqual(entry.fingerprint, fingerprint)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", "Idempotency-Key was already used for a different request"));
+        }
+        ResponseEntity<?> original;
+        try {
+            original = entry.response.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).header("Retry-After", "1")
+                    .body(Map.of("error", "A request with this Idempotency-Key is still in progress"));
+        } catch (ExecutionException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "The original request with this Idempotency-Key failed; retry with a new key"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Interrupted"));
+        }
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+    
+    // Keys are queued in insertion order, so expired and overflow entries are always at the head.
+    // A request still running at the head stops eviction until it completes; the cache can
+    // overshoot by at most the number of requests in flight.
+    private void evict(long now) {
+        String oldest;
+        while ((oldest = insertionOrder.peek()) != null) {
+            Entry entry = entries.get(oldest);
+            boolean stale = entry == null || entry.expiresAt <= now;
+            if (!stale && entries.size() <= maxEntries) {
+                return;
+            }
+            if (entry != null && !entry.response.isDone()) {
+                return;
+            }
+            String polled = insertionOrder.poll();
+            if (polled != null) {
+                Entry polledEntry = entries.get(polled);
+                if (polledEntry != null && polledEntry.response.isDone()
+                        && (polledEntry.expiresAt <= now || entries.size() > maxEntries)) {
+                    entries.remove(polled, polledEntry);
+                }
+            }
+        }
+    }
+    
+    private static final class Entry {
+        private final byte[] fingerprint;
+        private final long expiresAt;
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+        
+        Entry(byte[] fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.pos.service;
+
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Filter index over an outlet's invoices. Every invoice gets an ordinal in arrival
+ * order, and compressed bitmaps of ordinals are kept per order type, table name, day
+ * and contained item id. A filter intersects the bitmaps it needs (a date range is the
+ * union of its days) and fetches only the requested page, newest first.
+ */
+public class InvoiceIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Invoice> byOrdinal = new ArrayList<>();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private final CompressedBitmap all = new CompressedBitmap();
+    private final Map<String, CompressedBitmap> byOrderType = new HashMap<>();
+    private final Map<String, CompressedBitmap> byTableName = new HashMap<>();
+    private final TreeMap<LocalDate, CompressedBitmap> byDay = new TreeMap<>();
+    private final Map<String, CompressedBitmap> byItemId = new HashMap<>();
+
+    /** Indexes an invoice; an invoice with a known id replaces the earlier one in place. */
+    public void add(Invoice invoice) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.get(invoice.getId());
+            if (ordinal != null) {
+                update(byOrdinal.get(ordinal), ordinal, false);
+                byOrdinal.set(ordinal, invoice);
+            } else {
+                ordinal = byOrdinal.size();
+                byOrdinal.add(invoice);
+                ordinalsById.put(invoice.getId(), ordinal);
+                all.add(ordinal);
+            }
+            update(invoice, ordinal, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void update(Invoice invoice, int ordinal, boolean add) {
+        mark(byOrderType, invoice.getOrderType(), ordinal, add);
+        mark(byTableName, invoice.getTableName(), ordinal, add);
+        if (invoice.getTimestamp() != null) {
+            mark(byDay, invoice.getTimestamp().toLocalDate(), ordinal, add);
+        }
+        if (invoice.getItems() != null) {
+            Set<String> itemIds = new HashSet<>();
+            for (OrderItem item : invoice.getItems()) {
+                if (item.getId() != null && itemIds.add(item.getId())) {
+                    mark(byItemId, item.getId(), ordinal, add);
+                }
+            }
+        }
+    }
+
+    private static <K> void mark(Map<K, CompressedBitmap> index, K key, int ordinal, boolean add) {
+        if (key == null) {
+            return;
+        }
+        if (add) {
+            index.computeIfAbsent(key, k -> new CompressedBitmap()).add(ordinal);
+        } else {
+            CompressedBitmap bitmap = index.get(key);
+            if (bitmap != null) {
+                bitmap.remove(ordinal);
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byOrdinal.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Matches invoices against every given criterion; null criteria are ignored and
+     * from/to are inclusive days. The result holds the total match count and a way
+     * to fetch one page of matches, newest first.
+     */
+    public Result filter(String orderType, String tableName, LocalDate from, LocalDate to, String itemId) {
+        lock.readLock().lock();
+        try {
+            List<CompressedBitmap> criteria = new ArrayList<>();
+            if (orderType != null) {
+                criteria.add(byOrderType.getOrDefault(orderType, new CompressedBitmap()));
+            }
+            if (tableName != null) {
+                criteria.add(byTableName.getOrDefault(tableName, new CompressedBitmap()));
+            }
+            if (itemId != null) {
+                criteria.add(byItemId.getOrDefault(itemId, new CompressedBitmap()));
+            }
+            if (from != null || to != null) {
+                LocalDate first = from != null ? from : LocalDate.MIN;
+                LocalDate last = to != null ? to : LocalDate.MAX;
+                criteria.add(first.isAfter(last)
+                        ? new CompressedBitmap()
+                        : CompressedBitmap.or(new ArrayList<>(byDay.subMap(first, true, last, true).values())));
+            }
+
+            CompressedBitmap matches;
+            if (criteria.isEmpty()) {
+                matches = CompressedBitmap.or(List.of(all));
+            } else {
+                // Smallest first, so every intersection is at most as large as the rarest criterion
+                criteria.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+                matches = criteria.get(0);
+                for (int i = 1; i < criteria.size() && matches.cardinality() > 0; i++) {
+                    matches = CompressedBitmap.and(matches, criteria.get(i));
+                }
+                if (criteria.size() == 1) {
+                    matches = CompressedBitmap.or(List.of(matches));
+                }
+            }
+            return new Result(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Matching ordinals, detached from the index so pages can be fetched later. */
+    public final class Result {
+        private final CompressedBitmap matches;
+        private final int total;
+
+        private Result(CompressedBitmap matches) {
+            this.matches = matches;
+            this.total = matches.cardinality();
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Invoice> page(int from, int to) {
+            int[] ordinals = matches.descending(from, to - from);
+            List<Invoice> page = new ArrayList<>(ordinals.length);
+            lock.readLock().lock();
+            try {
+                for (int ordinal : ordinals) {
+                    page.add(byOrdinal.get(ordinal));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return page;
+        }
+    }
+}
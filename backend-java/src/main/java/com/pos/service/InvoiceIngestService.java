@@ -0,0 +1,369 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous ingestion for POST /api/invoices, enabled with pos.invoice.ingest.async.
+ * The request thread validates and prices the invoice, gives it an id and a sequence
+ * number, journals it and returns once the journal entry is on disk. A single writer
+ * thread then applies accepted invoices in sequence order and in batches to the outlet
+ * store, which updates the invoice index, sales sketches and replication stream, and
+ * prints the bill when auto-print is on.
+ *
+ * An invoice is only queued once its journal entry is on disk, so a request that fails
+ * leaves nothing behind for the writer and can safely be retried. The journal keeps one
+ * segment per day, deleted when the day has been closed into the daily summaries.
+ *
+ * The queue is bounded: when it is full, accepting waits briefly and then gives up so
+ * the terminal can retry. Reads that must see an invoice wait until its sequence number
+ * has been applied, either the one a client names or the last one its terminal created.
+ */
+@Service
+public class InvoiceIngestService {
+
+    public static final String SEQUENCE_HEADER = "X-Invoice-Sequence";
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceIngestService.class);
+
+    @Autowired
+    private DataStorageService dataStorage;
+
+    @Autowired
+    private BillingService billingService;
+
+    @Autowired
+    private PrintSpooler printSpooler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${pos.invoice.ingest.async:false}")
+    private boolean enabled;
+
+    @Value("${pos.invoice.ingest.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${pos.invoice.ingest.batch-size:256}")
+    private int batchSize;
+
+    @Value("${pos.invoice.ingest.offer-timeout-ms:250}")
+    private long offerTimeoutMillis;
+
+    @Value("${pos.invoice.ingest.read-wait-ms:2000}")
+    private long readWaitMillis;
+
+    // Empty to run without a journal; sequence numbers then only survive in memory
+    @Value("${pos.invoice.ingest.journal-dir:invoice-journal}")
+    private String journalDir;
+
+    private BlockingQueue<Accepted> queue;
+    private Semaphore capacity;
+    private InvoiceJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+
+    // Sequence numbers are assigned and journaled in one order under acceptLock
+    private final Object acceptLock = new Object();
+    private long lastSequence;
+
+    // Synced entries wait here so they reach the queue in sequence order
+    private final Object releaseLock = new Object();
+    private final NavigableMap<Long, Accepted> released = new TreeMap<>();
+    private long nextToQueue;
+
+    private final Object appliedLock = new Object();
+    private volatile long appliedSequence;
+    private final Map<String, Long> pendingByTerminal = new ConcurrentHashMap<>();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    /** Result of accepting an invoice; the invoice is null when it was refused. */
+    public record Acceptance(Invoice invoice, long sequence, String error) {
+    }
+
+    private record Accepted(long sequence, String outletId, Invoice invoice) {
+    }
+
+    // Stands in for an entry whose journal sync failed
+    private static final Accepted ABANDONED = new Accepted(0, null, null);
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        capacity = new Semaphore(queueCapacity);
+        nextToQueue = 1;
+        if (!journalDir.isBlank()) {
+            Path directory = Paths.get(journalDir);
+            // Invoices acknowledged before a restart are applied again before new ones arrive
+            lastSequence = InvoiceJournal.replay(directory, objectMapper, (sequence, outletId, invoice) -> {
+                dataStorage.forOutlet(outletId).createInvoice(invoice);
+                replayed.incrementAndGet();
+            });
+            appliedSequence = lastSequence;
+            nextToQueue = lastSequence + 1;
+            journal = new InvoiceJournal(directory, objectMapper, lastSequence);
+            if (replayed.get() > 0) {
+                log.info("Replayed {} journaled invoices up to sequence {}", replayed.get(), lastSequence);
+            }
+        }
+        running = true;
+        writer = new Thread(this::drain, "invoice-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writer.join(5000);
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Validates, prices and queues an invoice for the current outlet. Returns once it is
+     * journaled (and on disk), before it is visible to reads. When the journal cannot be
+     * written or synced the invoice is dropped and the IOException reaches the caller.
+     */
+    public Acceptance accept(Invoice invoice, String terminalId) throws IOException, InterruptedException {
+        String error = validate(invoice);
+        if (error != null) {
+            return new Acceptance(null, 0, error);
+        }
+        Invoice priced = billingService.priceInvoice(invoice);
+        // From the outlet's own id sequence, so it never collides with invoices stored directly
+        priced.setId(dataStorage.nextId());
+
+        if (!capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            rejected.incrementAndGet();
+            return new Acceptance(null, 0, null);
+        }
+        long sequence;
+        synchronized (acceptLock) {
+            sequence = ++lastSequence;
+            try {
+                if (journal != null) {
+                    journal.append(sequence, OutletContext.current(), priced);
+                }
+            } catch (IOException e) {
+                lastSequence--;
+                capacity.release();
+                throw e;
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.sync(sequence);
+            } catch (IOException e) {
+                journal.voidEntry(sequence);
+                release(sequence, ABANDONED);
+                throw e;
+            }
+        }
+        release(sequence, new Accepted(sequence, OutletContext.current(), priced));
+        if (terminalId != null && !terminalId.isBlank()) {
+            pendingByTerminal.merge(terminalId, sequence, Math::max);
+        }
+        accepted.incrementAndGet();
+        return new Acceptance(priced, sequence, null);
+    }
+
+    // Concurrent syncs finish in any order; the writer still gets entries in sequence order
+    private void release(long sequence, Accepted entry) {
+        synchronized (releaseLock) {
+            released.put(sequence, entry);
+            while (!released.isEmpty() && released.firstKey() == nextToQueue) {
+                Accepted next = released.pollFirstEntry().getValue();
+                nextToQueue++;
+                if (next == ABANDONED) {
+                    capacity.release();
+                } else {
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the journal segment of a day that has been closed into the daily summaries,
+     * once every invoice in it has been applied.
+     */
+    public void dayClosed(LocalDate date) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            if (journal.delete(date, appliedSequence)) {
+                log.info("Deleted the invoice journal of {}", date);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot delete the invoice journal of {}: {}", date, e.getMessage());
+        }
+    }
+
+    /** Days before today whose journal segment is still kept. */
+    public List<LocalDate> getJournalDays() {
+        return journal != null ? journal.pastDays() : List.of();
+    }
+
+    private static String validate(Invoice invoice) {
+        if (invoice.getItems() == null || invoice.getItems().isEmpty()) {
+            return "Invoice has no items";
+        }
+        for (OrderItem item : invoice.getItems()) {
+            if (item.getId() == null || item.getQuantity() <= 0) {
+                return "Every item needs an id and a positive quantity";
+            }
+        }
+        return null;
+    }
+
+    private void drain() {
+        List<Accepted> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Accepted first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                capacity.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<Accepted> batch) {
+        for (Accepted entry : batch) {
+            OutletContext.set(entry.outletId());
+            try {
+                if (dataStorage.createInvoice(entry.invoice()) == null) {
+                    // Two submissions with the same id were both accepted before either was applied
+                    failed.incrementAndGet();
+                    log.warn("Skipped invoice {} (sequence {}): the id already exists", entry.invoice().getId(), entry.sequence());
+                    continue;
+                }
+                printSpooler.autoPrintBill(entry.invoice());
+                applied.incrementAndGet();
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                log.error("Failed to apply invoice {} (sequence {})", entry.invoice().getId(), entry.sequence(), e);
+            } finally {
+                OutletContext.clear();
+            }
+        }
+        batches.incrementAndGet();
+        long last = batch.get(batch.size() - 1).sequence();
+        synchronized (appliedLock) {
+            appliedSequence = last;
+            appliedLock.notifyAll();
+        }
+        pendingByTerminal.values().removeIf(sequence -> sequence <= last);
+    }
+
+    /**
+     * Waits until reads see the given sequence number, or the last invoice the terminal
+     * created, whichever is later. Returns false if that took longer than the read wait.
+     */
+    public boolean awaitReadYourWrites(String terminalId, Long minSequence) {
+        if (!enabled) {
+            return true;
+        }
+        long target = minSequence != null ? minSequence : 0;
+        if (terminalId != null) {
+            target = Math.max(target, pendingByTerminal.getOrDefault(terminalId, 0L));
+        }
+        if (appliedSequence >= target) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readWaitMillis);
+        synchronized (appliedLock) {
+            while (appliedSequence < target) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    appliedLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (!enabled) {
+            return stats;
+        }
+        long batchCount = batches.get();
+        synchronized (acceptLock) {
+            stats.put("lastSequence", lastSequence);
+        }
+        stats.put("appliedSequence", appliedSequence);
+        stats.put("queued", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("accepted", accepted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("applied", applied.get());
+        stats.put("failed", failed.get());
+        stats.put("replayed", replayed.get());
+        stats.put("batches", batchCount);
+        stats.put("avgBatchSize", batchCount > 0 ? Math.round((applied.get() + failed.get()) * 10.0 / batchCount) / 10.0 : 0.0);
+        stats.put("pendingTerminals", pendingByTerminal.size());
+        stats.put("journal", journal != null ? journal.getStats() : null);
+        return stats;
+    }
+}
@@ -0,0 +1,256 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pos.model.Invoice;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of accepted invoices, one JSON line per invoice with its sequence
+ * number and outlet. Appends go straight to the file; sync() forces them to disk with
+ * group commit: whoever gets the sync lock forces everything written so far, and the
+ * callers queued behind it usually find their entry already covered.
+ *
+ * The journal is kept in one segment file per day ("invoices-2024-05-01.journal"). Once
+ * a day's invoices are folded into the daily summaries its segment can be deleted, so a
+ * restart replays at most the days not closed yet.
+ */
+class InvoiceJournal {
+
+    private static final String PREFIX = "invoices-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private volatile LocalDate segmentDate;
+    private long written;
+    private volatile long synced;
+    private long bytes;
+    private long syncs;
+    // Last sequence number in each segment; the current segment's entry moves as it grows
+    private final NavigableMap<LocalDate, Long> segments = new TreeMap<>();
+
+    // lastSequence: the last sequence number already in the journal, see replay()
+    InvoiceJournal(Path directory, ObjectMapper objectMapper, long lastSequence) throws IOException {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.written = lastSequence;
+        this.synced = lastSequence;
+        Files.createDirectories(directory);
+        for (Path file : segmentFiles(directory)) {
+            segments.put(dateOf(file), lastSequence(file, objectMapper));
+        }
+        open(LocalDate.now());
+    }
+
+    interface Replay {
+        void apply(long sequence, String outletId, Invoice invoice);
+    }
+
+    /**
+     * Reads back every segment in order and applies the entries that were not voided; a
+     * line torn by a crash is skipped. Returns the last sequence number.
+     */
+    static long replay(Path directory, ObjectMapper objectMapper, Replay replay) throws IOException {
+        long last = 0;
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        for (Path file : segmentFiles(directory)) {
+            for (Entry entry : read(file, objectMapper)) {
+                if (entry.invoice != null) {
+                    entries.put(entry.sequence, entry);
+                } else {
+                    entries.remove(entry.sequence);
+                }
+                last = Math.max(last, entry.sequence);
+            }
+        }
+        for (Entry entry : entries.values()) {
+            replay.apply(entry.sequence, entry.outletId, entry.invoice);
+        }
+        return last;
+    }
+
+    // Called in sequence order by the single caller that assigns sequence numbers
+    void append(long sequence, String outletId, Invoice invoice) throws IOException {
+        if (!LocalDate.now().equals(segmentDate)) {
+            rotate();
+        }
+        synchronized (this) {
+            write(new Entry(sequence, outletId, invoice));
+            written = sequence;
+            segments.put(segmentDate, sequence);
+        }
+    }
+
+    /**
+     * Best effort: marks an entry whose sync failed as not accepted, so a restart does not
+     * apply an invoice the client was told had failed (and has probably retried).
+     */
+    synchronized void voidEntry(long sequence) {
+        try {
+            write(new Entry(sequence, null, null));
+        } catch (IOException e) {
+            // The disk is failing already; the sync error has been reported to the client
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        byte[] line = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        bytes += line.length + 1;
+    }
+
+    /** Returns once the entry with this sequence number is on disk. */
+    void sync(long sequence) throws IOException {
+        if (synced >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            long upTo;
+            FileChannel current;
+            synchronized (this) {
+                upTo = written;
+                current = channel;
+            }
+            current.force(false);
+            synced = upTo;
+            syncs++;
+        }
+    }
+
+    // A new day starts a new segment; the old one is forced first, so no sync is lost
+    private void rotate() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                LocalDate today = LocalDate.now();
+                if (today.equals(segmentDate)) {
+                    return;
+                }
+                channel.force(false);
+                synced = written;
+                channel.close();
+                open(today);
+            }
+        }
+    }
+
+    private void open(LocalDate date) throws IOException {
+        Path file = directory.resolve(PREFIX + date + SUFFIX);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        bytes = channel.size();
+        segmentDate = date;
+    }
+
+    /** Days before today that still have a segment, oldest first. */
+    synchronized List<LocalDate> pastDays() {
+        return List.copyOf(segments.headMap(segmentDate, false).keySet());
+    }
+
+    /**
+     * Deletes the segment of a day once every entry in it has been applied; the segment
+     * being written is never deleted. Returns whether it was deleted.
+     */
+    synchronized boolean delete(LocalDate date, long appliedSequence) throws IOException {
+        Long last = segments.get(date);
+        if (last == null || date.equals(segmentDate) || last > appliedSequence) {
+            return false;
+        }
+        Files.deleteIfExists(directory.resolve(PREFIX + date + SUFFIX));
+        segments.remove(date);
+        return true;
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("segment", segmentDate.toString());
+            stats.put("segments", segments.size());
+            stats.put("segmentBytes", bytes);
+            stats.put("written", written);
+        }
+        synchronized (syncLock) {
+            stats.put("synced", synced);
+            stats.put("syncs", syncs);
+        }
+        return stats;
+    }
+
+    synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static List<Path> segmentFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // ISO dates sort in day order
+            return files.filter(InvoiceJournal::isSegment).sorted().toList();
+        }
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return false;
+        }
+        try {
+            dateOf(file);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static LocalDate dateOf(Path file) {
+        String name = file.getFileName().toString();
+        return LocalDate.parse(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static long lastSequence(Path file, ObjectMapper objectMapper) throws IOException {
+        return read(file, objectMapper).stream().mapToLong(Entry::sequence).max().orElse(0);
+    }
+
+    private static List<Entry> read(Path file, ObjectMapper objectMapper) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    entries.add(objectMapper.readValue(line, Entry.class));
+                } catch (IOException e) {
+                    // Torn by a crash
+                }
+            }
+        }
+        return entries;
+    }
+
+    // An entry without an invoice voids the earlier entry with the same sequence number
+    record Entry(long sequence, String outletId, Invoice invoice) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.pos.service;
+
+import com.pos.model.OrderItem;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only off-heap store for the line items of finalized invoices.
+ * Each line is a fixed 32-byte record in a direct buffer slab; strings are
+ * kept once in a small on-heap dictionary and referenced by code.
+ */
+public class InvoiceLineStore {
+
+    // Record layout: id, name, category, department (dictionary codes), price, quantity, flags
+    private static final int ID_OFFSET = 0;
+    private static final int NAME_OFFSET = 4;
+    private static final int CATEGORY_OFFSET = 8;
+    private static final int DEPARTMENT_OFFSET = 12;
+    private static final int PRICE_OFFSET = 16;
+    private static final int QUANTITY_OFFSET = 24;
+    private static final int FLAGS_OFFSET = 28;
+    private static final int RECORD_SIZE = 32;
+
+    private static final int FLAG_SENT_TO_KITCHEN = 1;
+    private static final int NULL_CODE = -1;
+    private static final int SLAB_SIZE = 1 << 20;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] strings = new String[256];
+    private int stringCount;
+
+    private ByteBuffer slab;
+
+    public synchronized List<OrderItem> append(List<OrderItem> items) {
+        int needed = items.size() * RECORD_SIZE;
+        if (slab == null || slab.remaining() < needed) {
+            slab = ByteBuffer.allocateDirect(Math.max(SLAB_SIZE, needed)).order(ByteOrder.nativeOrder());
+        }
+
+        int start = slab.position();
+        for (OrderItem item : items) {
+            int base = slab.position();
+            slab.putInt(base + ID_OFFSET, encode(item.getId()));
+            slab.putInt(base + NAME_OFFSET, encode(item.getName()));
+            slab.putInt(base + CATEGORY_OFFSET, encode(item.getCategory()));
+            slab.putInt(base + DEPARTMENT_OFFSET, encode(item.getDepartment()));
+            slab.putDouble(base + PRICE_OFFSET, item.getPrice());
+            slab.putInt(base + QUANTITY_OFFSET, item.getQuantity());
+            slab.putInt(base + FLAGS_OFFSET, item.isSentToKitchen() ? FLAG_SENT_TO_KITCHEN : 0);
+            slab.position(base + RECORD_SIZE);
+        }
+
+        return new LineItemView(slab, start, items.size());
+    }
+
+    private int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = strings;
+        if (stringCount == current.length) {
+            String[] grown = new String[current.length * 2];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            current = grown;
+        }
+        current[stringCount] = value;
+        strings = current;
+        codes.put(value, stringCount);
+        return stringCount++;
+    }
+
+    private String decode(int code) {
+        return code == NULL_CODE ? null : strings[code];
+    }
+
+    // Read-only view that materializes OrderItems on demand for API reads
+    private class LineItemView extends AbstractList<OrderItem> {
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int size;
+
+        LineItemView(ByteBuffer buffer, int start, int size) {
+            this.buffer = buffer;
+            this.start = start;
+            this.size = size;
+        }
+
+        @Override
+        public OrderItem get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            int base = start + index * RECORD_SIZE;
+            OrderItem item = new OrderItem();
+            item.setId(decode(buffer.getInt(base + ID_OFFSET)));
+            item.setName(decode(buffer.getInt(base + NAME_OFFSET)));
+            item.setCategory(decode(buffer.getInt(base + CATEGORY_OFFSET)));
+            item.setDepartment(decode(buffer.getInt(base + DEPARTMENT_OFFSET)));
+            item.setPrice(buffer.getDouble(base + PRICE_OFFSET));
+            item.setQuantity(buffer.getInt(base + QUANTITY_OFFSET));
+            item.setSentToKitchen((buffer.getInt(base + FLAGS_OFFSET) & FLAG_SENT_TO_KITCHEN) != 0);
+            return item;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.pos.service;
+
+import com.pos.model.KotTicket;
+import com.pos.model.OrderItem;
+import com.pos.model.TableOrder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Turns lines sent to the kitchen into department KOT tickets and routes them through the dispatch ring
+@Service
+public class KitchenDispatchService {
+    
+    private static final Logger log = LoggerFactory.getLogger(KitchenDispatchService.class);
+    
+    private static final String UNASSIGNED_DEPARTMENT = "Unassigned";
+    
+    @Autowired
+    private DataStorageService dataStorage;
+    
+    @Autowired
+    private List<KotSink> sinks;
+    
+    @Autowired
+    private PrintSpooler printSpooler;
+    
+    @Value("${pos.kitchen.ring-size:4096}")
+    private int ringSize;
+    
+    @Value("${pos.kitchen.consumers:4}")
+    private int consumers;
+    
+    @Value("${pos.kitchen.publish-timeout-ms:50}")
+    private long publishTimeoutMillis;
+    
+    private KotRingBuffer ring;
+    
+    /** Result of a send; busy when the ring was full and nothing was marked as sent. */
+    public record Dispatch(TableOrder order, boolean busy) {
+    }
+    
+    @PostConstruct
+    public void start() {
+        ring = new KotRingBuffer(ringSize, consumers, this::deliver);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        ring.shutdown();
+    }
+    
+    // Marks pending lines as sent and dispatches them; kotNumber is allocated when not supplied.
+    // The ring slot is reserved first, so a full ring leaves the lines pending for a retry.
+    public Dispatch sendToKitchen(String tableId, Integer kotNumber) throws InterruptedException {
+        if (!ring.reserve(TimeUnit.MILLISECONDS.toNanos(publishTimeoutMillis))) {
+            log.warn("Kitchen dispatch ring full, table {} asked to retry", tableId);
+            return new Dispatch(null, true);
+        }
+        List<OrderItem> newlySent = new ArrayList<>();
+        TableOrder order = dataStorage.markItemsAsSent(tableId, newlySent);
+        if (order == null || newlySent.isEmpty()) {
+            ring.cancel();
+            return new Dispatch(order, false);
+        }
+        int number = kotNumber != null ? kotNumber : dataStorage.getNextKOTNumber();
+        
+        Map<String, List<OrderItem>> byDepartment = new LinkedHashMap<>();
+        for (OrderItem item : newlySent) {
+            String department = item.getDepartment() != null ? item.getDepartment() : UNASSIGNED_DEPARTMENT;
+            byDepartment.computeIfAbsent(department, d -> new ArrayList<>()).add(item);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<KotTicket> tickets = new ArrayList<>(byDepartment.size());
+        for (Map.Entry<String, List<OrderItem>> entry : byDepartment.entrySet()) {
+            tickets.add(new KotTicket(number, OutletContext.current(), tableId, order.getTableName(),
+                    entry.getKey(), entry.getValue(), now));
+        }
+        ring.publish(tickets);
+        printSpooler.printKot(tickets, dataStorage.getKOTConfig());
+        return new Dispatch(order, false);
+    }
+    
+    public Map<String, Object> getStats() {
+        return ring.getStats();
+    }
+    
+    private void deliver(String department, List<KotTicket> batch) {
+        for (KotSink sink : sinks) {
+            try {
+                sink.accept(department, batch);
+            } catch (RuntimeException e) {
+                log.error("KOT sink {} failed", sink.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
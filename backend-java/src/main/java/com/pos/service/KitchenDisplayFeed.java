@@ -0,0 +1,54 @@
+package com.pos.service;
+
+import com.pos.model.KotTicket;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps the most recent tickets per outlet and department for kitchen display screens
+@Component
+public class KitchenDisplayFeed implements KotSink {
+    
+    private static final int MAX_TICKETS = 200;
+    
+    private final Map<String, Deque<KotTicket>> feeds = new ConcurrentHashMap<>();
+    
+    @Override
+    public void accept(String department, List<KotTicket> batch) {
+        for (KotTicket ticket : batch) {
+            Deque<KotTicket> feed = feeds.computeIfAbsent(key(ticket.getOutletId(), department), k -> new ArrayDeque<>());
+            synchronized (feed) {
+                feed.addFirst(ticket);
+                if (feed.size() > MAX_TICKETS) {
+                    feed.removeLast();
+                }
+            }
+        }
+    }
+    
+    // Most recent first
+    public List<KotTicket> recent(String outletId, String department, int limit) {
+        Deque<KotTicket> feed = feeds.get(key(outletId, department));
+        if (feed == null) {
+            return List.of();
+        }
+        synchronized (feed) {
+            List<KotTicket> result = new ArrayList<>(Math.min(limit, feed.size()));
+            Iterator<KotTicket> it = feed.iterator();
+            while (it.hasNext() && result.size() < limit) {
+                result.add(it.next());
+            }
+            return result;
+        }
+    }
+    
+    private static String key(String outletId, String department) {
+        return outletId + "|" + department;
+    }
+}
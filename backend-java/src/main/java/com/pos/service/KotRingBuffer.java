@@ -0,0 +1,196 @@
+package com.pos.service;
+
+import com.pos.model.KotTicket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disruptor-style ring of KOT sends, one slot per send holding its department tickets,
+ * read by a fixed pool of consumer threads. Every department is handled by one consumer
+ * (by hash), so a terminal cannot start threads by naming new departments. Publishing is
+ * serialized so every slot has a single writer; consumers track their own sequence, take
+ * everything published since in one batch, and gate the writer so unread slots are never
+ * overwritten.
+ *
+ * A sender reserves its slot before it changes anything: once reserve() has succeeded,
+ * publish() never has to wait or drop the send.
+ */
+public class KotRingBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(KotRingBuffer.class);
+
+    private static final int MAX_BATCH = 256;
+
+    private final List<KotTicket>[] slots;
+    private final long[] publishNanos;
+    private final int mask;
+    private final KotSink handler;
+
+    // Last published sequence; the volatile write makes the slot visible to consumers
+    private volatile long cursor = -1;
+    private final Object signal = new Object();
+    private final List<Consumer> consumers;
+    private volatile boolean running = true;
+
+    // One permit per slot that is neither reserved nor waiting for a consumer
+    private final Semaphore free;
+    private long freedUpTo = -1;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final LatencyHistogram dispatchLatencyMicros = new LatencyHistogram();
+
+    @SuppressWarnings("unchecked")
+    public KotRingBuffer(int size, int consumerCount, KotSink handler) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + size);
+        }
+        if (consumerCount < 1) {
+            throw new IllegalArgumentException("At least one consumer is needed: " + consumerCount);
+        }
+        this.slots = new List[size];
+        this.publishNanos = new long[size];
+        this.mask = size - 1;
+        this.handler = handler;
+        this.free = new Semaphore(size);
+        List<Consumer> started = new ArrayList<>(consumerCount);
+        for (int i = 0; i < consumerCount; i++) {
+            Consumer consumer = new Consumer(i, consumerCount);
+            Thread thread = new Thread(consumer, "kot-consumer-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            started.add(consumer);
+        }
+        this.consumers = List.copyOf(started);
+    }
+
+    /** Reserves one slot; returns false when the ring stayed full for the whole timeout. */
+    public boolean reserve(long timeoutNanos) throws InterruptedException {
+        if (running && free.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /** Gives back a reservation that will not be published. */
+    public void cancel() {
+        free.release();
+    }
+
+    // Needs a reservation, so the slot is free: every unread slot still holds its permit
+    public synchronized void publish(List<KotTicket> tickets) {
+        long next = cursor + 1;
+        int slot = (int) (next & mask);
+        slots[slot] = List.copyOf(tickets);
+        publishNanos[slot] = System.nanoTime();
+        cursor = next;
+        published.incrementAndGet();
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> lag = new LinkedHashMap<>();
+        long current = cursor;
+        consumers.forEach(consumer -> lag.put("kot-consumer-" + consumer.index, current - consumer.sequence.get()));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("capacity", slots.length);
+        stats.put("free", free.availablePermits());
+        stats.put("published", published.get());
+        stats.put("rejected", rejected.get());
+        stats.put("batches", batches.get());
+        stats.put("consumerLag", lag);
+        stats.put("dispatchLatency", dispatchLatencyMicros.summary("Us"));
+        return stats;
+    }
+
+    // Slots every consumer has passed go back to the senders
+    private synchronized void freeConsumed() {
+        long min = cursor;
+        for (Consumer consumer : consumers) {
+            min = Math.min(min, consumer.sequence.get());
+        }
+        if (min > freedUpTo) {
+            free.release((int) (min - freedUpTo));
+            freedUpTo = min;
+        }
+    }
+
+    private final class Consumer implements Runnable {
+        private final int index;
+        private final int count;
+        private final AtomicLong sequence = new AtomicLong(-1);
+
+        Consumer(int index, int count) {
+            this.index = index;
+            this.count = count;
+        }
+
+        @Override
+        public void run() {
+            long seq = sequence.get();
+            while (running) {
+                long available = cursor;
+                if (available <= seq) {
+                    awaitPublish(seq);
+                    continue;
+                }
+                long end = Math.min(available, seq + MAX_BATCH);
+                Map<String, List<KotTicket>> byDepartment = new LinkedHashMap<>();
+                long now = System.nanoTime();
+                for (long s = seq + 1; s <= end; s++) {
+                    int slot = (int) (s & mask);
+                    for (KotTicket ticket : slots[slot]) {
+                        if (Math.floorMod(ticket.getDepartment().hashCode(), count) == index) {
+                            byDepartment.computeIfAbsent(ticket.getDepartment(), d -> new ArrayList<>()).add(ticket);
+                            dispatchLatencyMicros.record((now - publishNanos[slot]) / 1000);
+                        }
+                    }
+                }
+                byDepartment.forEach((department, batch) -> {
+                    try {
+                        handler.accept(department, batch);
+                    } catch (RuntimeException e) {
+                        log.error("KOT consumer for {} failed to deliver {} tickets", department, batch.size(), e);
+                    }
+                    batches.incrementAndGet();
+                });
+                seq = end;
+                sequence.set(seq);
+                freeConsumed();
+            }
+        }
+
+        private void awaitPublish(long seq) {
+            synchronized (signal) {
+                while (running && cursor <= seq) {
+                    try {
+                        signal.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.pos.service;
+
+import com.pos.model.KotTicket;
+
+import java.util.List;
+
+// Destination for KOT tickets leaving the kitchen dispatch ring, one department batch at a time
+public interface KotSink {
+    
+    void accept(String department, List<KotTicket> batch);
+}
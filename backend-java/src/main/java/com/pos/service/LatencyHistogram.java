@@ -0,0 +1,83 @@
+package com.pos.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of durations (HdrHistogram-style).
+ * Values below 32 are exact; above that each power of two is split into 16
+ * buckets, giving roughly 6% worst-case relative error.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKETS = 16;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - 5) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, value)));
+    }
+
+    public Map<String, Object> summary() {
+        return summary("Ms");
+    }
+
+    // The unit only labels the keys, e.g. "Ms" gives p50Ms, p90Ms, ...
+    public Map<String, Object> summary(String unit) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        int maxIndex = -1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+            if (snapshot[i] > 0) {
+                maxIndex = i;
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", total);
+        summary.put("p50" + unit, valueAtPercentile(snapshot, total, 50));
+        summary.put("p90" + unit, valueAtPercentile(snapshot, total, 90));
+        summary.put("p99" + unit, valueAtPercentile(snapshot, total, 99));
+        summary.put("max" + unit, maxIndex < 0 ? 0 : upperBound(maxIndex));
+        return summary;
+    }
+
+    private static long valueAtPercentile(long[] snapshot, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(snapshot.length - 1);
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT - 1);
+        int mantissa = (int) Math.min(value >>> (exponent - 4), 2 * SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 5) * SUB_BUCKETS + (mantissa - SUB_BUCKETS);
+    }
+
+    private static long upperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 5;
+        long mantissa = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << (exponent - 4)) - 1;
+    }
+}
@@ -0,0 +1,494 @@
+package com.pos.service;
+
+import com.pos.model.MenuItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search index over menu item names, product codes and descriptions. Terms live in a
+ * prefix trie so partially typed words match, and a trigram index over the terms
+ * finds near misses when a word is mistyped. Items are added, replaced and removed
+ * one at a time as the menu changes.
+ */
+public class MenuSearchIndex {
+
+    // Fields in descending weight: a product code hit beats a name hit, which beats a description hit
+    private static final int CODE = 0;
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int[] FIELD_WEIGHTS = {4, 3, 1};
+
+    // Exact terms rank above prefix completions, which rank above fuzzy matches
+    private static final double EXACT_BOOST = 3.0;
+    private static final double PREFIX_BOOST = 2.0;
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    // Bound the work done for very short or very common words on large menus
+    private static final int MAX_PREFIX_TERMS = 512;
+    private static final int MAX_CANDIDATES = 4096;
+    private static final int MAX_TERMS_PER_GRAM = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TrieNode root = new TrieNode();
+    private final Map<String, Set<String>> termsByGram = new HashMap<>();
+    private final Map<String, Integer> docsByItemId = new HashMap<>();
+    private Doc[] docs = new Doc[64];
+    private final ArrayDeque<Integer> freeDocs = new ArrayDeque<>();
+    private int nextDoc;
+
+    public void put(MenuItem item) {
+        Map<String, Integer> fieldsByTerm = new LinkedHashMap<>();
+        addTerms(fieldsByTerm, item.getProductCode(), CODE);
+        addTerms(fieldsByTerm, item.getName(), NAME);
+        addTerms(fieldsByTerm, item.getDescription(), DESCRIPTION);
+        String[] terms = fieldsByTerm.keySet().toArray(new String[0]);
+        int[] fieldMasks = fieldsByTerm.values().stream().mapToInt(Integer::intValue).toArray();
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(item.getId());
+            int doc = freeDocs.isEmpty() ? nextDoc++ : freeDocs.pop();
+            if (doc == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            docs[doc] = new Doc(item, terms, fieldMasks);
+            docsByItemId.put(item.getId(), doc);
+            for (int i = 0; i < terms.length; i++) {
+                TrieNode node = termNode(terms[i]);
+                for (int field = CODE; field <= DESCRIPTION; field++) {
+                    if ((fieldMasks[i] & (1 << field)) != 0) {
+                        node.add(field, doc);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String itemId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docsByItemId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to limit items matching every word of the query, best first. A word
+     * matches an equal term, a term it is a prefix of, or, when those find too little,
+     * a term sharing enough trigrams with it. Candidates come from the word with the
+     * fewest postings and are checked against the other words term by term.
+     */
+    public List<MenuItem> search(String query, int limit) {
+        Set<String> words = new LinkedHashSet<>(tokenize(query));
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<WordMatch> matches = new ArrayList<>(words.size());
+            for (String word : words) {
+                WordMatch match = match(word, limit);
+                if (match.sources.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(match);
+            }
+
+            WordMatch driver = matches.get(0);
+            double bestOfOthers = 0;
+            for (WordMatch match : matches) {
+                if (match.postings < driver.postings) {
+                    driver = match;
+                }
+                bestOfOthers += match.sources.get(0).score;
+            }
+            bestOfOthers -= driver.sources.get(0).score;
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, MenuSearchIndex::compareHits);
+            Set<Integer> seen = new HashSet<>();
+            scan:
+            for (Source source : driver.sources) {
+                int[] postings = source.node.postings[source.field];
+                for (int i = 0; i < source.node.counts[source.field]; i++) {
+                    // Sources are sorted, so once no remaining candidate can beat the current top results we are done
+                    if (top.size() == limit && source.score + bestOfOthers <= top.peek().score) {
+                        break scan;
+                    }
+                    int doc = postings[i];
+                    if (!seen.add(doc)) {
+                        continue;
+                    }
+                    if (seen.size() > MAX_CANDIDATES) {
+                        break scan;
+                    }
+                    double score = source.score;
+                    for (WordMatch match : matches) {
+                        if (match != driver) {
+                            double wordScore = match.score(docs[doc]);
+                            if (wordScore == 0) {
+                                score = 0;
+                                break;
+                            }
+                            score += wordScore;
+                        }
+                    }
+                    if (score > 0) {
+                        top.add(new Hit(docs[doc].item, score));
+                        if (top.size() > limit) {
+                            top.poll();
+                        }
+                    }
+                }
+            }
+
+            Hit[] ranked = top.toArray(new Hit[0]);
+            Arrays.sort(ranked, (a, b) -> compareHits(b, a));
+            List<MenuItem> results = new ArrayList<>(ranked.length);
+            for (Hit hit : ranked) {
+                results.add(hit.item);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private WordMatch match(String word, int limit) {
+        List<Source> sources = new ArrayList<>();
+        long postings = 0;
+        TrieNode start = find(word);
+        if (start != null) {
+            // Breadth-first so the closest completions are collected before the cap is hit
+            ArrayDeque<TrieNode> pending = new ArrayDeque<>();
+            pending.add(start);
+            int terms = 0;
+            while (!pending.isEmpty() && terms < MAX_PREFIX_TERMS) {
+                TrieNode node = pending.poll();
+                if (node.term != null) {
+                    terms++;
+                    double boost = node == start ? EXACT_BOOST : PREFIX_BOOST * word.length() / node.term.length();
+                    postings += addSources(sources, node, boost);
+                }
+                if (node.children != null) {
+                    pending.addAll(Arrays.asList(node.children));
+                }
+            }
+        }
+
+        Map<String, Double> fuzzy = Map.of();
+        if (postings < limit && word.length() >= MIN_FUZZY_LENGTH) {
+            fuzzy = similarTerms(word);
+            for (Map.Entry<String, Double> similar : fuzzy.entrySet()) {
+                postings += addSources(sources, find(similar.getKey()), similar.getValue());
+            }
+        }
+        sources.sort((a, b) -> Double.compare(b.score, a.score));
+        return new WordMatch(word, sources, fuzzy, postings);
+    }
+
+    private static long addSources(List<Source> sources, TrieNode node, double boost) {
+        long postings = 0;
+        for (int field = CODE; field <= DESCRIPTION; field++) {
+            if (node.counts[field] > 0) {
+                sources.add(new Source(node, field, FIELD_WEIGHTS[field] * boost));
+                postings += node.counts[field];
+            }
+        }
+        return postings;
+    }
+
+    // Dice coefficient on padded trigrams; a term of length n has n of them.
+    // Grams shared by very many terms (like "$pc" in product codes) say little and are skipped.
+    private Map<String, Double> similarTerms(String word) {
+        Set<String> grams = trigrams(word);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            Set<String> terms = termsByGram.get(gram);
+            if (terms != null && terms.size() <= MAX_TERMS_PER_GRAM) {
+                for (String term : terms) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        Map<String, Double> similar = new HashMap<>();
+        shared.forEach((term, count) -> {
+            double similarity = 2.0 * count / (grams.size() + term.length());
+            if (similarity >= MIN_SIMILARITY && !term.equals(word)) {
+                similar.put(term, similarity);
+            }
+        });
+        return similar;
+    }
+
+    private void removeLocked(String itemId) {
+        Integer doc = docsByItemId.remove(itemId);
+        if (doc == null) {
+            return;
+        }
+        Doc existing = docs[doc];
+        for (String term : existing.terms) {
+            TrieNode node = find(term);
+            for (int field = CODE; field <= DESCRIPTION; field++) {
+                node.remove(field, doc);
+            }
+            if (node.isEmpty()) {
+                node.term = null;
+                for (String gram : trigrams(term)) {
+                    Set<String> terms = termsByGram.get(gram);
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        termsByGram.remove(gram);
+                    }
+                }
+                prune(term);
+            }
+        }
+        docs[doc] = null;
+        freeDocs.push(doc);
+    }
+
+    // Drops the nodes of a term no longer in use, up to the first one still holding a term or
+    // other children, so a menu that keeps being renamed does not grow the trie forever
+    private void prune(String term) {
+        TrieNode[] path = new TrieNode[term.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < term.length(); i++) {
+            path[i + 1] = path[i].child(term.charAt(i));
+        }
+        for (int i = term.length(); i > 0; i--) {
+            TrieNode node = path[i];
+            if (node.term != null || node.keys != null) {
+                return;
+            }
+            path[i - 1].removeChild(term.charAt(i - 1));
+        }
+    }
+
+    // Number of trie nodes below the root
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            ArrayDeque<TrieNode> pending = new ArrayDeque<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                TrieNode node = pending.poll();
+                if (node.children != null) {
+                    count += node.children.length;
+                    pending.addAll(Arrays.asList(node.children));
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private TrieNode termNode(String term) {
+        TrieNode node = root;
+        for (int i = 0; i < term.length(); i++) {
+            node = node.childFor(term.charAt(i));
+        }
+        if (node.term == null) {
+            node.term = term;
+            for (String gram : trigrams(term)) {
+                termsByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+            }
+        }
+        return node;
+    }
+
+    private TrieNode find(String term) {
+        TrieNode node = root;
+        for (int i = 0; i < term.length() && node != null; i++) {
+            node = node.child(term.charAt(i));
+        }
+        return node;
+    }
+
+    private static void addTerms(Map<String, Integer> fieldsByTerm, String text, int field) {
+        for (String term : tokenize(text)) {
+            fieldsByTerm.merge(term, 1 << field, (a, b) -> a | b);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Padding marks word boundaries: "tea" -> "$te", "tea", "ea$"
+    private static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static int compareHits(Hit a, Hit b) {
+        int byScore = Double.compare(a.score, b.score);
+        if (byScore != 0) {
+            return byScore;
+        }
+        // Equal scores list alphabetically, so the later name is the weaker hit
+        String nameA = a.item.getName() != null ? a.item.getName() : "";
+        String nameB = b.item.getName() != null ? b.item.getName() : "";
+        return nameB.compareToIgnoreCase(nameA);
+    }
+
+    private record Doc(MenuItem item, String[] terms, int[] fieldMasks) {
+    }
+
+    private record Source(TrieNode node, int field, double score) {
+    }
+
+    private record Hit(MenuItem item, double score) {
+    }
+
+    private record WordMatch(String word, List<Source> sources, Map<String, Double> fuzzy, long postings) {
+
+        // Best score this word earns on a document, or 0 if none of its terms match
+        double score(Doc doc) {
+            double best = 0;
+            for (int i = 0; i < doc.terms.length; i++) {
+                String term = doc.terms[i];
+                int weight = FIELD_WEIGHTS[Integer.numberOfTrailingZeros(doc.fieldMasks[i])];
+                double score;
+                if (term.equals(word)) {
+                    score = weight * EXACT_BOOST;
+                } else if (term.startsWith(word)) {
+                    score = weight * PREFIX_BOOST * word.length() / term.length();
+                } else {
+                    score = weight * fuzzy.getOrDefault(term, 0.0);
+                }
+                best = Math.max(best, score);
+            }
+            return best;
+        }
+    }
+
+    // Children are kept in parallel arrays sorted by character to keep nodes small
+    private static final class TrieNode {
+        private char[] keys;
+        private TrieNode[] children;
+        private String term;
+        private final int[][] postings = new int[FIELD_WEIGHTS.length][];
+        private final int[] counts = new int[FIELD_WEIGHTS.length];
+
+        TrieNode child(char c) {
+            if (keys == null) {
+                return null;
+            }
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        TrieNode childFor(char c) {
+            if (keys == null) {
+                keys = new char[] {c};
+                children = new TrieNode[] {new TrieNode()};
+                return children[0];
+            }
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] grownKeys = new char[keys.length + 1];
+            TrieNode[] grownChildren = new TrieNode[children.length + 1];
+            System.arraycopy(keys, 0, grownKeys, 0, insert);
+            System.arraycopy(children, 0, grownChildren, 0, insert);
+            grownKeys[insert] = c;
+            grownChildren[insert] = new TrieNode();
+            System.arraycopy(keys, insert, grownKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, grownChildren, insert + 1, children.length - insert);
+            keys = grownKeys;
+            children = grownChildren;
+            return grownChildren[insert];
+        }
+
+        void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (keys.length == 1) {
+                keys = null;
+                children = null;
+                return;
+            }
+            char[] shrunkKeys = new char[keys.length - 1];
+            TrieNode[] shrunkChildren = new TrieNode[children.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, index);
+            System.arraycopy(children, 0, shrunkChildren, 0, index);
+            System.arraycopy(keys, index + 1, shrunkKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, shrunkChildren, index, children.length - index - 1);
+            keys = shrunkKeys;
+            children = shrunkChildren;
+        }
+
+        void add(int field, int doc) {
+            int[] docs = postings[field];
+            if (docs == null) {
+                docs = postings[field] = new int[2];
+            } else if (counts[field] == docs.length) {
+                docs = postings[field] = Arrays.copyOf(docs, docs.length * 2);
+            }
+            docs[counts[field]++] = doc;
+        }
+
+        // Postings are unordered, so the last one fills the hole
+        void remove(int field, int doc) {
+            int[] docs = postings[field];
+            for (int i = 0; i < counts[field]; i++) {
+                if (docs[i] == doc) {
+                    docs[i] = docs[--counts[field]];
+                    return;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return counts[CODE] == 0 && counts[NAME] == 0 && counts[DESCRIPTION] == 0;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.pos.service;
+
+// Receives the new state of every entity an outlet store changes (value is null on delete)
+@FunctionalInterface
+public interface MutationListener {
+    
+    String TABLE = "table";
+    String TABLE_ORDER = "tableOrder";
+    String INVOICE = "invoice";
+    String MENU_ITEM = "menuItem";
+    String CATEGORY = "category";
+    String DEPARTMENT = "department";
+    String RESTAURANT_SETTINGS = "restaurantSettings";
+    String KOT_CONFIG = "kotConfig";
+    String BILL_CONFIG = "billConfig";
+    String KOT_COUNTER = "kotCounter";
+    String TAKEAWAY_ORDER = "takeawayOrder";
+    
+    void onMutation(String outletId, String entity, String key, Object value);
+}
@@ -0,0 +1,211 @@
+package com.pos.service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lifecycle timestamps of table orders. Open orders are tracked per table; completed
+ * orders go into a fixed-size ring of primitive columns and feed turnaround and
+ * kitchen-time histograms per table category and per hour of day. Every send to the
+ * kitchen is kept with how long its items waited, up to MAX_SENDS per order.
+ */
+public class OrderHistory {
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+    static final int MAX_SENDS = 32;
+
+    private final Map<String, OpenOrder> openOrders = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyHistogram> turnaroundByCategory = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> kitchenByCategory = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] turnaroundByHour = newHourHistograms();
+    private final LatencyHistogram[] kitchenByHour = newHourHistograms();
+
+    // Completed orders, oldest overwritten first
+    private final int capacity;
+    private final String[] tableIds;
+    private final String[] categories;
+    private final long[] openedAt;
+    private final long[] firstSentAt;
+    private final long[][] sentAt;
+    private final long[][] sendWaitMillis;
+    private final long[] completedAt;
+    private final int[] kotCounts;
+    private long completedCount;
+
+    public OrderHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public OrderHistory(int capacity) {
+        this.capacity = capacity;
+        this.tableIds = new String[capacity];
+        this.categories = new String[capacity];
+        this.openedAt = new long[capacity];
+        this.firstSentAt = new long[capacity];
+        this.sentAt = new long[capacity][];
+        this.sendWaitMillis = new long[capacity][];
+        this.completedAt = new long[capacity];
+        this.kotCounts = new int[capacity];
+    }
+
+    public void orderOpened(String tableId, long now) {
+        openOrders.put(tableId, new OpenOrder(now));
+    }
+
+    public void itemsAdded(String tableId, long now) {
+        OpenOrder order = openOrders.get(tableId);
+        if (order != null) {
+            synchronized (order) {
+                if (order.pendingSince == 0) {
+                    order.pendingSince = now;
+                }
+            }
+        }
+    }
+
+    public void itemsSent(String tableId, String category, long now) {
+        OpenOrder order = openOrders.get(tableId);
+        if (order == null) {
+            return;
+        }
+        long kitchenMillis;
+        synchronized (order) {
+            if (order.pendingSince == 0) {
+                return;
+            }
+            kitchenMillis = now - order.pendingSince;
+            order.pendingSince = 0;
+            // Later sends still count as KOTs once the per-order list is full
+            if (order.kotCount < MAX_SENDS) {
+                order.sentAt[order.kotCount] = now;
+                order.sendWaitMillis[order.kotCount] = kitchenMillis;
+            }
+            order.kotCount++;
+        }
+        kitchenByCategory.computeIfAbsent(categoryKey(category), k -> new LatencyHistogram()).record(kitchenMillis);
+        kitchenByHour[hourOf(now)].record(kitchenMillis);
+    }
+
+    public void orderCompleted(String tableId, String category, long now) {
+        OpenOrder order = openOrders.remove(tableId);
+        if (order == null) {
+            return;
+        }
+        long turnaroundMillis = now - order.openedAt;
+        turnaroundByCategory.computeIfAbsent(categoryKey(category), k -> new LatencyHistogram()).record(turnaroundMillis);
+        turnaroundByHour[hourOf(now)].record(turnaroundMillis);
+
+        long[] sends;
+        long[] waits;
+        int kotCount;
+        synchronized (order) {
+            kotCount = order.kotCount;
+            int kept = Math.min(kotCount, MAX_SENDS);
+            sends = Arrays.copyOf(order.sentAt, kept);
+            waits = Arrays.copyOf(order.sendWaitMillis, kept);
+        }
+
+        synchronized (this) {
+            int slot = (int) (completedCount % capacity);
+            tableIds[slot] = tableId;
+            categories[slot] = category;
+            openedAt[slot] = order.openedAt;
+            firstSentAt[slot] = sends.length == 0 ? 0 : sends[0];
+            sentAt[slot] = sends;
+            sendWaitMillis[slot] = waits;
+            completedAt[slot] = now;
+            kotCounts[slot] = kotCount;
+            completedCount++;
+        }
+    }
+
+    // Most recent completed orders first
+    public synchronized List<Map<String, Object>> recent(int limit) {
+        int available = (int) Math.min(completedCount, capacity);
+        int count = Math.min(Math.max(limit, 0), available);
+        List<Map<String, Object>> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((completedCount - 1 - i) % capacity);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("tableId", tableIds[slot]);
+            row.put("category", categories[slot]);
+            row.put("openedAt", Instant.ofEpochMilli(openedAt[slot]).toString());
+            row.put("firstSentAt", firstSentAt[slot] == 0 ? null : Instant.ofEpochMilli(firstSentAt[slot]).toString());
+            List<Map<String, Object>> sends = new ArrayList<>(sentAt[slot].length);
+            for (int send = 0; send < sentAt[slot].length; send++) {
+                Map<String, Object> sendRow = new LinkedHashMap<>();
+                sendRow.put("sentAt", Instant.ofEpochMilli(sentAt[slot][send]).toString());
+                sendRow.put("waitMs", sendWaitMillis[slot][send]);
+                sends.add(sendRow);
+            }
+            row.put("sends", sends);
+            row.put("completedAt", Instant.ofEpochMilli(completedAt[slot]).toString());
+            row.put("kotCount", kotCounts[slot]);
+            row.put("turnaroundMs", completedAt[slot] - openedAt[slot]);
+            result.add(row);
+        }
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("turnaround", distributions(turnaroundByCategory, turnaroundByHour));
+        stats.put("kitchen", distributions(kitchenByCategory, kitchenByHour));
+        return stats;
+    }
+
+    private static Map<String, Object> distributions(Map<String, LatencyHistogram> byCategory, LatencyHistogram[] byHour) {
+        Map<String, Object> categorySummaries = new TreeMap<>();
+        byCategory.forEach((category, histogram) -> categorySummaries.put(category, histogram.summary()));
+
+        Map<String, Object> hourSummaries = new LinkedHashMap<>();
+        for (int hour = 0; hour < byHour.length; hour++) {
+            Map<String, Object> summary = byHour[hour].summary();
+            if ((long) summary.get("count") > 0) {
+                hourSummaries.put(String.format("%02d", hour), summary);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("byCategory", categorySummaries);
+        result.put("byHour", hourSummaries);
+        return result;
+    }
+
+    private static LatencyHistogram[] newHourHistograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[24];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    private static String categoryKey(String category) {
+        return category != null ? category : "Uncategorized";
+    }
+
+    private static int hourOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).getHour();
+    }
+
+    private static final class OpenOrder {
+        private final long openedAt;
+        private long pendingSince;
+        private final long[] sentAt = new long[MAX_SENDS];
+        private final long[] sendWaitMillis = new long[MAX_SENDS];
+        private int kotCount;
+
+        OpenOrder(long openedAt) {
+            this.openedAt = openedAt;
+            this.pendingSince = openedAt;
+        }
+    }
+}
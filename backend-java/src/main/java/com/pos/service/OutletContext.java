@@ -0,0 +1,43 @@
+package com.pos.service;
+
+/**
+ * Holds the outlet the current thread is working for. Set per request by the
+ * outlet filter; code running outside a request uses the default outlet.
+ */
+public final class OutletContext {
+    
+    public static final String DEFAULT_OUTLET = "default";
+    
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    
+    private static final ThreadLocal<CatalogSnapshot> PINNED_CATALOG = new ThreadLocal<>();
+    
+    private OutletContext() {
+    }
+    
+    public static String current() {
+        String outletId = CURRENT.get();
+        return outletId != null ? outletId : DEFAULT_OUTLET;
+    }
+    
+    public static void set(String outletId) {
+        CURRENT.set(outletId);
+    }
+    
+    /**
+     * Makes catalog reads on this thread see the given snapshot of the current outlet
+     * instead of the latest one, so several reads agree on one catalog version.
+     */
+    public static void pinCatalog(CatalogSnapshot catalog) {
+        PINNED_CATALOG.set(catalog);
+    }
+    
+    public static CatalogSnapshot pinnedCatalog() {
+        return PINNED_CATALOG.get();
+    }
+    
+    public static void clear() {
+        CURRENT.remove();
+        PINNED_CATALOG.remove();
+    }
+}
@@ -0,0 +1,848 @@
+package com.pos.service;
+
+import com.pos.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * All state of a single outlet: catalog, orders, invoices, configs, counters and
+ * the indexes derived from them. Outlets never share a store, so requests for
+ * different outlets never contend on the same structures.
+ */
+public class OutletStore {
+    
+    private static final String SINGLETON_KEY = "1";
+    
+    private final String outletId;
+    
+    // In-memory storage
+    private final Map<String, TableOrder> tableOrders = new ConcurrentHashMap<>();
+    private final Map<String, Invoice> invoices = new ConcurrentHashMap<>();
+    
+    // Tables, menu items, categories and departments are published as immutable snapshots;
+    // writers build the next one under catalogLock and readers never lock or copy
+    private volatile CatalogSnapshot catalog = CatalogSnapshot.EMPTY;
+    private final Object catalogLock = new Object();
+    
+    // Settings, configs and the KOT counter are replaced, never modified, under configLock
+    private volatile RestaurantSettings restaurantSettings;
+    private volatile KOTConfig kotConfig;
+    private volatile BillConfig billConfig;
+    private volatile KOTCounter kotCounter;
+    private final Object configLock = new Object();
+    
+    // Off-heap line items for finalized invoices (null when disabled)
+    private final InvoiceLineStore invoiceLineStore;
+    
+    private final AtomicLong orderIdCounter = new AtomicLong(1);
+    
+    // Last id handed out by nextId(); ids stay in the millisecond format but never repeat
+    private final AtomicLong lastId = new AtomicLong();
+    
+    // Tells apart stores that replaced one another under the same outlet id (e.g. when a
+    // follower installs a snapshot): catalog versions only compare within one store
+    private static final AtomicLong INSTANCES = new AtomicLong();
+    private final long instanceId = INSTANCES.incrementAndGet();
+    
+    // Bumped on every menu change; the price table is rebuilt lazily when it falls behind
+    private final AtomicLong menuVersion = new AtomicLong();
+    private volatile PriceTable priceTable;
+    
+    // Prefix and typo-tolerant search over the menu, kept in step with the catalog
+    private final MenuSearchIndex menuSearchIndex = new MenuSearchIndex();
+    
+    // Bitmap indexes for filtering invoices by order type, table, day and item
+    private final InvoiceIndex invoiceIndex = new InvoiceIndex();
+    
+    // Bounded best-seller summaries, updated as invoices are created
+    private final SalesSketches salesSketches = new SalesSketches();
+    
+    // Lifecycle timestamps and service-time distributions of table orders
+    private final OrderHistory orderHistory = new OrderHistory();
+    
+    // Takeaway tickets from placement to collection
+    private final TakeawayQueue takeawayQueue = new TakeawayQueue();
+    
+    // Notified after every change, e.g. to feed the replication stream
+    private volatile MutationListener mutationListener;
+    
+    public OutletStore(String outletId, boolean offHeapInvoiceItems, boolean seedSampleData) {
+        this.outletId = outletId;
+        
+        // Initialize default configurations
+        this.restaurantSettings = new RestaurantSettings();
+        this.kotConfig = new KOTConfig();
+        this.billConfig = new BillConfig();
+        this.kotCounter = new KOTCounter();
+        this.invoiceLineStore = offHeapInvoiceItems ? new InvoiceLineStore() : null;
+        
+        // Initialize with some sample data
+        if (seedSampleData) {
+            initializeSampleData();
+        }
+    }
+    
+    private void initializeSampleData() {
+        // Sample categories
+        Category cat1 = new Category("cat1", "Appetizers");
+        Category cat2 = new Category("cat2", "Mains");
+        Category cat3 = new Category("cat3", "Desserts");
+        Category cat4 = new Category("cat4", "Beverages");
+        createCategory(cat1);
+        createCategory(cat2);
+        createCategory(cat3);
+        createCategory(cat4);
+        
+        // Sample departments
+        Department dept1 = new Department("dept1", "Kitchen");
+        Department dept2 = new Department("dept2", "Bar");
+        createDepartment(dept1);
+        createDepartment(dept2);
+        
+        // Sample menu items
+        MenuItem item1 = new MenuItem("item1", "Chicken Burger", "CB001", 299.0, "Mains", "Kitchen", "Grilled chicken with lettuce and mayo");
+        MenuItem item2 = new MenuItem("item2", "French Fries", "FF001", 149.0, "Appetizers", "Kitchen", "Crispy golden fries");
+        MenuItem item3 = new MenuItem("item3", "Coca Cola", "CC001", 99.0, "Beverages", "Bar", "Chilled soft drink");
+        createMenuItem(item1);
+        createMenuItem(item2);
+        createMenuItem(item3);
+        
+        // Sample tables
+        Table table1 = new Table("table1", "Table 1", 4, "Indoor", "available");
+        Table table2 = new Table("table2", "Table 2", 2, "Indoor", "available");
+        Table table3 = new Table("table3", "Table 3", 6, "Outdoor", "available");
+        createTable(table1);
+        createTable(table2);
+        createTable(table3);
+    }
+    
+    public String getOutletId() {
+        return outletId;
+    }
+    
+    public long getInstanceId() {
+        return instanceId;
+    }
+    
+    public CatalogSnapshot getCatalog() {
+        return catalog;
+    }
+    
+    // Catalog as seen by readers: the snapshot pinned for this outlet, if any, else the latest
+    private CatalogSnapshot readCatalog() {
+        CatalogSnapshot pinned = OutletContext.pinnedCatalog();
+        return pinned != null && outletId.equals(OutletContext.current()) ? pinned : catalog;
+    }
+    
+    // Table operations
+    public List<Table> getAllTables() {
+        return readCatalog().getTables().list();
+    }
+    
+    public Table getTableById(String id) {
+        return copyOf(readCatalog().getTables().get(id));
+    }
+    
+    public Table createTable(Table table) {
+        if (table.getId() == null || table.getId().isEmpty()) {
+            table.setId(nextId());
+        }
+        Table stored = copyOf(table);
+        synchronized (catalogLock) {
+            catalog = catalog.withTables(catalog.getTables().with(stored.getId(), stored));
+            publish(MutationListener.TABLE, stored.getId(), stored);
+        }
+        return table;
+    }
+    
+    public Table updateTable(String id, Table table) {
+        synchronized (catalogLock) {
+            if (catalog.getTables().contains(id)) {
+                table.setId(id);
+                Table stored = copyOf(table);
+                catalog = catalog.withTables(catalog.getTables().with(id, stored));
+                publish(MutationListener.TABLE, id, stored);
+                return table;
+            }
+        }
+        return null;
+    }
+    
+    public boolean deleteTable(String id) {
+        synchronized (catalogLock) {
+            if (catalog.getTables().contains(id)) {
+                catalog = catalog.withTables(catalog.getTables().without(id));
+                publish(MutationListener.TABLE, id, null);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Derives the status from whether the table has an open order, under the catalog lock, so
+    // a complete racing a new order cannot leave the table marked with the older status.
+    // Entities in a snapshot are never modified, so a status change swaps in a copy
+    private void syncTableStatus(String tableId) {
+        synchronized (catalogLock) {
+            Table table = catalog.getTables().get(tableId);
+            String status = tableOrders.containsKey(tableId) ? "occupied" : "available";
+            if (table != null && !status.equals(table.getStatus())) {
+                Table updated = new Table(table.getId(), table.getName(), table.getSeats(), table.getCategory(), status);
+                catalog = catalog.withTables(catalog.getTables().with(tableId, updated));
+                publish(MutationListener.TABLE, tableId, updated);
+            }
+        }
+    }
+    
+    // Table Order operations
+    public List<TableOrder> getAllTableOrders() {
+        return new ArrayList<>(tableOrders.values());
+    }
+    
+    public TableOrder getTableOrderByTableId(String tableId) {
+        return tableOrders.get(tableId);
+    }
+    
+    // Orders are copy-on-write: each change builds a new TableOrder (and new lines) inside
+    // an atomic compute, so concurrent adds never lose quantity and readers, serializers and
+    // the replication stream never see a list that is being modified. Order history and the
+    // mutation listener are told inside the compute so they see changes in the same order.
+    public TableOrder createOrUpdateTableOrder(String tableId, String tableName, List<OrderItem> items) {
+        PosEvents.OrderUpdate event = new PosEvents.OrderUpdate();
+        event.begin();
+        TableOrder order = tableOrders.compute(tableId, (id, existingOrder) -> {
+            long now = System.currentTimeMillis();
+            if (existingOrder == null) {
+                // Create new order
+                event.created = true;
+                orderHistory.orderOpened(tableId, now);
+                TableOrder newOrder = new TableOrder();
+                newOrder.setId(orderIdCounter.getAndIncrement());
+                newOrder.setTableId(tableId);
+                newOrder.setTableName(tableName);
+                newOrder.setItems(mergeItems(new ArrayList<>(), items));
+                newOrder.setStartTime(LocalDateTime.now());
+                publish(MutationListener.TABLE_ORDER, tableId, newOrder);
+                return newOrder;
+            }
+            // Update existing order - merge items
+            orderHistory.itemsAdded(tableId, now);
+            TableOrder updated = new TableOrder(existingOrder.getId(), existingOrder.getTableId(), existingOrder.getTableName(),
+                    mergeItems(new ArrayList<>(existingOrder.getItems()), items), existingOrder.getStartTime());
+            publish(MutationListener.TABLE_ORDER, tableId, updated);
+            return updated;
+        });
+        syncTableStatus(tableId);
+        if (event.shouldCommit()) {
+            event.outletId = outletId;
+            event.tableId = tableId;
+            event.itemCount = items.size();
+            event.lineCount = order.getItems().size();
+            event.commit();
+        }
+        return order;
+    }
+    
+    // Adds quantity to a pending line of the same item, otherwise appends a new line
+    private static List<OrderItem> mergeItems(List<OrderItem> lines, List<OrderItem> items) {
+        for (OrderItem newItem : items) {
+            boolean found = false;
+            for (int i = 0; i < lines.size(); i++) {
+                OrderItem existingItem = lines.get(i);
+                if (existingItem.getId().equals(newItem.getId()) && !existingItem.isSentToKitchen()) {
+                    lines.set(i, copyOf(existingItem, existingItem.getQuantity() + newItem.getQuantity(), false));
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                lines.add(copyOf(newItem, newItem.getQuantity(), newItem.isSentToKitchen()));
+            }
+        }
+        return lines;
+    }
+    
+    // Entities in a snapshot are shared by every reader, so they are copied on the way in
+    // and single lookups hand out a copy
+    private static Table copyOf(Table table) {
+        return table != null ? new Table(table.getId(), table.getName(), table.getSeats(), table.getCategory(), table.getStatus()) : null;
+    }
+    
+    private static MenuItem copyOf(MenuItem item) {
+        return item != null ? new MenuItem(item.getId(), item.getName(), item.getProductCode(), item.getPrice(),
+                item.getCategory(), item.getDepartment(), item.getDescription()) : null;
+    }
+    
+    private static OrderItem copyOf(OrderItem item, int quantity, boolean sentToKitchen) {
+        return new OrderItem(item.getId(), item.getName(), item.getPrice(), item.getCategory(),
+                item.getDepartment(), quantity, sentToKitchen);
+    }
+    
+    public TableOrder markItemsAsSent(String tableId) {
+        return markItemsAsSent(tableId, null);
+    }
+    
+    // Copies of the lines that were still pending are added to newlySent when it is given
+    public TableOrder markItemsAsSent(String tableId, List<OrderItem> newlySent) {
+        PosEvents.ItemsSent event = new PosEvents.ItemsSent();
+        event.begin();
+        TableOrder order = tableOrders.computeIfPresent(tableId, (id, existingOrder) -> {
+            List<OrderItem> lines = new ArrayList<>(existingOrder.getItems().size());
+            for (OrderItem item : existingOrder.getItems()) {
+                if (!item.isSentToKitchen()) {
+                    event.itemCount++;
+                    item = copyOf(item, item.getQuantity(), true);
+                    if (newlySent != null) {
+                        newlySent.add(copyOf(item, item.getQuantity(), true));
+                    }
+                }
+                lines.add(item);
+            }
+            orderHistory.itemsSent(tableId, tableCategory(tableId), System.currentTimeMillis());
+            TableOrder updated = new TableOrder(existingOrder.getId(), existingOrder.getTableId(), existingOrder.getTableName(),
+                    lines, existingOrder.getStartTime());
+            publish(MutationListener.TABLE_ORDER, tableId, updated);
+            return updated;
+        });
+        if (order != null && event.shouldCommit()) {
+            event.outletId = outletId;
+            event.tableId = tableId;
+            event.commit();
+        }
+        return order;
+    }
+    
+    public boolean completeTableOrder(String tableId) {
+        return completeTableOrder(tableId, null) != null;
+    }
+    
+    // Completes the open order; bill, when given, sees the order exactly as it is closed.
+    // Returns the completed order, or null when the table had none.
+    public TableOrder completeTableOrder(String tableId, Consumer<TableOrder> bill) {
+        PosEvents.OrderComplete event = new PosEvents.OrderComplete();
+        event.begin();
+        TableOrder[] removed = new TableOrder[1];
+        tableOrders.computeIfPresent(tableId, (id, order) -> {
+            if (bill != null) {
+                bill.accept(order);
+            }
+            event.itemCount = order.getItems().size();
+            orderHistory.orderCompleted(tableId, tableCategory(tableId), System.currentTimeMillis());
+            publish(MutationListener.TABLE_ORDER, tableId, null);
+            removed[0] = order;
+            return null;
+        });
+        if (removed[0] != null) {
+            // Update table status
+            syncTableStatus(tableId);
+            if (event.shouldCommit()) {
+                event.outletId = outletId;
+                event.tableId = tableId;
+                event.commit();
+            }
+        }
+        return removed[0];
+    }
+    
+    public List<Map<String, Object>> getOrderHistory(int limit) {
+        return orderHistory.recent(limit);
+    }
+    
+    public Map<String, Object> getOrderHistoryStats() {
+        return orderHistory.stats();
+    }
+    
+    private String tableCategory(String tableId) {
+        Table table = catalog.getTables().get(tableId);
+        return table != null ? table.getCategory() : null;
+    }
+    
+    // Invoice operations
+    public List<Invoice> getAllInvoices() {
+        return new ArrayList<>(invoices.values());
+    }
+    
+    public Invoice getInvoiceById(String id) {
+        return invoices.get(id);
+    }
+    
+    // Returns null, storing nothing, when an invoice with the same id already exists
+    // (e.g. a client retrying with the id it generated)
+    public Invoice createInvoice(Invoice invoice) {
+        PosEvents.InvoiceCreate event = new PosEvents.InvoiceCreate();
+        event.begin();
+        if (invoice.getId() == null || invoice.getId().isEmpty()) {
+            invoice.setId(nextId());
+        } else {
+            observeId(invoice.getId());
+        }
+        boolean[] created = new boolean[1];
+        invoices.computeIfAbsent(invoice.getId(), id -> {
+            if (invoiceLineStore != null && invoice.getItems() != null) {
+                invoice.setItems(invoiceLineStore.append(invoice.getItems()));
+            }
+            created[0] = true;
+            return invoice;
+        });
+        if (!created[0]) {
+            return null;
+        }
+        invoiceIndex.add(invoice);
+        salesSketches.record(invoice);
+        publish(MutationListener.INVOICE, invoice.getId(), invoice);
+        if (event.shouldCommit()) {
+            event.outletId = outletId;
+            event.tableName = invoice.getTableName();
+            event.itemCount = invoice.getItems() != null ? invoice.getItems().size() : 0;
+            event.commit();
+        }
+        return invoice;
+    }
+    
+    public InvoiceIndex.Result filterInvoices(String orderType, String tableName, LocalDate from, LocalDate to, String itemId) {
+        return invoiceIndex.filter(orderType, tableName, from, to, itemId);
+    }
+    
+    public List<Map<String, Object>> getTopSellingItems(String period, LocalDateTime time, String department, String metric, int limit) {
+        return salesSketches.top(period, time, department, metric, limit);
+    }
+    
+    // Menu Item operations
+    public List<MenuItem> getAllMenuItems() {
+        return readCatalog().getMenuItems().list();
+    }
+    
+    public MenuItem getMenuItemById(String id) {
+        return copyOf(readCatalog().getMenuItems().get(id));
+    }
+    
+    public MenuItem createMenuItem(MenuItem item) {
+        if (item.getId() == null || item.getId().isEmpty()) {
+            item.setId(nextId());
+        }
+        synchronized (catalogLock) {
+            // Check for duplicate product code
+            boolean duplicate = catalog.getMenuItems().list().stream()
+                    .anyMatch(existing -> existing.getProductCode().equals(item.getProductCode()));
+            if (duplicate) {
+                return null;
+            }
+            MenuItem stored = copyOf(item);
+            putMenuItem(stored);
+            publish(MutationListener.MENU_ITEM, stored.getId(), stored);
+        }
+        return item;
+    }
+    
+    public MenuItem updateMenuItem(String id, MenuItem item) {
+        synchronized (catalogLock) {
+            if (catalog.getMenuItems().contains(id)) {
+                // Check for duplicate product code (excluding current item)
+                boolean duplicate = catalog.getMenuItems().list().stream()
+                        .filter(existing -> !existing.getId().equals(id))
+                        .anyMatch(existing -> existing.getProductCode().equals(item.getProductCode()));
+                if (duplicate) {
+                    return null;
+                }
+                item.setId(id);
+                MenuItem stored = copyOf(item);
+                putMenuItem(stored);
+                publish(MutationListener.MENU_ITEM, id, stored);
+                return item;
+            }
+        }
+        return null;
+    }
+    
+    public boolean deleteMenuItem(String id) {
+        synchronized (catalogLock) {
+            if (catalog.getMenuItems().contains(id)) {
+                removeMenuItem(id);
+                publish(MutationListener.MENU_ITEM, id, null);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Callers hold catalogLock
+    private void putMenuItem(MenuItem item) {
+        catalog = catalog.withMenuItems(catalog.getMenuItems().with(item.getId(), item));
+        menuSearchIndex.put(item);
+        menuVersion.incrementAndGet();
+    }
+    
+    private void removeMenuItem(String id) {
+        catalog = catalog.withMenuItems(catalog.getMenuItems().without(id));
+        menuSearchIndex.remove(id);
+        menuVersion.incrementAndGet();
+    }
+    
+    // The index is always the latest; under a pinned catalog, hits are mapped to the pinned
+    // items, so items added since are left out (and items removed since are not found)
+    public List<MenuItem> searchMenuItems(String query, int limit) {
+        List<MenuItem> hits = menuSearchIndex.search(query, limit);
+        CatalogSnapshot read = readCatalog();
+        if (read == catalog) {
+            return hits;
+        }
+        List<MenuItem> pinned = new ArrayList<>(hits.size());
+        for (MenuItem hit : hits) {
+            MenuItem item = read.getMenuItems().get(hit.getId());
+            if (item != null) {
+                pinned.add(item);
+            }
+        }
+        return pinned;
+    }
+    
+    public PriceTable getPriceTable() {
+        PriceTable current = priceTable;
+        if (current == null || current.getVersion() != menuVersion.get()) {
+            synchronized (this) {
+                current = priceTable;
+                long version = menuVersion.get();
+                if (current == null || current.getVersion() != version) {
+                    current = new PriceTable(version, catalog.getMenuItems().list());
+                    priceTable = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Adds the categories, departments and menu items of an import and publishes them as
+     * one catalog change, so readers see either none or all of it. Items whose product
+     * code is already taken, by the menu or earlier in the import, are skipped; returns
+     * their positions in items.
+     */
+    public List<Integer> importCatalog(List<Category> categories, List<Department> departments, List<MenuItem> items) {
+        List<Integer> rejected = new ArrayList<>();
+        synchronized (catalogLock) {
+            Map<String, Category> newCategories = new LinkedHashMap<>();
+            for (Category category : categories) {
+                Category stored = new Category(category.getId() != null ? category.getId() : nextId(), category.getName());
+                newCategories.put(stored.getId(), stored);
+            }
+            Map<String, Department> newDepartments = new LinkedHashMap<>();
+            for (Department department : departments) {
+                Department stored = new Department(department.getId() != null ? department.getId() : nextId(), department.getName());
+                newDepartments.put(stored.getId(), stored);
+            }
+            Set<String> productCodes = new HashSet<>();
+            catalog.getMenuItems().list().forEach(existing -> productCodes.add(existing.getProductCode()));
+            Map<String, MenuItem> newItems = new LinkedHashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                MenuItem stored = copyOf(items.get(i));
+                if (!productCodes.add(stored.getProductCode())) {
+                    rejected.add(i);
+                    continue;
+                }
+                if (stored.getId() == null || stored.getId().isEmpty()) {
+                    stored.setId(nextId());
+                }
+                newItems.put(stored.getId(), stored);
+            }
+            
+            catalog = catalog.withCatalog(catalog.getMenuItems().withAll(newItems),
+                    catalog.getCategories().withAll(newCategories), catalog.getDepartments().withAll(newDepartments));
+            newItems.values().forEach(menuSearchIndex::put);
+            menuVersion.incrementAndGet();
+            newCategories.forEach((id, category) -> publish(MutationListener.CATEGORY, id, category));
+            newDepartments.forEach((id, department) -> publish(MutationListener.DEPARTMENT, id, department));
+            newItems.forEach((id, item) -> publish(MutationListener.MENU_ITEM, id, item));
+        }
+        return rejected;
+    }
+    
+    // Category operations
+    public List<Category> getAllCategories() {
+        return readCatalog().getCategories().list();
+    }
+    
+    public Category createCategory(Category category) {
+        if (category.getId() == null || category.getId().isEmpty()) {
+            category.setId(nextId());
+        }
+        Category stored = new Category(category.getId(), category.getName());
+        synchronized (catalogLock) {
+            catalog = catalog.withCategories(catalog.getCategories().with(stored.getId(), stored));
+            publish(MutationListener.CATEGORY, stored.getId(), stored);
+        }
+        return category;
+    }
+    
+    public boolean deleteCategory(String id) {
+        synchronized (catalogLock) {
+            if (catalog.getCategories().contains(id)) {
+                catalog = catalog.withCategories(catalog.getCategories().without(id));
+                publish(MutationListener.CATEGORY, id, null);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Department operations
+    public List<Department> getAllDepartments() {
+        return readCatalog().getDepartments().list();
+    }
+    
+    public Department createDepartment(Department department) {
+        if (department.getId() == null || department.getId().isEmpty()) {
+            department.setId(nextId());
+        }
+        Department stored = new Department(department.getId(), department.getName());
+        synchronized (catalogLock) {
+            catalog = catalog.withDepartments(catalog.getDepartments().with(stored.getId(), stored));
+            publish(MutationListener.DEPARTMENT, stored.getId(), stored);
+        }
+        return department;
+    }
+    
+    public boolean deleteDepartment(String id) {
+        synchronized (catalogLock) {
+            if (catalog.getDepartments().contains(id)) {
+                catalog = catalog.withDepartments(catalog.getDepartments().without(id));
+                publish(MutationListener.DEPARTMENT, id, null);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Takeaway operations
+    public TakeawayOrder placeTakeawayOrder(String customerName, List<OrderItem> items) {
+        TakeawayOrder order = takeawayQueue.place(customerName, items);
+        publish(MutationListener.TAKEAWAY_ORDER, order.id(), order);
+        return order;
+    }
+    
+    public TakeawayOrder advanceTakeawayOrder(String id, String status) {
+        TakeawayOrder order = takeawayQueue.advance(id, status);
+        if (order != null) {
+            publish(MutationListener.TAKEAWAY_ORDER, id, order);
+        }
+        return order;
+    }
+    
+    public TakeawayOrder getTakeawayOrder(String id) {
+        return takeawayQueue.get(id);
+    }
+    
+    public List<TakeawayOrder> getActiveTakeawayOrders(String status) {
+        return takeawayQueue.active(status);
+    }
+    
+    public List<TakeawayOrder> getTakeawayHistory(int limit) {
+        return takeawayQueue.history(limit);
+    }
+    
+    public Map<String, Object> getTakeawayStats() {
+        return takeawayQueue.stats();
+    }
+    
+    // Settings operations
+    public RestaurantSettings getRestaurantSettings() {
+        return restaurantSettings;
+    }
+    
+    public void updateRestaurantSettings(RestaurantSettings settings) {
+        synchronized (configLock) {
+            // Build the merged settings aside so readers never see a half-applied update
+            RestaurantSettings current = restaurantSettings;
+            RestaurantSettings updated = new RestaurantSettings(current.getId(),
+                    settings.getRestaurantName() != null ? settings.getRestaurantName() : current.getRestaurantName(),
+                    settings.getAddress() != null ? settings.getAddress() : current.getAddress(),
+                    settings.getPhone() != null ? settings.getPhone() : current.getPhone(),
+                    settings.getEmail() != null ? settings.getEmail() : current.getEmail(),
+                    settings.getCurrency() != null ? settings.getCurrency() : current.getCurrency(),
+                    settings.getTaxRate());
+            this.restaurantSettings = updated;
+            publish(MutationListener.RESTAURANT_SETTINGS, SINGLETON_KEY, updated);
+        }
+    }
+    
+    // Config operations
+    public KOTConfig getKOTConfig() {
+        return kotConfig;
+    }
+    
+    // Stored and published under one lock, so the replication stream ends with the config kept here
+    public void updateKOTConfig(KOTConfig config) {
+        synchronized (configLock) {
+            this.kotConfig = config;
+            publish(MutationListener.KOT_CONFIG, SINGLETON_KEY, config);
+        }
+    }
+    
+    public BillConfig getBillConfig() {
+        return billConfig;
+    }
+    
+    public void updateBillConfig(BillConfig config) {
+        synchronized (configLock) {
+            this.billConfig = config;
+            publish(MutationListener.BILL_CONFIG, SINGLETON_KEY, config);
+        }
+    }
+    
+    // KOT Counter operations
+    // Each call publishes a new counter instance, so a value handed to the replication
+    // stream is never changed afterwards
+    public int getNextKOTNumber() {
+        PosEvents.KotNumber event = new PosEvents.KotNumber();
+        event.begin();
+        int number;
+        synchronized (configLock) {
+            LocalDate today = LocalDate.now();
+            KOTCounter current = kotCounter;
+            KOTCounter next;
+            if (current.getLastResetDate().isBefore(today)) {
+                // Reset counter for new day
+                next = new KOTCounter(current.getId(), 1, today);
+            } else {
+                next = new KOTCounter(current.getId(), current.getCurrentNumber() + 1, current.getLastResetDate());
+            }
+            this.kotCounter = next;
+            publish(MutationListener.KOT_COUNTER, SINGLETON_KEY, next);
+            number = next.getCurrentNumber();
+        }
+        if (event.shouldCommit()) {
+            event.outletId = outletId;
+            event.kotNumber = number;
+            event.commit();
+        }
+        return number;
+    }
+    
+    // Replication support
+    public void setMutationListener(MutationListener mutationListener) {
+        this.mutationListener = mutationListener;
+    }
+    
+    public void forEachEntity(MutationListener sink) {
+        CatalogSnapshot snapshot = catalog;
+        snapshot.getTables().list().forEach(table -> sink.onMutation(outletId, MutationListener.TABLE, table.getId(), table));
+        tableOrders.forEach((id, order) -> sink.onMutation(outletId, MutationListener.TABLE_ORDER, id, order));
+        invoices.forEach((id, invoice) -> sink.onMutation(outletId, MutationListener.INVOICE, id, invoice));
+        takeawayQueue.active(null).forEach(order -> sink.onMutation(outletId, MutationListener.TAKEAWAY_ORDER, order.id(), order));
+        snapshot.getMenuItems().list().forEach(item -> sink.onMutation(outletId, MutationListener.MENU_ITEM, item.getId(), item));
+        snapshot.getCategories().list().forEach(category -> sink.onMutation(outletId, MutationListener.CATEGORY, category.getId(), category));
+        snapshot.getDepartments().list().forEach(department -> sink.onMutation(outletId, MutationListener.DEPARTMENT, department.getId(), department));
+        sink.onMutation(outletId, MutationListener.RESTAURANT_SETTINGS, SINGLETON_KEY, restaurantSettings);
+        sink.onMutation(outletId, MutationListener.KOT_CONFIG, SINGLETON_KEY, kotConfig);
+        sink.onMutation(outletId, MutationListener.BILL_CONFIG, SINGLETON_KEY, billConfig);
+        sink.onMutation(outletId, MutationListener.KOT_COUNTER, SINGLETON_KEY, kotCounter);
+    }
+    
+    // Applies state received from a replication leader without publishing it again
+    public void applyReplicated(String entity, String key, Object value) {
+        switch (entity) {
+            case MutationListener.TABLE -> {
+                synchronized (catalogLock) {
+                    catalog = catalog.withTables(applyToEntities(catalog.getTables(), key, (Table) value));
+                }
+            }
+            case MutationListener.TABLE_ORDER -> {
+                TableOrder order = (TableOrder) value;
+                applyToMap(tableOrders, key, order);
+                if (order != null && order.getId() != null) {
+                    orderIdCounter.accumulateAndGet(order.getId() + 1, Math::max);
+                }
+            }
+            case MutationListener.INVOICE -> {
+                Invoice invoice = (Invoice) value;
+                observeId(key);
+                if (invoice != null) {
+                    invoiceIndex.add(invoice);
+                    if (invoices.put(key, invoice) == null) {
+                        salesSketches.record(invoice);
+                    }
+                }
+            }
+            case MutationListener.MENU_ITEM -> {
+                synchronized (catalogLock) {
+                    if (value == null) {
+                        removeMenuItem(key);
+                    } else {
+                        putMenuItem((MenuItem) value);
+                    }
+                }
+            }
+            case MutationListener.CATEGORY -> {
+                synchronized (catalogLock) {
+                    catalog = catalog.withCategories(applyToEntities(catalog.getCategories(), key, (Category) value));
+                }
+            }
+            case MutationListener.DEPARTMENT -> {
+                synchronized (catalogLock) {
+                    catalog = catalog.withDepartments(applyToEntities(catalog.getDepartments(), key, (Department) value));
+                }
+            }
+            case MutationListener.RESTAURANT_SETTINGS -> {
+                synchronized (configLock) {
+                    this.restaurantSettings = (RestaurantSettings) value;
+                }
+            }
+            case MutationListener.KOT_CONFIG -> {
+                synchronized (configLock) {
+                    this.kotConfig = (KOTConfig) value;
+                }
+            }
+            case MutationListener.BILL_CONFIG -> {
+                synchronized (configLock) {
+                    this.billConfig = (BillConfig) value;
+                }
+            }
+            case MutationListener.KOT_COUNTER -> {
+                synchronized (configLock) {
+                    this.kotCounter = (KOTCounter) value;
+                }
+            }
+            case MutationListener.TAKEAWAY_ORDER -> takeawayQueue.apply((TakeawayOrder) value);
+            default -> throw new IllegalArgumentException("Unknown entity: " + entity);
+        }
+    }
+    
+    private static <T> CatalogSnapshot.Entities<T> applyToEntities(CatalogSnapshot.Entities<T> entities, String key, T value) {
+        return value == null ? entities.without(key) : entities.with(key, value);
+    }
+    
+    private static <T> void applyToMap(Map<String, T> map, String key, T value) {
+        if (value == null) {
+            map.remove(key);
+        } else {
+            map.put(key, value);
+        }
+    }
+    
+    private void publish(String entity, String key, Object value) {
+        if (mutationListener != null) {
+            mutationListener.onMutation(outletId, entity, key, value);
+        }
+    }
+    
+    // Unique IDs for this outlet: the current time in milliseconds, or one more than the
+    // last id when several are created within the same millisecond
+    public String nextId() {
+        long now = System.currentTimeMillis();
+        return String.valueOf(lastId.accumulateAndGet(now, (last, time) -> Math.max(last + 1, time)));
+    }
+    
+    // Keeps ids received from a replication leader from being handed out again after promotion
+    private void observeId(String id) {
+        try {
+            lastId.accumulateAndGet(Long.parseLong(id), Math::max);
+        } catch (NumberFormatException e) {
+            // Client-chosen ids are not in the generated format
+        }
+    }
+}
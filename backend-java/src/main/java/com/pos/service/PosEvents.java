@@ -0,0 +1,130 @@
+package com.pos.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for the order, invoice, KOT and Excel paths. They cost
+ * next to nothing unless a recording or live stream has enabled them, and their
+ * duration is the time between begin() and commit().
+ */
+public final class PosEvents {
+
+    public static final String ORDER_UPDATE = "pos.OrderUpdate";
+    public static final String ITEMS_SENT = "pos.ItemsSent";
+    public static final String ORDER_COMPLETE = "pos.OrderComplete";
+    public static final String INVOICE_CREATE = "pos.InvoiceCreate";
+    public static final String KOT_NUMBER = "pos.KotNumber";
+    public static final String EXCEL = "pos.Excel";
+
+    public static final String[] ALL = {ORDER_UPDATE, ITEMS_SENT, ORDER_COMPLETE, INVOICE_CREATE, KOT_NUMBER, EXCEL};
+
+    private PosEvents() {
+    }
+
+    @Name(ORDER_UPDATE)
+    @Label("Order Update")
+    @Description("Items added to a table order (createOrUpdateTableOrder)")
+    @Category({"POS", "Orders"})
+    @StackTrace(false)
+    public static class OrderUpdate extends Event {
+        @Label("Outlet")
+        public String outletId;
+
+        @Label("Table")
+        public String tableId;
+
+        @Label("Items Added")
+        public int itemCount;
+
+        @Label("Order Lines")
+        public int lineCount;
+
+        @Label("New Order")
+        public boolean created;
+    }
+
+    @Name(ITEMS_SENT)
+    @Label("Items Sent")
+    @Description("Pending items of a table marked as sent to the kitchen")
+    @Category({"POS", "Orders"})
+    @StackTrace(false)
+    public static class ItemsSent extends Event {
+        @Label("Outlet")
+        public String outletId;
+
+        @Label("Table")
+        public String tableId;
+
+        @Label("Items Sent")
+        public int itemCount;
+    }
+
+    @Name(ORDER_COMPLETE)
+    @Label("Order Complete")
+    @Description("Table order completed and the table released")
+    @Category({"POS", "Orders"})
+    @StackTrace(false)
+    public static class OrderComplete extends Event {
+        @Label("Outlet")
+        public String outletId;
+
+        @Label("Table")
+        public String tableId;
+
+        @Label("Order Lines")
+        public int itemCount;
+    }
+
+    @Name(INVOICE_CREATE)
+    @Label("Invoice Create")
+    @Description("Invoice stored, indexed and recorded in the sales sketches")
+    @Category({"POS", "Invoices"})
+    @StackTrace(false)
+    public static class InvoiceCreate extends Event {
+        @Label("Outlet")
+        public String outletId;
+
+        @Label("Table")
+        public String tableName;
+
+        @Label("Invoice Lines")
+        public int itemCount;
+    }
+
+    @Name(KOT_NUMBER)
+    @Label("KOT Number")
+    @Description("KOT number allocated from the outlet's daily counter")
+    @Category({"POS", "Kitchen"})
+    @StackTrace(false)
+    public static class KotNumber extends Event {
+        @Label("Outlet")
+        public String outletId;
+
+        @Label("KOT Number")
+        public int kotNumber;
+    }
+
+    @Name(EXCEL)
+    @Label("Excel Operation")
+    @Description("Excel template, export or import")
+    @Category({"POS", "Excel"})
+    @StackTrace(false)
+    public static class Excel extends Event {
+        @Label("Outlet")
+        public String outletId;
+
+        @Label("Operation")
+        public String operation;
+
+        @Label("Rows")
+        public int itemCount;
+
+        @Label("Bytes")
+        public long bytes;
+    }
+}
@@ -0,0 +1,46 @@
+package com.pos.service;
+
+import com.pos.model.MenuItem;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of menu prices in minor currency units, tagged with the
+ * catalog version it was built from.
+ */
+public class PriceTable {
+
+    public static final long MINOR_UNITS = 100;
+
+    private final long version;
+    private final Map<String, Long> pricesById;
+
+    public PriceTable(long version, Collection<MenuItem> menuItems) {
+        Map<String, Long> prices = new HashMap<>(menuItems.size() * 2);
+        for (MenuItem item : menuItems) {
+            prices.put(item.getId(), toMinor(item.getPrice()));
+        }
+        this.version = version;
+        this.pricesById = prices;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Returns the catalog price in minor units, or -1 when the item is not on the menu
+    public long priceOf(String itemId) {
+        Long price = itemId != null ? pricesById.get(itemId) : null;
+        return price != null ? price : -1;
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * MINOR_UNITS);
+    }
+
+    public static double fromMinor(long amount) {
+        return (double) amount / MINOR_UNITS;
+    }
+}
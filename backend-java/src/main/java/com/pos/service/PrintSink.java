@@ -0,0 +1,26 @@
+package com.pos.service;
+
+import java.io.IOException;
+import java.util.List;
+
+// Where rendered print jobs end up; one call carries several jobs (one entry per copy) to write back to back.
+// Every outlet has its own printers, so a printer is named by outlet id and printer name together
+public interface PrintSink {
+    
+    void write(String outletId, String printer, List<byte[]> jobs) throws IOException;
+    
+    // Thrown when a write failed after its first jobs went out whole; a retry sends only the rest
+    class PartialWriteException extends IOException {
+        
+        private final int jobsWritten;
+        
+        public PartialWriteException(int jobsWritten, IOException cause) {
+            super(cause.getMessage(), cause);
+            this.jobsWritten = jobsWritten;
+        }
+        
+        public int getJobsWritten() {
+            return jobsWritten;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.pos.service;
+
+import com.pos.model.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous print spooler with one bounded queue and worker per printer of each
+ * outlet (outlets share printer names, not printers).
+ * Submitting never blocks: a full queue rejects the job. Workers coalesce queued
+ * jobs and their copies into a single write and retry failed writes with backoff;
+ * a retry resends only the copies the sink had not written whole.
+ */
+@Service
+public class PrintSpooler {
+    
+    private static final Logger log = LoggerFactory.getLogger(PrintSpooler.class);
+    
+    private static final int MAX_JOBS_PER_WRITE = 16;
+    private static final long INITIAL_BACKOFF_MILLIS = 200;
+    
+    @Autowired
+    private PrintSink sink;
+    
+    @Autowired
+    private EscPosRenderer renderer;
+    
+    @Autowired
+    private DataStorageService dataStorage;
+    
+    @Value("${pos.print.queue-capacity:256}")
+    private int queueCapacity;
+    
+    @Value("${pos.print.max-attempts:3}")
+    private int maxAttempts;
+    
+    private final Map<Printer, PrinterQueue> queues = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        queues.values().forEach(queue -> queue.worker.interrupt());
+    }
+    
+    // Prints one KOT per department, or a single combined KOT, on the configured KOT printer
+    public void printKot(List<KotTicket> tickets, KOTConfig config) {
+        if (config.getSelectedPrinter() == null || tickets.isEmpty()) {
+            return;
+        }
+        int copies = Math.max(1, config.getNumberOfCopies());
+        String outletId = tickets.get(0).getOutletId();
+        if (config.isPrintByDepartment()) {
+            for (KotTicket ticket : tickets) {
+                submit(outletId, config.getSelectedPrinter(), "KOT " + ticket.getKotNumber() + " " + ticket.getDepartment(),
+                        renderer.renderKot(List.of(ticket), config), copies);
+            }
+        } else {
+            submit(outletId, config.getSelectedPrinter(), "KOT " + tickets.get(0).getKotNumber(),
+                    renderer.renderKot(tickets, config), copies);
+        }
+    }
+    
+    // Prints a bill when auto-print is enabled for its order type
+    public void autoPrintBill(Invoice invoice) {
+        BillConfig config = dataStorage.getBillConfig();
+        boolean takeaway = "takeaway".equals(invoice.getOrderType());
+        if (takeaway ? config.isAutoPrintTakeaway() : config.isAutoPrintDineIn()) {
+            printBill(invoice);
+        }
+    }
+    
+    public boolean printBill(Invoice invoice) {
+        BillConfig config = dataStorage.getBillConfig();
+        if (config.getSelectedPrinter() == null) {
+            return false;
+        }
+        byte[] data = renderer.renderBill(invoice, dataStorage.getRestaurantSettings(), config);
+        return submit(OutletContext.current(), config.getSelectedPrinter(), "Bill " + invoice.getBillNumber(), data, 1);
+    }
+    
+    public boolean submit(String outletId, String printer, String description, byte[] data, int copies) {
+        PrinterQueue queue = queues.computeIfAbsent(new Printer(outletId, printer), PrinterQueue::new);
+        if (!queue.jobs.offer(new PrintJob(description, data, copies))) {
+            queue.rejected.incrementAndGet();
+            log.warn("Print queue for {} of outlet {} is full, rejected {}", printer, outletId, description);
+            return false;
+        }
+        return true;
+    }
+    
+    // Printer names within each outlet id
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        queues.forEach((printer, queue) -> {
+            Map<String, Object> printerStats = new LinkedHashMap<>();
+            printerStats.put("queued", queue.jobs.size());
+            printerStats.put("printed", queue.printed.get());
+            printerStats.put("writes", queue.writes.get());
+            printerStats.put("retries", queue.retries.get());
+            printerStats.put("failed", queue.failed.get());
+            printerStats.put("rejected", queue.rejected.get());
+            stats.computeIfAbsent(printer.outletId(), o -> new TreeMap<>()).put(printer.name(), printerStats);
+        });
+        return stats;
+    }
+    
+    private record Printer(String outletId, String name) {
+    }
+    
+    private record PrintJob(String description, byte[] data, int copies) {
+    }
+    
+    private final class PrinterQueue implements Runnable {
+        private final Printer printer;
+        private final BlockingQueue<PrintJob> jobs = new ArrayBlockingQueue<>(queueCapacity);
+        private final Thread worker;
+        private final AtomicLong printed = new AtomicLong();
+        private final AtomicLong writes = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        
+        PrinterQueue(Printer printer) {
+            this.printer = printer;
+            this.worker = new Thread(this, "print-spooler-" + printer.outletId() + "/" + printer.name());
+            this.worker.setDaemon(true);
+            this.worker.start();
+        }
+        
+        @Override
+        public void run() {
+            List<PrintJob> batch = new ArrayList<>(MAX_JOBS_PER_WRITE);
+            while (running) {
+                try {
+                    batch.add(jobs.take());
+                    jobs.drainTo(batch, MAX_JOBS_PER_WRITE - 1);
+                    writeWithRetry(batch);
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+        
+        private void writeWithRetry(List<PrintJob> batch) throws InterruptedException {
+            // One entry per copy; owners[i] is the batch index of the job entry i belongs to
+            List<byte[]> pending = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (int j = 0; j < batch.size(); j++) {
+                for (int copy = 0; copy < batch.get(j).copies(); copy++) {
+                    pending.add(batch.get(j).data());
+                    owners.add(j);
+                }
+            }
+            
+            long backoff = INITIAL_BACKOFF_MILLIS;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    sink.write(printer.outletId(), printer.name(), pending);
+                    writes.incrementAndGet();
+                    printed.addAndGet(batch.size());
+                    return;
+                } catch (IOException e) {
+                    if (e instanceof PrintSink.PartialWriteException partial) {
+                        pending = new ArrayList<>(pending.subList(partial.getJobsWritten(), pending.size()));
+                        owners = new ArrayList<>(owners.subList(partial.getJobsWritten(), owners.size()));
+                    }
+                    if (attempt >= maxAttempts) {
+                        int unfinished = (int) owners.stream().distinct().count();
+                        printed.addAndGet(batch.size() - unfinished);
+                        failed.addAndGet(unfinished);
+                        log.error("Giving up on {} print jobs for {} of outlet {} after {} attempts: {}",
+                                unfinished, printer.name(), printer.outletId(), attempt, e.getMessage());
+                        return;
+                    }
+                    retries.incrementAndGet();
+                    Thread.sleep(backoff);
+                    backoff *= 2;
+                }
+            }
+        }
+    }
+}
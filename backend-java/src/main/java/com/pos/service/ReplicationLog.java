@@ -0,0 +1,73 @@
+package com.pos.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded in-memory log of encoded replication frames, indexed by sequence number.
+ * Followers that fall further behind than the retained window need a full snapshot.
+ */
+public class ReplicationLog {
+
+    private final long[] seqs;
+    private final byte[][] frames;
+    private final int capacity;
+    private long lastSeq;
+    private int size;
+
+    public ReplicationLog(int capacity) {
+        this.capacity = capacity;
+        this.seqs = new long[capacity];
+        this.frames = new byte[capacity][];
+    }
+
+    // Stores an encoded frame; its single writer (the leader's encoder, or the follower
+    // copying the leader's stream) numbers frames consecutively
+    public synchronized void append(long seq, byte[] frame) {
+        store(seq, frame);
+    }
+
+    // Forgets everything and continues numbering after the given sequence
+    public synchronized void reset(long seq) {
+        lastSeq = seq;
+        size = 0;
+        notifyAll();
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Returns up to max entries after the given sequence, waiting briefly when there are none.
+     * Returns null when the requested position is no longer (or not yet) covered by the log.
+     */
+    public synchronized List<Entry> readAfter(long seq, int max, long waitMillis) throws InterruptedException {
+        if (seq == lastSeq && waitMillis > 0) {
+            wait(waitMillis);
+        }
+        long oldest = lastSeq - size + 1;
+        if (seq > lastSeq || seq + 1 < oldest) {
+            return null;
+        }
+        int count = (int) Math.min(lastSeq - seq, max);
+        List<Entry> entries = new ArrayList<>(count);
+        for (long s = seq + 1; s <= seq + count; s++) {
+            int slot = (int) (s % capacity);
+            entries.add(new Entry(seqs[slot], frames[slot]));
+        }
+        return entries;
+    }
+
+    private void store(long seq, byte[] frame) {
+        int slot = (int) (seq % capacity);
+        seqs[slot] = seq;
+        frames[slot] = frame;
+        lastSeq = seq;
+        size = Math.min(size + 1, capacity);
+        notifyAll();
+    }
+
+    public record Entry(long seq, byte[] frame) {
+    }
+}
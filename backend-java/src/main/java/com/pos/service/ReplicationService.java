@@ -0,0 +1,429 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pos.model.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Leader/follower replication of every outlet's state over TCP.
+ * Outlet stores hand each change to this service inside their own critical sections,
+ * where it is only queued; an encoder thread numbers and encodes the changes in queue
+ * order and appends them to a bounded log, so outlets never serialize on replication.
+ * The leader streams the log to followers in batches without waiting for acknowledgements.
+ * Sequence numbers are only meaningful within one run of the log, so every run has an id:
+ * a follower resumes from its last sequence only when it last followed the same run, and
+ * gets a full snapshot otherwise.
+ * A follower applies the stream to its own DataStorageService, serves reads,
+ * rejects writes and can be promoted to leader.
+ */
+@Service
+public class ReplicationService implements MutationListener {
+    
+    public static final String STANDALONE = "standalone";
+    public static final String LEADER = "leader";
+    public static final String FOLLOWER = "follower";
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicationService.class);
+    
+    private static final String MUTATION = "mutation";
+    private static final String HEARTBEAT = "heartbeat";
+    private static final String SNAPSHOT_BEGIN = "snapshotBegin";
+    private static final String SNAPSHOT_END = "snapshotEnd";
+    private static final int MAX_BATCH = 512;
+    private static final long HEARTBEAT_MILLIS = 1000;
+    private static final long RECONNECT_MILLIS = 1000;
+    
+    private static final Map<String, Class<?>> ENTITY_TYPES = Map.ofEntries(
+            Map.entry(TABLE, Table.class),
+            Map.entry(TABLE_ORDER, TableOrder.class),
+            Map.entry(INVOICE, Invoice.class),
+            Map.entry(MENU_ITEM, MenuItem.class),
+            Map.entry(CATEGORY, Category.class),
+            Map.entry(DEPARTMENT, Department.class),
+            Map.entry(RESTAURANT_SETTINGS, RestaurantSettings.class),
+            Map.entry(KOT_CONFIG, KOTConfig.class),
+            Map.entry(BILL_CONFIG, BillConfig.class),
+            Map.entry(KOT_COUNTER, KOTCounter.class),
+            Map.entry(TAKEAWAY_ORDER, TakeawayOrder.class)
+    );
+    
+    @Autowired
+    private DataStorageService dataStorage;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${pos.replication.role:standalone}")
+    private volatile String role;
+    
+    @Value("${pos.replication.port:9099}")
+    private int port;
+    
+    @Value("${pos.replication.leader-host:127.0.0.1}")
+    private String leaderHost;
+    
+    @Value("${pos.replication.leader-port:9099}")
+    private int leaderPort;
+    
+    @Value("${pos.replication.log-capacity:100000}")
+    private int logCapacity;
+    
+    private ReplicationLog replicationLog;
+    private volatile boolean running;
+    
+    // Id of the log this node's sequence numbers belong to: new on every leader start,
+    // taken over from the leader once a follower has installed its snapshot
+    private volatile String runId = UUID.randomUUID().toString();
+    
+    // Changes not yet encoded, in the order the outlet stores made them
+    private final LinkedTransferQueue<Mutation> pendingMutations = new LinkedTransferQueue<>();
+    private volatile ServerSocket serverSocket;
+    private volatile Socket leaderSocket;
+    private final AtomicInteger connectedFollowers = new AtomicInteger();
+    
+    // Follower progress
+    private volatile boolean connectedToLeader;
+    private volatile long lastAppliedSeq = -1;
+    private volatile long leaderSeq = -1;
+    private volatile long applyDelayMillis;
+    
+    @PostConstruct
+    public void start() {
+        if (STANDALONE.equals(role)) {
+            return;
+        }
+        replicationLog = new ReplicationLog(logCapacity);
+        running = true;
+        startThread("replication-encoder", this::encodeMutations);
+        dataStorage.setMutationListener(this);
+        if (LEADER.equals(role)) {
+            startLeader();
+        } else if (FOLLOWER.equals(role)) {
+            startThread("replication-follower", this::followLeader);
+        } else {
+            throw new IllegalStateException("Unknown replication role: " + role);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        closeQuietly(serverSocket);
+        closeQuietly(leaderSocket);
+    }
+    
+    public boolean isFollower() {
+        return FOLLOWER.equals(role);
+    }
+    
+    public synchronized boolean promote() {
+        if (!FOLLOWER.equals(role)) {
+            return false;
+        }
+        role = LEADER;
+        closeQuietly(leaderSocket);
+        startLeader();
+        log.info("Promoted to replication leader at sequence {}", replicationLog.getLastSeq());
+        return true;
+    }
+    
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", role);
+        if (replicationLog == null) {
+            return status;
+        }
+        status.put("runId", runId);
+        status.put("lastSeq", replicationLog.getLastSeq());
+        if (LEADER.equals(role)) {
+            status.put("port", port);
+            status.put("connectedFollowers", connectedFollowers.get());
+        } else {
+            status.put("leader", leaderHost + ":" + leaderPort);
+            status.put("connected", connectedToLeader);
+            status.put("lastAppliedSeq", lastAppliedSeq);
+            status.put("leaderSeq", leaderSeq);
+            status.put("behindBy", Math.max(0, leaderSeq - lastAppliedSeq));
+            status.put("applyDelayMs", applyDelayMillis);
+        }
+        return status;
+    }
+    
+    // Called by outlet stores inside the critical section of each change, so changes to the
+    // same entity are queued in the order they were made. Values are never modified afterwards
+    @Override
+    public void onMutation(String outletId, String entity, String key, Object value) {
+        pendingMutations.offer(new Mutation(outletId, entity, key, value, System.currentTimeMillis()));
+    }
+    
+    // The only writer of the log while this node leads, so numbering needs no lock
+    private void encodeMutations() {
+        List<Mutation> batch = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            try {
+                Mutation first = pendingMutations.poll(HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pendingMutations.drainTo(batch, MAX_BATCH - 1);
+                for (Mutation mutation : batch) {
+                    byte[] frame;
+                    long seq = replicationLog.getLastSeq() + 1;
+                    try {
+                        frame = encode(MUTATION, seq, mutation.timestamp(),
+                                mutation.outletId(), mutation.entity(), mutation.key(), mutation.value());
+                    } catch (UncheckedIOException e) {
+                        log.error("Cannot encode {} {} of outlet {} for replication", mutation.entity(), mutation.key(), mutation.outletId(), e);
+                        continue;
+                    }
+                    replicationLog.append(seq, frame);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    // Leader side
+    private void startLeader() {
+        try {
+            ServerSocket server = new ServerSocket();
+            server.setReuseAddress(true);
+            server.bind(new InetSocketAddress(port));
+            serverSocket = server;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen for replication followers on port " + port, e);
+        }
+        startThread("replication-accept", () -> {
+            while (running && !serverSocket.isClosed()) {
+                try {
+                    Socket follower = serverSocket.accept();
+                    startThread("replication-sender-" + follower.getRemoteSocketAddress(), () -> serveFollower(follower));
+                } catch (IOException e) {
+                    if (running) {
+                        log.warn("Replication accept failed: {}", e.getMessage());
+                    }
+                }
+            }
+        });
+        log.info("Replication leader listening on port {}", port);
+    }
+    
+    private void serveFollower(Socket socket) {
+        connectedFollowers.incrementAndGet();
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024))) {
+            socket.setTcpNoDelay(true);
+            String followerRunId = in.readUTF();
+            long cursor = in.readLong();
+            String leaderRunId = runId;
+            out.writeUTF(leaderRunId);
+            if (!leaderRunId.equals(followerRunId)) {
+                // Its sequence numbers belong to another run of the log (e.g. before a restart)
+                cursor = -1;
+            }
+            log.info("Follower {} connected at sequence {}", socket.getRemoteSocketAddress(), cursor);
+            
+            while (running && LEADER.equals(role)) {
+                List<ReplicationLog.Entry> batch = cursor < 0 ? null : replicationLog.readAfter(cursor, MAX_BATCH, HEARTBEAT_MILLIS);
+                if (batch == null) {
+                    cursor = sendSnapshot(out);
+                } else if (batch.isEmpty()) {
+                    writeFrame(out, encode(HEARTBEAT, replicationLog.getLastSeq(), System.currentTimeMillis(), null, null, null, null));
+                } else {
+                    for (ReplicationLog.Entry entry : batch) {
+                        writeFrame(out, entry.frame());
+                    }
+                    cursor = batch.get(batch.size() - 1).seq();
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            log.info("Follower {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connectedFollowers.decrementAndGet();
+        }
+    }
+    
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        // Changes made while the snapshot is taken are also in the log after snapshotSeq,
+        // and re-applying newer state on top of it is harmless
+        long snapshotSeq = replicationLog.getLastSeq();
+        writeFrame(out, encode(SNAPSHOT_BEGIN, snapshotSeq, System.currentTimeMillis(), null, null, null, null));
+        for (OutletStore store : dataStorage.getOutlets()) {
+            IOException[] failure = new IOException[1];
+            store.forEachEntity((outletId, entity, key, value) -> {
+                if (failure[0] == null) {
+                    try {
+                        writeFrame(out, encode(MUTATION, snapshotSeq, System.currentTimeMillis(), outletId, entity, key, value));
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        writeFrame(out, encode(SNAPSHOT_END, snapshotSeq, System.currentTimeMillis(), null, null, null, null));
+        return snapshotSeq;
+    }
+    
+    // Follower side
+    private void followLeader() {
+        while (running && FOLLOWER.equals(role)) {
+            try (Socket socket = new Socket(leaderHost, leaderPort);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+                 DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+                leaderSocket = socket;
+                socket.setTcpNoDelay(true);
+                out.writeUTF(runId);
+                out.writeLong(lastAppliedSeq);
+                out.flush();
+                // Adopted only once a snapshot of that run is installed, so a link that drops
+                // before then still asks for the snapshot on the next connection
+                String leaderRunId = in.readUTF();
+                connectedToLeader = true;
+                log.info("Following replication leader {}:{} from sequence {}", leaderHost, leaderPort, lastAppliedSeq);
+                
+                // Outlets of a snapshot in progress, swapped in when it ends; null outside a snapshot
+                Map<String, OutletStore> snapshot = null;
+                while (running && FOLLOWER.equals(role)) {
+                    byte[] frame = new byte[in.readInt()];
+                    in.readFully(frame);
+                    JsonNode node = objectMapper.readTree(frame);
+                    String type = node.get("type").asText();
+                    long seq = node.get("seq").asLong();
+                    switch (type) {
+                        case HEARTBEAT -> leaderSeq = seq;
+                        case SNAPSHOT_BEGIN -> {
+                            // If the link drops before the end, the next connection asks for a new snapshot
+                            lastAppliedSeq = -1;
+                            snapshot = new HashMap<>();
+                        }
+                        case SNAPSHOT_END -> {
+                            if (snapshot == null) {
+                                throw new IOException("Snapshot end without a snapshot");
+                            }
+                            dataStorage.replaceWithSnapshot(snapshot);
+                            snapshot = null;
+                            replicationLog.reset(seq);
+                            runId = leaderRunId;
+                            lastAppliedSeq = seq;
+                            leaderSeq = Math.max(leaderSeq, seq);
+                        }
+                        case MUTATION -> {
+                            if (snapshot != null) {
+                                apply(node, snapshot.computeIfAbsent(node.get("outlet").asText(), dataStorage::newSnapshotStore));
+                            } else {
+                                apply(node, dataStorage.forOutlet(node.get("outlet").asText()));
+                                replicationLog.append(seq, frame);
+                                lastAppliedSeq = seq;
+                                leaderSeq = Math.max(leaderSeq, seq);
+                                applyDelayMillis = Math.max(0, System.currentTimeMillis() - node.get("timestamp").asLong());
+                            }
+                        }
+                        default -> log.warn("Ignoring unknown replication frame type {}", type);
+                    }
+                }
+            } catch (IOException e) {
+                if (running && FOLLOWER.equals(role)) {
+                    log.warn("Replication link to {}:{} lost: {}", leaderHost, leaderPort, e.getMessage());
+                }
+            } finally {
+                connectedToLeader = false;
+            }
+            sleepQuietly(RECONNECT_MILLIS);
+        }
+    }
+    
+    private void apply(JsonNode node, OutletStore store) throws IOException {
+        String entity = node.get("entity").asText();
+        Class<?> type = ENTITY_TYPES.get(entity);
+        if (type == null) {
+            throw new IOException("Unknown replicated entity: " + entity);
+        }
+        JsonNode valueNode = node.get("value");
+        Object value = valueNode == null || valueNode.isNull() ? null : objectMapper.treeToValue(valueNode, type);
+        store.applyReplicated(entity, node.get("key").asText(), value);
+    }
+    
+    // Wire format: 4-byte length followed by a JSON frame
+    private byte[] encode(String type, long seq, long timestamp, String outletId, String entity, String key, Object value) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", type);
+        frame.put("seq", seq);
+        frame.put("timestamp", timestamp);
+        if (entity != null) {
+            frame.put("outlet", outletId);
+            frame.put("entity", entity);
+            frame.put("key", key);
+            frame.put("value", value);
+        }
+        try {
+            return objectMapper.writeValueAsBytes(frame);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private record Mutation(String outletId, String entity, String key, Object value, long timestamp) {
+    }
+    
+    private static void writeFrame(DataOutputStream out, byte[] frame) throws IOException {
+        out.writeInt(frame.length);
+        out.write(frame);
+    }
+    
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Closing to unblock a reader; nothing else to do
+            }
+        }
+    }
+    
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.pos.service;
+
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming best-seller summaries per hour, day and month, overall and per department.
+ * Each window holds two fixed-size Space-Saving sketches (quantity and revenue) and
+ * the number of retained windows is capped, so memory stays bounded no matter how
+ * many invoices are recorded.
+ */
+public class SalesSketches {
+
+    public static final String ALL_DEPARTMENTS = "*";
+
+    private static final int COUNTERS_PER_WINDOW = 64;
+    private static final Map<String, Integer> MAX_WINDOWS = Map.of(
+            "hour", 2048,
+            "day", 4096,
+            "month", 512
+    );
+    private static final Map<String, DateTimeFormatter> PERIOD_FORMATS = Map.of(
+            "hour", DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH"),
+            "day", DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            "month", DateTimeFormatter.ofPattern("yyyy-MM")
+    );
+
+    private final Map<String, Map<String, Window>> windowsByPeriod = new HashMap<>();
+
+    public SalesSketches() {
+        for (Map.Entry<String, Integer> period : MAX_WINDOWS.entrySet()) {
+            int cap = period.getValue();
+            windowsByPeriod.put(period.getKey(), new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                    return size() > cap;
+                }
+            });
+        }
+    }
+
+    public void record(Invoice invoice) {
+        if (invoice.getItems() == null) {
+            return;
+        }
+        LocalDateTime time = invoice.getTimestamp() != null ? invoice.getTimestamp() : LocalDateTime.now();
+        for (Map.Entry<String, DateTimeFormatter> period : PERIOD_FORMATS.entrySet()) {
+            String bucket = time.format(period.getValue());
+            for (OrderItem item : invoice.getItems()) {
+                long revenue = PriceTable.toMinor(item.getPrice()) * item.getQuantity();
+                window(period.getKey(), bucket, ALL_DEPARTMENTS).add(item, revenue);
+                if (item.getDepartment() != null) {
+                    window(period.getKey(), bucket, item.getDepartment()).add(item, revenue);
+                }
+            }
+        }
+    }
+
+    // Returns the top items for one window; an unknown period yields null, an empty window an empty list
+    public List<Map<String, Object>> top(String period, LocalDateTime time, String department, String metric, int limit) {
+        DateTimeFormatter format = PERIOD_FORMATS.get(period);
+        if (format == null) {
+            return null;
+        }
+        Window window = findWindow(period, time.format(format), department != null ? department : ALL_DEPARTMENTS);
+        if (window == null) {
+            return List.of();
+        }
+        boolean revenue = "revenue".equals(metric);
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SpaceSavingSketch.Entry entry : (revenue ? window.revenue : window.quantity).top(limit)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("itemId", entry.key());
+            row.put("name", entry.label());
+            if (revenue) {
+                row.put("revenue", PriceTable.fromMinor(entry.count()));
+                row.put("maxOverestimate", PriceTable.fromMinor(entry.error()));
+            } else {
+                row.put("quantity", entry.count());
+                row.put("maxOverestimate", entry.error());
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    private Window window(String period, String bucket, String department) {
+        Map<String, Window> windows = windowsByPeriod.get(period);
+        synchronized (windows) {
+            return windows.computeIfAbsent(bucket + "|" + department, k -> new Window());
+        }
+    }
+
+    private Window findWindow(String period, String bucket, String department) {
+        Map<String, Window> windows = windowsByPeriod.get(period);
+        synchronized (windows) {
+            return windows.get(bucket + "|" + department);
+        }
+    }
+
+    private static final class Window {
+        private final SpaceSavingSketch quantity = new SpaceSavingSketch(COUNTERS_PER_WINDOW);
+        private final SpaceSavingSketch revenue = new SpaceSavingSketch(COUNTERS_PER_WINDOW);
+
+        void add(OrderItem item, long revenueMinor) {
+            quantity.add(item.getId(), item.getName(), item.getQuantity());
+            revenue.add(item.getId(), item.getName(), revenueMinor);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pos.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Sends raw ESC/POS bytes to a network printer port (JetDirect style, usually 9100). Each printer
+// selected in the KOT and bill configs can have its own address, for one outlet ("outlet/printer")
+// or for every outlet without its own entry ("printer"); others use the default host.
+@Component
+@ConditionalOnProperty(name = "pos.print.sink", havingValue = "socket")
+public class SocketPrintSink implements PrintSink {
+    
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    
+    @Value("${pos.print.socket-host:127.0.0.1}")
+    private String host;
+    
+    @Value("${pos.print.socket-port:9100}")
+    private int port;
+    
+    // "[outlet id/]printer name=host[:port]" entries separated by ';'
+    @Value("${pos.print.socket-printers:}")
+    private String printerSpec;
+    
+    private final Map<String, String> hosts = new HashMap<>();
+    private final Map<String, Integer> ports = new HashMap<>();
+    
+    @PostConstruct
+    void init() {
+        for (String entry : printerSpec.split(";")) {
+            int split = entry.lastIndexOf('=');
+            if (split <= 0) {
+                continue;
+            }
+            String printer = entry.substring(0, split).trim();
+            String address = entry.substring(split + 1).trim();
+            int colon = address.lastIndexOf(':');
+            hosts.put(printer, colon > 0 ? address.substring(0, colon) : address);
+            ports.put(printer, colon > 0 ? Integer.parseInt(address.substring(colon + 1)) : port);
+        }
+    }
+    
+    public InetSocketAddress addressOf(String outletId, String printer) {
+        String key = outletId + "/" + printer;
+        if (!hosts.containsKey(key)) {
+            key = printer;
+        }
+        return new InetSocketAddress(hosts.getOrDefault(key, host), ports.getOrDefault(key, port));
+    }
+    
+    // Jobs are flushed one at a time, so a broken connection is reported after the last whole job
+    @Override
+    public void write(String outletId, String printer, List<byte[]> jobs) throws IOException {
+        int written = 0;
+        try (Socket socket = new Socket()) {
+            socket.connect(addressOf(outletId, printer), CONNECT_TIMEOUT_MILLIS);
+            OutputStream out = socket.getOutputStream();
+            for (byte[] job : jobs) {
+                out.write(job);
+                out.flush();
+                written++;
+            }
+        } catch (IOException e) {
+            if (written > 0) {
+                throw new PartialWriteException(written, e);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.pos.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter summary with a fixed number of counters.
+ * Any item whose true weight exceeds total/capacity is guaranteed to be tracked,
+ * and each reported count over-estimates the true count by at most its error.
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(String key, String label, long weight) {
+        if (key == null || weight <= 0) {
+            return;
+        }
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            counter.label = label;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(key, label, weight, 0));
+            return;
+        }
+        // Replace the smallest counter; its count becomes the newcomer's error bound
+        Counter min = null;
+        for (Counter c : counters.values()) {
+            if (min == null || c.count < min.count) {
+                min = c;
+            }
+        }
+        counters.remove(min.key);
+        counters.put(key, new Counter(key, label, min.count + weight, min.count));
+    }
+
+    public synchronized List<Entry> top(int n) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        for (Counter c : counters.values()) {
+            entries.add(new Entry(c.key, c.label, c.count, c.error));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() > n ? entries.subList(0, Math.max(0, n)) : entries;
+    }
+
+    public record Entry(String key, String label, long count, long error) {
+    }
+
+    private static final class Counter {
+        private final String key;
+        private String label;
+        private long count;
+        private final long error;
+
+        Counter(String key, String label, long count, long error) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
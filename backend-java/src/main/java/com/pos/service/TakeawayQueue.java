@@ -0,0 +1,192 @@
+package com.pos.service;
+
+import com.pos.model.OrderItem;
+import com.pos.model.TakeawayOrder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free queue of takeaway orders moving from placed through preparing and ready
+ * to collected. Each order is an immutable TakeawayOrder held in an AtomicReference;
+ * a status change builds a copy and swaps it in with compareAndSet, so concurrent
+ * terminals never block each other and readers always see a whole order. Collected
+ * orders leave the queue for a fixed-size history ring.
+ */
+public class TakeawayQueue {
+
+    public static final String PLACED = "placed";
+    public static final String PREPARING = "preparing";
+    public static final String READY = "ready";
+    public static final String COLLECTED = "collected";
+    public static final List<String> STATUSES = List.of(PLACED, PREPARING, READY, COLLECTED);
+
+    // Counter tickets are short; numbers cycle 1..999
+    private static final int MAX_ORDER_NUMBER = 999;
+    private static final int DEFAULT_HISTORY_CAPACITY = 1000;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, AtomicReference<TakeawayOrder>> active = new ConcurrentHashMap<>();
+    private final Queue<String> placementOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicReferenceArray<TakeawayOrder> history;
+    private final AtomicLong collectedCount = new AtomicLong();
+
+    private final LatencyHistogram placedToReady = new LatencyHistogram();
+    private final LatencyHistogram readyToCollected = new LatencyHistogram();
+
+    public TakeawayQueue() {
+        this(DEFAULT_HISTORY_CAPACITY);
+    }
+
+    public TakeawayQueue(int historyCapacity) {
+        this.history = new AtomicReferenceArray<>(historyCapacity);
+    }
+
+    public TakeawayOrder place(String customerName, List<OrderItem> items) {
+        long seq = sequence.incrementAndGet();
+        TakeawayOrder order = new TakeawayOrder(String.valueOf(seq), (int) ((seq - 1) % MAX_ORDER_NUMBER) + 1,
+                customerName, items, PLACED, LocalDateTime.now(), null, null, null);
+        active.put(order.id(), new AtomicReference<>(order));
+        placementOrder.add(order.id());
+        return order;
+    }
+
+    /**
+     * Moves an active order forward to the given status, skipping steps if needed.
+     * Returns the updated order, or null if the order is not active or already at or
+     * past that status.
+     */
+    public TakeawayOrder advance(String id, String status) {
+        int target = STATUSES.indexOf(status);
+        AtomicReference<TakeawayOrder> ref = active.get(id);
+        if (ref == null || target < 0) {
+            return null;
+        }
+        while (true) {
+            TakeawayOrder current = ref.get();
+            if (target <= STATUSES.indexOf(current.status())) {
+                return null;
+            }
+            TakeawayOrder next = withStatus(current, status, LocalDateTime.now());
+            if (ref.compareAndSet(current, next)) {
+                if (next.readyAt() != null && current.readyAt() == null) {
+                    placedToReady.record(Duration.between(next.placedAt(), next.readyAt()).toMillis());
+                }
+                if (COLLECTED.equals(status)) {
+                    if (next.readyAt() != null) {
+                        readyToCollected.record(Duration.between(next.readyAt(), next.collectedAt()).toMillis());
+                    }
+                    retire(next);
+                }
+                return next;
+            }
+        }
+    }
+
+    // Applies an order received from a replication leader; statuses never move backwards
+    public void apply(TakeawayOrder order) {
+        sequence.accumulateAndGet(Long.parseLong(order.id()), Math::max);
+        AtomicReference<TakeawayOrder> ref = active.get(order.id());
+        if (ref == null) {
+            if (COLLECTED.equals(order.status())) {
+                return;
+            }
+            ref = active.putIfAbsent(order.id(), new AtomicReference<>(order));
+            if (ref == null) {
+                placementOrder.add(order.id());
+                return;
+            }
+        }
+        while (true) {
+            TakeawayOrder current = ref.get();
+            if (STATUSES.indexOf(order.status()) <= STATUSES.indexOf(current.status())) {
+                return;
+            }
+            if (ref.compareAndSet(current, order)) {
+                if (COLLECTED.equals(order.status())) {
+                    retire(order);
+                }
+                return;
+            }
+        }
+    }
+
+    public TakeawayOrder get(String id) {
+        AtomicReference<TakeawayOrder> ref = active.get(id);
+        return ref != null ? ref.get() : null;
+    }
+
+    // Active orders in the order they were placed, optionally only those with one status
+    public List<TakeawayOrder> active(String status) {
+        List<TakeawayOrder> orders = new ArrayList<>();
+        for (String id : placementOrder) {
+            AtomicReference<TakeawayOrder> ref = active.get(id);
+            if (ref != null) {
+                TakeawayOrder order = ref.get();
+                if (status == null || status.equals(order.status())) {
+                    orders.add(order);
+                }
+            }
+        }
+        return orders;
+    }
+
+    // Most recently collected orders first
+    public List<TakeawayOrder> history(int limit) {
+        long newest = collectedCount.get();
+        int capacity = history.length();
+        List<TakeawayOrder> orders = new ArrayList<>();
+        for (long i = newest - 1; i >= 0 && i >= newest - capacity && orders.size() < limit; i--) {
+            TakeawayOrder order = history.get((int) (i % capacity));
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String status : STATUSES.subList(0, 3)) {
+            counts.put(status, 0);
+        }
+        for (AtomicReference<TakeawayOrder> ref : active.values()) {
+            counts.merge(ref.get().status(), 1, Integer::sum);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active", counts);
+        stats.put("placed", sequence.get());
+        stats.put("collected", collectedCount.get());
+        stats.put("placedToReady", placedToReady.summary());
+        stats.put("readyToCollected", readyToCollected.summary());
+        return stats;
+    }
+
+    private void retire(TakeawayOrder order) {
+        active.remove(order.id());
+        placementOrder.remove(order.id());
+        long slot = collectedCount.getAndIncrement();
+        history.set((int) (slot % history.length()), order);
+    }
+
+    private static TakeawayOrder withStatus(TakeawayOrder order, String status, LocalDateTime now) {
+        // Skipped steps share the timestamp of the step that was reached
+        int target = STATUSES.indexOf(status);
+        LocalDateTime preparingAt = target >= 1 && order.preparingAt() == null ? now : order.preparingAt();
+        LocalDateTime readyAt = target >= 2 && order.readyAt() == null ? now : order.readyAt();
+        LocalDateTime collectedAt = target >= 3 ? now : order.collectedAt();
+        return new TakeawayOrder(order.id(), order.orderNumber(), order.customerName(), order.items(), status,
+                order.placedAt(), preparingAt, readyAt, collectedAt);
+    }
+}
@@ -0,0 +1,235 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pos.model.Invoice;
+import com.pos.model.MenuItem;
+import com.pos.model.OrderItem;
+import com.pos.model.Table;
+import com.pos.model.TableOrder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Optional warm-up before the backend reports ready. Right after a restart the order,
+ * invoice and JSON paths still run interpreted, so the first real orders are slow.
+ * With pos.warmup.enabled the service drives a synthetic workload through the storage,
+ * billing, JSON and Excel code on a scratch outlet, then sends a few order requests to
+ * its own HTTP port for the web stack, and finally throws the scratch outlet away.
+ * The scratch outlet is never replicated, closed or printed, and /ready answers 503
+ * until the warm-up is over.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+    private static final TypeReference<List<OrderItem>> ORDER_ITEMS = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    @Autowired
+    private DataStorageService dataStorage;
+
+    @Autowired
+    private BillingService billingService;
+
+    @Autowired
+    private ExcelService excelService;
+
+    @Autowired
+    private AdmissionControlService admissionControl;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${pos.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${pos.warmup.iterations:5000}")
+    private int iterations;
+
+    @Value("${pos.warmup.http-requests:300}")
+    private int httpRequests;
+
+    private volatile Map<String, Object> lastRun = Map.of("enabled", false);
+
+    @PostConstruct
+    void init() {
+        // Not ready from the moment the web server can take connections
+        admissionControl.setWarmingUp(enabled);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        String outletId = "warmup-" + UUID.randomUUID().toString().substring(0, 8);
+        long started = System.nanoTime();
+        int operations = 0;
+        int requests = 0;
+        try {
+            dataStorage.createScratchOutlet(outletId);
+            OutletContext.set(outletId);
+            try {
+                operations = runWorkload();
+            } finally {
+                OutletContext.clear();
+            }
+            requests = runHttpRequests(outletId);
+        } catch (Exception e) {
+            // A failed warm-up only costs speed, never availability
+            log.warn("Warm-up stopped early: {}", e.toString());
+        } finally {
+            dataStorage.discardScratchOutlet(outletId);
+            excelService.discardExport(outletId);
+            admissionControl.setWarmingUp(false);
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("enabled", true);
+        run.put("operations", operations);
+        run.put("httpRequests", requests);
+        run.put("durationMs", elapsedMillis);
+        lastRun = run;
+        log.info("Warm-up finished in {} ms ({} operations, {} HTTP requests)", elapsedMillis, operations, requests);
+    }
+
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+
+    // The same service calls and JSON types the order, invoice, menu and Excel endpoints use
+    private int runWorkload() throws IOException {
+        List<Table> tables = dataStorage.getAllTables();
+        List<MenuItem> menu = dataStorage.getAllMenuItems();
+        byte[] workbook = excelService.exportMenuData();
+        excelService.generateTemplate();
+        int operations = 0;
+        for (int i = 0; i < iterations; i++) {
+            Table table = tables.get(i % tables.size());
+            Map<String, Object> request = orderRequest(table, menu, i);
+            Map<String, Object> body = objectMapper.readValue(objectMapper.writeValueAsBytes(request), JSON_OBJECT);
+            List<OrderItem> items = objectMapper.convertValue(body.get("items"), ORDER_ITEMS);
+            TableOrder order = dataStorage.createOrUpdateTableOrder(table.getId(), table.getName(), items);
+            objectMapper.writeValueAsBytes(order);
+            operations++;
+
+            if (i % 2 == 0) {
+                List<OrderItem> newlySent = new ArrayList<>();
+                objectMapper.writeValueAsBytes(dataStorage.markItemsAsSent(table.getId(), newlySent));
+                dataStorage.getNextKOTNumber();
+                operations += 2;
+            }
+            if (i % 4 == 3) {
+                objectMapper.writeValueAsBytes(billingService.previewTableBill(table.getId()));
+                Invoice invoice = billingService.createTableInvoice(table.getId());
+                objectMapper.readValue(objectMapper.writeValueAsBytes(invoice), Invoice.class);
+                operations += 2;
+            }
+            if (i % 8 == 5) {
+                Invoice takeaway = new Invoice();
+                takeaway.setOrderType("takeaway");
+                takeaway.setItems(items);
+                Invoice posted = objectMapper.readValue(objectMapper.writeValueAsBytes(takeaway), Invoice.class);
+                objectMapper.writeValueAsBytes(dataStorage.createInvoice(billingService.priceInvoice(posted)));
+                operations++;
+            }
+            if (i % 16 == 0) {
+                objectMapper.writeValueAsBytes(dataStorage.getAllTables());
+                objectMapper.writeValueAsBytes(dataStorage.getAllMenuItems());
+                objectMapper.writeValueAsBytes(dataStorage.getAllTableOrders());
+                objectMapper.writeValueAsBytes(dataStorage.filterInvoices(null, table.getName(), LocalDate.now(), null, null).page(0, 50));
+                objectMapper.writeValueAsBytes(dataStorage.getTopSellingItems("day", LocalDateTime.now(), null, "quantity", 10));
+                objectMapper.writeValueAsBytes(dataStorage.searchMenuItems(menu.get(i % menu.size()).getName().substring(0, 4), 10));
+                operations += 6;
+            }
+            if (i % 250 == 0) {
+                // A price change makes the next export a rebuild rather than a cache hit
+                MenuItem item = menu.get(i % menu.size());
+                dataStorage.updateMenuItem(item.getId(), new MenuItem(item.getId(), item.getName(), item.getProductCode(),
+                        item.getPrice() + 1, item.getCategory(), item.getDepartment(), item.getDescription()));
+                excelService.exportMenuData();
+                excelService.importMenuData(new ByteArrayInputStream(workbook), workbook.length);
+                operations += 3;
+            }
+        }
+        return operations;
+    }
+
+    private static Map<String, Object> orderRequest(Table table, List<MenuItem> menu, int i) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int line = 0; line <= i % 3; line++) {
+            MenuItem item = menu.get((i + line) % menu.size());
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("id", item.getId());
+            data.put("name", item.getName());
+            data.put("price", item.getPrice());
+            data.put("category", item.getCategory());
+            data.put("department", item.getDepartment());
+            data.put("quantity", 1 + line);
+            items.add(data);
+        }
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("table_name", table.getName());
+        request.put("items", items);
+        return request;
+    }
+
+    // Order requests against the scratch outlet, for the filters, dispatcher and message converters
+    private int runHttpRequests(String outletId) throws IOException, InterruptedException {
+        String port = environment.getProperty("local.server.port");
+        if (port == null || httpRequests <= 0) {
+            return 0;
+        }
+        String base = "http://127.0.0.1:" + port + "/api/orders/table/table1";
+        byte[] body = objectMapper.writeValueAsBytes(orderRequest(new Table("table1", "Table 1", 4, "Indoor", "available"),
+                dataStorage.forOutlet(outletId).getAllMenuItems(), 2));
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        int sent = 0;
+        while (sent < httpRequests) {
+            HttpRequest.Builder request = switch (sent % 4) {
+                case 0 -> HttpRequest.newBuilder(URI.create(base))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+                case 1 -> HttpRequest.newBuilder(URI.create(base)).GET();
+                case 2 -> HttpRequest.newBuilder(URI.create(base + "/bill")).GET();
+                default -> HttpRequest.newBuilder(URI.create(base + "/complete"))
+                        .POST(HttpRequest.BodyPublishers.noBody());
+            };
+            client.send(request.header("X-Outlet-Id", outletId)
+                    .header("X-Terminal-Id", outletId)
+                    .timeout(Duration.ofSeconds(5))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+            sent++;
+        }
+        return sent;
+    }
+}
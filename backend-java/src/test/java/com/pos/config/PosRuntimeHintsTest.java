@@ -0,0 +1,38 @@
+package com.pos.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.util.ClassUtils;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PosRuntimeHintsTest {
+
+    @Test
+    void everyModelIsRegisteredForReflection() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new PosRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            // Nested, abstract and record types count too
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition definition) {
+                return true;
+            }
+        };
+        scanner.addIncludeFilter((reader, factory) -> true);
+        Set<BeanDefinition> models = scanner.findCandidateComponents("com.pos.model");
+        assertFalse(models.isEmpty());
+        for (BeanDefinition model : models) {
+            Class<?> type = ClassUtils.forName(model.getBeanClassName(), getClass().getClassLoader());
+            assertTrue(RuntimeHintsPredicates.reflection().onType(type).test(hints), type + " has no reflection hint");
+        }
+    }
+}
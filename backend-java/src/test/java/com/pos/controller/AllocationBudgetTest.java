@@ -0,0 +1,162 @@
+package com.pos.controller;
+
+import com.pos.config.OutletFilter;
+import com.pos.service.AllocationTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Allocation budgets for the hot order, invoice and menu endpoints. Each request runs
+ * in-process through MockMvc on the test thread, and the bytes that thread allocates
+ * for it are read from ThreadMXBean, so they include the filters, message converters
+ * and MockMvc itself. After a warm-up, every measured request must stay within the
+ * route's budget from pos.alloc.budgets. MockMvc's request printing is off, since it
+ * buffers every exchange on the test thread.
+ *
+ * Each run appends p50, p99 and max per route to target/allocation-history.csv, or to
+ * the file named by -Dpos.alloc.report, so the numbers can be followed over time.
+ */
+@SpringBootTest(properties = {
+        "pos.admission.per-client-heavy-per-minute=1000000",
+        "pos.print.dir=target/print-spool",
+        "pos.eod.dir=target/daily-summaries"
+})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class AllocationBudgetTest {
+
+    private static final String OUTLET = "alloc-budget";
+    private static final int WARMUP_ROUNDS = 300;
+    private static final int MEASURED_ROUNDS = 200;
+
+    private static final String ORDER = """
+            {"table_name": "Table 1", "items": [
+              {"id": "item1", "name": "Chicken Burger", "price": 299.0, "category": "Mains", "department": "Kitchen", "quantity": 2},
+              {"id": "item3", "name": "Coca Cola", "price": 99.0, "category": "Beverages", "department": "Bar", "quantity": 1}]}
+            """;
+    private static final String TAKEAWAY_INVOICE = """
+            {"orderType": "takeaway", "customerName": "Walk-in", "items": [
+              {"id": "item2", "name": "French Fries", "price": 149.0, "category": "Appetizers", "department": "Kitchen", "quantity": 1}]}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AllocationTracker allocationTracker;
+
+    private final Map<String, List<Long>> samples = new LinkedHashMap<>();
+
+    @Test
+    void hotEndpointsStayWithinAllocationBudgets() throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(round, false);
+        }
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            runRound(WARMUP_ROUNDS + round, true);
+        }
+
+        List<String> report = new ArrayList<>();
+        List<String> overBudget = new ArrayList<>();
+        String runAt = LocalDateTime.now().withNano(0).toString();
+        samples.forEach((endpoint, bytes) -> {
+            long[] sorted = bytes.stream().mapToLong(Long::longValue).sorted().toArray();
+            long p50 = sorted[sorted.length / 2];
+            long p99 = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+            long max = sorted[sorted.length - 1];
+            Long budget = allocationTracker.getBudget(endpoint);
+            report.add(String.join(",", runAt, endpoint, String.valueOf(p50), String.valueOf(p99),
+                    String.valueOf(max), String.valueOf(budget)));
+            System.out.printf("%-42s p50 %8d  p99 %8d  max %8d  budget %8s%n", endpoint, p50, p99, max, budget);
+            if (budget == null) {
+                overBudget.add(endpoint + " has no budget in pos.alloc.budgets");
+            } else if (max > budget) {
+                overBudget.add(endpoint + " allocated " + max + " bytes, budget " + budget);
+            }
+        });
+        appendReport(report);
+
+        if (!overBudget.isEmpty()) {
+            fail("Allocation budgets exceeded:\n" + String.join("\n", overBudget));
+        }
+    }
+
+    // One pass over the order, billing and menu endpoints, the way a till uses them
+    private void runRound(int round, boolean measure) throws Exception {
+        call(measure, "POST /api/orders/table/{tableId}", json(post("/api/orders/table/table1"), ORDER));
+        call(measure, "GET /api/orders/table/{tableId}", get("/api/orders/table/table1"));
+        call(measure, "GET /api/orders/table/{tableId}/bill", get("/api/orders/table/table1/bill"));
+        call(measure, "POST /api/orders/table/{tableId}/sent", post("/api/orders/table/table1/sent"));
+        call(measure, "GET /api/orders", get("/api/orders"));
+        call(measure, "POST /api/invoices/table/{tableId}", post("/api/invoices/table/table1"));
+
+        call(false, null, json(post("/api/orders/table/table2"), ORDER));
+        call(measure, "POST /api/orders/table/{tableId}/complete", post("/api/orders/table/table2/complete"));
+
+        call(measure, "POST /api/invoices", json(post("/api/invoices"), TAKEAWAY_INVOICE));
+        call(measure, "GET /api/invoices", get("/api/invoices").param("limit", "50"));
+
+        call(measure, "GET /api/menu-items", get("/api/menu-items"));
+        call(measure, "GET /api/menu-items/search", get("/api/menu-items/search").param("q", "chick"));
+        String itemId = "budget-" + round;
+        String item = """
+                {"id": "%s", "name": "Budget Item %d", "productCode": "BG%d", "price": 120.0,
+                 "category": "Mains", "department": "Kitchen", "description": "allocation budget test"}
+                """.formatted(itemId, round, round);
+        call(measure, "POST /api/menu-items", json(post("/api/menu-items"), item));
+        call(measure, "PUT /api/menu-items/{itemId}", json(put("/api/menu-items/" + itemId), item));
+        call(measure, "DELETE /api/menu-items/{itemId}", delete("/api/menu-items/" + itemId));
+    }
+
+    private void call(boolean measure, String endpoint, MockHttpServletRequestBuilder request) throws Exception {
+        RequestBuilder built = request.header(OutletFilter.OUTLET_HEADER, OUTLET);
+        long before = allocationTracker.currentThreadAllocatedBytes();
+        MvcResult result = mockMvc.perform(built).andReturn();
+        long allocated = allocationTracker.currentThreadAllocatedBytes() - before;
+        int status = result.getResponse().getStatus();
+        assertTrue(status >= 200 && status < 300, () -> endpoint + " answered " + status);
+        if (measure) {
+            samples.computeIfAbsent(endpoint, key -> new ArrayList<>()).add(allocated);
+        }
+    }
+
+    private static MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, String body) {
+        return request.contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+
+    private static void appendReport(List<String> lines) throws IOException {
+        Path file = Paths.get(System.getProperty("pos.alloc.report", "target/allocation-history.csv"));
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        if (!Files.exists(file)) {
+            Files.write(file, List.of("run,endpoint,p50Bytes,p99Bytes,maxBytes,budgetBytes"));
+        }
+        Files.write(file, lines, StandardOpenOption.APPEND);
+    }
+}
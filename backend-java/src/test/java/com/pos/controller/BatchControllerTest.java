@@ -0,0 +1,243 @@
+package com.pos.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pos.config.AdmissionFilter;
+import com.pos.config.OutletFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/batch through MockMvc. Each test uses its own outlet, so they start from the
+ * sample data and do not see each other's writes. The heavy-read allowance is two per
+ * minute so a batch can run out of it.
+ */
+@SpringBootTest(properties = {
+        "pos.admission.per-client-heavy-per-minute=2",
+        "pos.print.dir=target/print-spool",
+        "pos.eod.dir=target/daily-summaries"
+})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class BatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BatchController batchController;
+
+    @Test
+    void routesPathsToTheControllers() throws Exception {
+        JsonNode responses = batch("routes",
+                get("tables", "/api/tables?fields=id"),
+                get("items", "/api/menu-items?limit=2"),
+                get("bill", "/api/orders/table/table1/bill"),
+                get("takeaway", "/api/takeaway/orders/12345"),
+                get("kot", "/api/config/kot")).get("responses");
+
+        assertEquals(List.of("tables", "items", "bill", "takeaway", "kot"), ids(responses));
+        JsonNode tables = responses.get(0);
+        assertEquals(200, tables.get("status").asInt());
+        assertEquals(3, tables.get("body").size());
+        assertEquals(List.of("id"), fieldNames(tables.get("body").get(0)));
+        assertEquals("3", tables.get("headers").get(ListResponses.TOTAL_COUNT_HEADER).asText());
+
+        JsonNode items = responses.get(1);
+        assertEquals(2, items.get("body").size());
+        assertEquals("3", items.get("headers").get(ListResponses.TOTAL_COUNT_HEADER).asText());
+        assertTrue(items.get("headers").has(ListResponses.NEXT_CURSOR_HEADER));
+
+        // Path variables reach the handler: no open order on table1, no such takeaway order
+        assertEquals(404, responses.get(2).get("status").asInt());
+        assertEquals(404, responses.get(3).get("status").asInt());
+        assertEquals(200, responses.get(4).get("status").asInt());
+    }
+
+    @Test
+    void rejectedSubRequestsGetTheirOwnStatus() throws Exception {
+        JsonNode responses = batch("errors",
+                Map.of("id", "post", "method", "POST", "path", "/api/tables"),
+                get("unknown", "/api/unknown"),
+                get("outside", "/actuator/health"),
+                get("number", "/api/menu-items?limit=ten"),
+                get("date", "/api/invoices?from=yesterday"),
+                get("ok", "/api/categories")).get("responses");
+
+        assertEquals(405, responses.get(0).get("status").asInt());
+        assertEquals(404, responses.get(1).get("status").asInt());
+        assertEquals(400, responses.get(2).get("status").asInt());
+        assertEquals(400, responses.get(3).get("status").asInt());
+        assertEquals(400, responses.get(4).get("status").asInt());
+        assertEquals(200, responses.get(5).get("status").asInt());
+
+        mockMvc.perform(post("/api/batch").contentType(MediaType.APPLICATION_JSON).content("{\"requests\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void queryParametersAreUrlDecoded() throws Exception {
+        JsonNode responses = batch("decoding",
+                get("encoded", "/api/menu-items/search?q=coca%20cola"),
+                get("plus", "/api/menu-items/search?q=French+Fries&fields=name"),
+                get("missing", "/api/menu-items/search")).get("responses");
+
+        assertEquals("Coca Cola", responses.get(0).get("body").get(0).get("name").asText());
+        assertEquals(1, responses.get(0).get("body").size());
+        assertEquals("French Fries", responses.get(1).get("body").get(0).get("name").asText());
+        assertEquals(List.of("name"), fieldNames(responses.get(1).get("body").get(0)));
+        assertEquals(400, responses.get(2).get("status").asInt());
+    }
+
+    @Test
+    void heavyReadsInsideABatchAreAdmittedOneByOne() throws Exception {
+        JsonNode responses = batch("admission",
+                get("a", "/api/invoices"),
+                get("b", "/api/invoices"),
+                get("c", "/api/invoices"),
+                get("menu", "/api/menu-items")).get("responses");
+
+        List<Integer> invoiceStatuses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            invoiceStatuses.add(responses.get(i).get("status").asInt());
+        }
+        invoiceStatuses.sort(null);
+        assertEquals(List.of(200, 200, 429), invoiceStatuses);
+        assertEquals(200, responses.get(3).get("status").asInt());
+    }
+
+    @Test
+    void unfinishedSubRequestsTimeOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService stalled = stalledExecutor(new CountDownLatch(1), release);
+        ExecutorService executor = swapExecutor(stalled, 100L);
+        try {
+            JsonNode responses = batch("timeout", get("tables", "/api/tables"), get("kot", "/api/config/kot"))
+                    .get("responses");
+            assertEquals(List.of("tables", "kot"), ids(responses));
+            assertEquals(504, responses.get(0).get("status").asInt());
+            assertEquals(504, responses.get(1).get("status").asInt());
+        } finally {
+            release.countDown();
+            swapExecutor(executor, 5000L);
+            stalled.shutdown();
+        }
+    }
+
+    @Test
+    void everySubRequestReadsThePinnedCatalog() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService stalled = stalledExecutor(started, release);
+        ExecutorService executor = swapExecutor(stalled, 5000L);
+        try {
+            CompletableFuture<JsonNode> pending = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return batch("pinned", get("items", "/api/menu-items"), get("categories", "/api/categories"),
+                            get("item", "/api/menu-items/search?q=lassi"));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            // The batch has taken its snapshot once a sub-request is running
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            mockMvc.perform(post("/api/menu-items").header(OutletFilter.OUTLET_HEADER, "pinned")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\": \"Mango Lassi\", \"productCode\": \"ML001\", \"price\": 120.0,"
+                                    + " \"category\": \"Beverages\", \"department\": \"Bar\"}"))
+                    .andExpect(status().isCreated());
+            mockMvc.perform(post("/api/categories").header(OutletFilter.OUTLET_HEADER, "pinned")
+                            .contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"Specials\"}"))
+                    .andExpect(status().isCreated());
+            release.countDown();
+
+            JsonNode body = pending.get(10, TimeUnit.SECONDS);
+            JsonNode responses = body.get("responses");
+            assertEquals(3, responses.get(0).get("body").size());
+            assertEquals(4, responses.get(1).get("body").size());
+            assertEquals(0, responses.get(2).get("body").size());
+
+            JsonNode after = batch("pinned", get("items", "/api/menu-items"));
+            assertTrue(after.get("catalogVersion").asLong() > body.get("catalogVersion").asLong());
+            assertEquals(4, after.get("responses").get(0).get("body").size());
+        } finally {
+            release.countDown();
+            swapExecutor(executor, 5000L);
+            stalled.shutdown();
+        }
+    }
+
+    private JsonNode batch(String outlet, Map<?, ?>... requests) throws Exception {
+        String response = mockMvc.perform(post("/api/batch")
+                        .header(OutletFilter.OUTLET_HEADER, outlet)
+                        .header(AdmissionFilter.TERMINAL_HEADER, outlet + "-terminal")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("requests", List.of(requests)))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private static Map<String, String> get(String id, String path) {
+        return Map.of("id", id, "method", "GET", "path", path);
+    }
+
+    private static List<String> ids(JsonNode responses) {
+        List<String> ids = new ArrayList<>();
+        responses.forEach(response -> ids.add(response.get("id").asText()));
+        return ids;
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    // Runs sub-requests only once released, signalling when the first one is picked up
+    private static ExecutorService stalledExecutor(CountDownLatch started, CountDownLatch release) {
+        BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        return new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, queue) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable task) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    thread.interrupt();
+                }
+            }
+        };
+    }
+
+    private ExecutorService swapExecutor(ExecutorService executor, long timeoutMillis) {
+        ExecutorService previous = (ExecutorService) ReflectionTestUtils.getField(batchController, "executor");
+        ReflectionTestUtils.setField(batchController, "executor", executor);
+        ReflectionTestUtils.setField(batchController, "timeoutMillis", timeoutMillis);
+        return previous;
+    }
+}
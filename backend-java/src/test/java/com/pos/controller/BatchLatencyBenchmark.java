@@ -0,0 +1,239 @@
+package com.pos.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Page-load latency of the GETs a screen makes on open, fetched one after another on
+ * one connection, in parallel on up to six connections (as a browser does), and as one
+ * POST /api/batch. Requests go through a local proxy that delays every byte by half
+ * the round-trip time in each direction and adds one round trip per new connection.
+ * Prints the median of 15 loads per page and round-trip time. Not part of the default
+ * test run; start it with mvn test -Dtest=BatchLatencyBenchmark.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "pos.admission.per-client-heavy-per-minute=1000000",
+        "pos.print.dir=target/print-spool",
+        "pos.eod.dir=target/daily-summaries"
+})
+class BatchLatencyBenchmark {
+
+    private static final int LOADS = 15;
+    private static final int MAX_CONNECTIONS = 6;
+    private static final Map<String, List<String>> PAGES = Map.of(
+            "DineIn", List.of("/api/tables", "/api/menu-items"),
+            "Dashboard", List.of("/api/invoices?limit=50", "/api/orders/history/stats"),
+            "Settings", List.of("/api/restaurant-settings", "/api/config/kot", "/api/config/bill",
+                    "/api/categories", "/api/departments"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void pageLoadBySequentialParallelAndBatch() throws Exception {
+        System.out.printf("%-6s %-14s %12s %16s %8s%n", "RTT", "page (GETs)", "sequential", "parallel conns", "batch");
+        for (int rttMillis : new int[] {50, 150}) {
+            try (LatencyProxy proxy = new LatencyProxy(port, rttMillis)) {
+                String base = "http://localhost:" + proxy.port();
+                for (String page : List.of("DineIn", "Dashboard", "Settings")) {
+                    List<String> paths = PAGES.get(page);
+                    double sequential = median(() -> sequential(base, paths));
+                    double parallel = median(() -> parallel(base, paths));
+                    double batch = median(() -> batch(base, paths));
+                    System.out.printf("%-6s %-14s %9.0f ms %13.0f ms %5.0f ms%n", rttMillis + "ms",
+                            page + " (" + paths.size() + ")", sequential, parallel, batch);
+                }
+            }
+        }
+    }
+
+    private void sequential(String base, List<String> paths) throws Exception {
+        try (HttpClient client = client()) {
+            for (String path : paths) {
+                assertOk(client.send(get(base + path), HttpResponse.BodyHandlers.ofByteArray()));
+            }
+        }
+    }
+
+    private void parallel(String base, List<String> paths) throws Exception {
+        Semaphore connections = new Semaphore(MAX_CONNECTIONS);
+        List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+        for (String path : paths) {
+            connections.acquire();
+            HttpClient client = client();
+            responses.add(client.sendAsync(get(base + path), HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, error) -> {
+                        client.close();
+                        connections.release();
+                    }));
+        }
+        for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+            assertOk(response.get());
+        }
+    }
+
+    private void batch(String base, List<String> paths) throws Exception {
+        List<Map<String, String>> requests = new ArrayList<>();
+        for (String path : paths) {
+            requests.add(Map.of("id", path, "method", "GET", "path", path));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(Map.of("requests", requests))))
+                .build();
+        try (HttpClient client = client()) {
+            assertOk(client.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+        }
+    }
+
+    private static double median(Load load) throws Exception {
+        // One unmeasured load warms up the server path and the JDK client
+        load.run();
+        double[] millis = new double[LOADS];
+        for (int i = 0; i < LOADS; i++) {
+            long start = System.nanoTime();
+            load.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[LOADS / 2];
+    }
+
+    // A fresh client has no pooled connection, so every load pays for its own connections
+    private static HttpClient client() {
+        return HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static void assertOk(HttpResponse<?> response) {
+        assertEquals(200, response.statusCode(), response.uri().toString());
+    }
+
+    private interface Load {
+        void run() throws Exception;
+    }
+
+    /**
+     * Forwards connections to the server, holding every chunk until half a round trip
+     * after it was read, and holding new connections for a full round trip before the
+     * first byte is forwarded.
+     */
+    private static final class LatencyProxy implements AutoCloseable {
+        private final ServerSocket server;
+        private final int targetPort;
+        private final long halfRttNanos;
+
+        LatencyProxy(int targetPort, int rttMillis) throws IOException {
+            this.server = new ServerSocket(0);
+            this.targetPort = targetPort;
+            this.halfRttNanos = TimeUnit.MILLISECONDS.toNanos(rttMillis) / 2;
+            Thread.ofVirtual().start(this::accept);
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket client = server.accept();
+                    Thread.ofVirtual().start(() -> connect(client));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void connect(Socket client) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(2 * halfRttNanos);
+                Socket upstream = new Socket("localhost", targetPort);
+                client.setTcpNoDelay(true);
+                upstream.setTcpNoDelay(true);
+                Thread.ofVirtual().start(() -> pump(client, upstream));
+                pump(upstream, client);
+            } catch (IOException | InterruptedException e) {
+                close(client);
+            }
+        }
+
+        // Reads as fast as the sender writes and delivers each chunk half a round trip after
+        // it was read, so back-to-back chunks are delayed once, as on a real link
+        private void pump(Socket from, Socket to) {
+            BlockingQueue<Chunk> inFlight = new LinkedBlockingQueue<>();
+            Thread.ofVirtual().start(() -> deliver(inFlight, from, to));
+            try (InputStream in = from.getInputStream()) {
+                byte[] buffer = new byte[16384];
+                for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                    inFlight.add(new Chunk(System.nanoTime() + halfRttNanos, Arrays.copyOf(buffer, read)));
+                }
+            } catch (IOException e) {
+                // The other side went away
+            } finally {
+                inFlight.add(Chunk.END);
+            }
+        }
+
+        private static void deliver(BlockingQueue<Chunk> inFlight, Socket from, Socket to) {
+            try (OutputStream out = to.getOutputStream()) {
+                for (Chunk chunk = inFlight.take(); chunk != Chunk.END; chunk = inFlight.take()) {
+                    TimeUnit.NANOSECONDS.sleep(chunk.deliverAt() - System.nanoTime());
+                    out.write(chunk.bytes());
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // The other side went away
+            } finally {
+                close(from);
+                close(to);
+            }
+        }
+
+        private record Chunk(long deliverAt, byte[] bytes) {
+            static final Chunk END = new Chunk(0, new byte[0]);
+        }
+
+        private static void close(Socket socket) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
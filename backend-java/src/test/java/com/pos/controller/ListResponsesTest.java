@@ -0,0 +1,153 @@
+package com.pos.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pos.config.OutletFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * fields= projection and limit/cursor paging of the list endpoints, through MockMvc on
+ * an outlet of their own that starts from the sample data.
+ */
+@SpringBootTest(properties = {
+        "pos.admission.per-client-heavy-per-minute=1000000",
+        "pos.print.dir=target/print-spool",
+        "pos.eod.dir=target/daily-summaries"
+})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class ListResponsesTest {
+
+    private static final String OUTLET = "list-responses";
+    private static final String ORDER = """
+            {"table_name": "%s", "items": [
+              {"id": "item1", "name": "Chicken Burger", "price": 299.0, "category": "Mains", "department": "Kitchen", "quantity": 2},
+              {"id": "item3", "name": "Coca Cola", "price": 99.0, "category": "Beverages", "department": "Bar", "quantity": 1}]}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void openOrders() throws Exception {
+        for (String table : List.of("table1", "table2")) {
+            mockMvc.perform(post("/api/orders/table/" + table).header(OutletFilter.OUTLET_HEADER, OUTLET)
+                            .contentType(MediaType.APPLICATION_JSON).content(ORDER.formatted(table)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void fieldsKeepOnlyTheNamedProperties() throws Exception {
+        JsonNode full = body(list("/api/orders"));
+        assertTrue(full.get(0).has("tableName"));
+        assertTrue(full.get(0).get("items").get(0).has("price"));
+
+        JsonNode projected = body(list("/api/orders?fields=id,items.name"));
+        assertEquals(full.size(), projected.size());
+        for (JsonNode order : projected) {
+            assertEquals(List.of("id", "items"), fieldNames(order));
+            assertEquals(2, order.get("items").size());
+            for (JsonNode item : order.get("items")) {
+                assertEquals(List.of("name"), fieldNames(item));
+            }
+        }
+        assertEquals("Chicken Burger", projected.get(0).get("items").get(0).get("name").asText());
+
+        // A selected parent keeps everything beneath it
+        JsonNode parent = body(list("/api/orders?fields=items"));
+        assertEquals(List.of("items"), fieldNames(parent.get(0)));
+        assertTrue(parent.get(0).get("items").get(0).has("price"));
+    }
+
+    @Test
+    void pagesFollowTheNextCursorHeader() throws Exception {
+        List<String> all = ids(body(list("/api/menu-items")));
+        assertEquals(3, all.size());
+
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletResponse page = list("/api/menu-items?fields=id&limit=2" + (cursor != null ? "&cursor=" + cursor : ""));
+            assertEquals("3", page.getHeader(ListResponses.TOTAL_COUNT_HEADER));
+            paged.addAll(ids(body(page)));
+            cursor = page.getHeader(ListResponses.NEXT_CURSOR_HEADER);
+            pages++;
+        } while (cursor != null);
+        assertEquals(2, pages);
+        assertEquals(all, paged);
+
+        // Without a limit the whole list comes back and there is no next page
+        MockHttpServletResponse whole = list("/api/menu-items");
+        assertEquals("3", whole.getHeader(ListResponses.TOTAL_COUNT_HEADER));
+        assertNull(whole.getHeader(ListResponses.NEXT_CURSOR_HEADER));
+
+        // A cursor past the end gives an empty page
+        MockHttpServletResponse past = list("/api/menu-items?cursor=" + cursor("o:99"));
+        assertEquals(0, body(past).size());
+        assertNull(past.getHeader(ListResponses.NEXT_CURSOR_HEADER));
+        assertNotNull(past.getHeader(ListResponses.TOTAL_COUNT_HEADER));
+    }
+
+    @Test
+    void badCursorsAndLimitsAreRefused() throws Exception {
+        for (String query : List.of("cursor=not*base64", "cursor=" + cursor("x:1"), "cursor=" + cursor("o:-1"),
+                "cursor=" + cursor("o:one"), "limit=0")) {
+            MockHttpServletResponse response = mockMvc.perform(get("/api/orders?" + query)
+                            .header(OutletFilter.OUTLET_HEADER, OUTLET))
+                    .andExpect(status().isBadRequest())
+                    .andReturn().getResponse();
+            assertTrue(body(response).has("error"), query);
+        }
+    }
+
+    private MockHttpServletResponse list(String path) throws Exception {
+        return mockMvc.perform(get(path).header(OutletFilter.OUTLET_HEADER, OUTLET))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private JsonNode body(MockHttpServletResponse response) throws Exception {
+        return objectMapper.readTree(response.getContentAsString());
+    }
+
+    private static String cursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> ids(JsonNode items) {
+        List<String> ids = new ArrayList<>();
+        items.forEach(item -> ids.add(item.get("id").asText()));
+        return ids;
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
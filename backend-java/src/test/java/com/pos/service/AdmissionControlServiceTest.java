@@ -0,0 +1,75 @@
+package com.pos.service;
+
+import com.pos.service.AdmissionControlService.RequestClass;
+import com.pos.service.AdmissionControlService.Ticket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AdmissionControlServiceTest {
+
+    private final AdmissionControlService admission = new AdmissionControlService();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(admission, "maxConcurrent", 4);
+        ReflectionTestUtils.setField(admission, "orderReserved", 2);
+        ReflectionTestUtils.setField(admission, "orderWaitMillis", 10L);
+        ReflectionTestUtils.setField(admission, "heavyConcurrent", 1);
+        ReflectionTestUtils.setField(admission, "heavyQueue", 0);
+        ReflectionTestUtils.setField(admission, "heavyWaitMillis", 10L);
+        ReflectionTestUtils.setField(admission, "perClientMax", 16);
+        ReflectionTestUtils.setField(admission, "perClientHeavyPerMinute", 2);
+        ReflectionTestUtils.invokeMethod(admission, "init");
+    }
+
+    @Test
+    void invoiceWritesTakeTheOrderPath() {
+        assertEquals(RequestClass.ORDER_WRITE, AdmissionControlService.classify("POST", "/api/invoices"));
+        assertEquals(RequestClass.ORDER_WRITE, AdmissionControlService.classify("POST", "/api/invoices/table/table1"));
+        assertEquals(RequestClass.ORDER_WRITE, AdmissionControlService.classify("POST", "/api/orders/table/table1/sent"));
+        assertEquals(RequestClass.HEAVY_READ, AdmissionControlService.classify("GET", "/api/invoices"));
+        assertEquals(RequestClass.STANDARD, AdmissionControlService.classify("GET", "/api/invoices/123"));
+        assertEquals(RequestClass.STANDARD, AdmissionControlService.classify("PUT", "/api/menu-items/item1"));
+    }
+
+    @Test
+    void orderWritesUseReservedSlotsWhenSharedAreGone() throws Exception {
+        List<Ticket> standard = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            standard.add(admission.tryAdmit(RequestClass.STANDARD, "terminal-" + i));
+        }
+        assertNull(admission.tryAdmit(RequestClass.STANDARD, "terminal-x"));
+
+        Ticket invoice = admission.tryAdmit(AdmissionControlService.classify("POST", "/api/invoices"), "terminal-x");
+        assertNotNull(invoice);
+        invoice.release();
+        standard.forEach(Ticket::release);
+    }
+
+    @Test
+    void rejectedHeavyReadsDoNotSpendTheClientsRate() throws Exception {
+        Ticket running = admission.tryAdmit(RequestClass.HEAVY_READ, "other");
+        assertNotNull(running);
+        // The one heavy slot is busy and nothing may queue: these are turned away
+        for (int i = 0; i < 5; i++) {
+            assertNull(admission.tryAdmit(RequestClass.HEAVY_READ, "terminal-1"));
+        }
+        running.release();
+
+        // The two per-minute tokens are still there
+        for (int i = 0; i < 2; i++) {
+            Ticket ticket = admission.tryAdmit(RequestClass.HEAVY_READ, "terminal-1");
+            assertNotNull(ticket);
+            ticket.release();
+        }
+        assertNull(admission.tryAdmit(RequestClass.HEAVY_READ, "terminal-1"));
+    }
+}
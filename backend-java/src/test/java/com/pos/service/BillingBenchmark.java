@@ -0,0 +1,99 @@
+package com.pos.service;
+
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Latency of server-side billing for one table: pricing the open order against the
+ * price table (previewTableBill), and pricing, storing and closing it in one step
+ * (createTableInvoice). Not part of the default test run; start it with
+ * mvn test -Dtest=BillingBenchmark. Prints p50, p99 and max per operation in
+ * microseconds for tables of 5, 20 and 50 lines.
+ */
+@SpringBootTest(properties = {
+        "pos.print.dir=target/print-spool",
+        "pos.eod.dir=target/daily-summaries"
+})
+class BillingBenchmark {
+
+    private static final String OUTLET = "billing-bench";
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 100_000;
+
+    @Autowired
+    private BillingService billingService;
+
+    @Autowired
+    private DataStorageService dataStorage;
+
+    @AfterEach
+    void clear() {
+        OutletContext.clear();
+    }
+
+    @Test
+    void priceAndCloseTables() {
+        OutletContext.set(OUTLET);
+        for (int lines : new int[] {5, 20, 50}) {
+            List<OrderItem> order = lines(lines);
+            dataStorage.createOrUpdateTableOrder("table1", "Table 1", order);
+            double expected = billingService.previewTableBill("table1").getTotal();
+
+            long[] preview = new long[MEASURED];
+            for (int i = 0; i < WARMUP + MEASURED; i++) {
+                long start = System.nanoTime();
+                Invoice bill = billingService.previewTableBill("table1");
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP) {
+                    preview[i - WARMUP] = elapsed;
+                }
+                assertEquals(expected, bill.getTotal());
+            }
+            dataStorage.completeTableOrder("table1");
+
+            long[] close = new long[MEASURED / 10];
+            for (int i = 0; i < WARMUP / 10 + close.length; i++) {
+                dataStorage.createOrUpdateTableOrder("table2", "Table 2", order);
+                long start = System.nanoTime();
+                Invoice invoice = billingService.createTableInvoice("table2");
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP / 10) {
+                    close[i - WARMUP / 10] = elapsed;
+                }
+                assertNotNull(invoice);
+            }
+
+            report("previewTableBill", lines, preview);
+            report("createTableInvoice", lines, close);
+        }
+    }
+
+    private static List<OrderItem> lines(int count) {
+        String[] items = {"item1", "item2", "item3"};
+        List<OrderItem> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Mostly menu items; every tenth line is no longer on the menu and keeps its price
+            String id = i % 10 == 9 ? "retired-" + i : items[i % items.length];
+            lines.add(new OrderItem(id, id, 99.5, "Mains", "Kitchen", 1 + i % 3, true));
+        }
+        return lines;
+    }
+
+    private static void report(String operation, int lines, long[] nanos) {
+        Arrays.sort(nanos);
+        System.out.printf("%-20s %3d lines  p50 %7.2f us  p99 %7.2f us  max %8.2f us%n", operation, lines,
+                nanos[nanos.length / 2] / 1000.0, nanos[(int) (nanos.length * 0.99)] / 1000.0,
+                nanos[nanos.length - 1] / 1000.0);
+    }
+}
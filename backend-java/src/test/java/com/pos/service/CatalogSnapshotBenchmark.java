@@ -0,0 +1,117 @@
+package com.pos.service;
+
+import com.pos.model.MenuItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Menu read throughput while the menu is being edited: reader threads list all menu
+ * items and sum their prices, while one writer updates an item about 500 times a second.
+ * The outlet's catalog snapshot is compared with the copy of a concurrent map's values
+ * that each read made before snapshots were published. Prints reads per second and the
+ * updates the writer managed. Not part of the default test run; start it with
+ * mvn test -Dtest=CatalogSnapshotBenchmark.
+ */
+class CatalogSnapshotBenchmark {
+
+    private static final int ITEMS = 2000;
+    private static final int READERS = 4;
+    private static final long WRITE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long WARMUP_MILLIS = 1_000;
+    private static final long MEASURED_MILLIS = 3_000;
+
+    @Test
+    void readsUnderConcurrentWrites() throws Exception {
+        OutletStore store = new OutletStore("catalog-bench", false, false);
+        Map<String, MenuItem> copied = new ConcurrentHashMap<>();
+        for (int i = 0; i < ITEMS; i++) {
+            MenuItem item = store.createMenuItem(item(null, i, 100.0));
+            copied.put(item.getId(), item);
+        }
+        List<String> ids = new ArrayList<>(copied.keySet());
+
+        for (int round = 0; round < 2; round++) {
+            // The first round only warms up both paths
+            Result snapshot = run(store::getAllMenuItems,
+                    n -> store.updateMenuItem(ids.get(n % ITEMS), item(ids.get(n % ITEMS), n % ITEMS, 100.0 + n)));
+            Result copy = run(() -> new ArrayList<>(copied.values()),
+                    n -> copied.put(ids.get(n % ITEMS), item(ids.get(n % ITEMS), n % ITEMS, 100.0 + n)));
+            if (round == 1) {
+                System.out.printf("%d items, %d readers%n", ITEMS, READERS);
+                System.out.printf("snapshot   %12.0f reads/s  %5.0f updates/s%n", snapshot.reads, snapshot.updates);
+                System.out.printf("map copy   %12.0f reads/s  %5.0f updates/s%n", copy.reads, copy.updates);
+            }
+        }
+    }
+
+    private static Result run(Supplier<List<MenuItem>> read, IntConsumer update) throws Exception {
+        AtomicLong reads = new AtomicLong();
+        AtomicLong updates = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        long warmUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long end = warmUntil + TimeUnit.MILLISECONDS.toNanos(MEASURED_MILLIS);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < READERS; t++) {
+            threads.add(new Thread(() -> {
+                long count = 0;
+                double sum = 0;
+                await(start);
+                for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                    for (MenuItem item : read.get()) {
+                        sum += item.getPrice();
+                    }
+                    if (now >= warmUntil) {
+                        count++;
+                    }
+                }
+                reads.addAndGet(count);
+                // Keeps the sums from being optimized away
+                if (sum == 0) {
+                    throw new IllegalStateException("no menu items read");
+                }
+            }, "catalog-reader-" + t));
+        }
+        threads.add(new Thread(() -> {
+            int n = 0;
+            await(start);
+            for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                update.accept(n++);
+                if (now >= warmUntil) {
+                    updates.incrementAndGet();
+                }
+                LockSupport.parkNanos(WRITE_INTERVAL_NANOS);
+            }
+        }, "catalog-writer"));
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(reads.get() * 1000.0 / MEASURED_MILLIS, updates.get() * 1000.0 / MEASURED_MILLIS);
+    }
+
+    private static void await(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MenuItem item(String id, int n, double price) {
+        return new MenuItem(id, "Menu item " + n, "MI" + n, price, "Mains", "Kitchen", null);
+    }
+
+    private record Result(double reads, double updates) {
+    }
+}
@@ -0,0 +1,168 @@
+package com.pos.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks CompressedBitmap against java.util.BitSet. The values span several 65536-value
+ * chunks, and chunks are filled past and emptied below the 4096 values at which a chunk
+ * switches between the array and bitmap layouts.
+ */
+class CompressedBitmapTest {
+
+    private static final int CHUNK = 1 << 16;
+
+    @Test
+    void addAndRemoveAcrossTheArrayBitmapBoundary() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        // Chunk 1 goes exactly to 4096, then one past, then back
+        for (int low = 0; low < 4096; low++) {
+            add(bitmap, expected, CHUNK + low * 3);
+        }
+        assertSame(expected, bitmap);
+        add(bitmap, expected, CHUNK + 20_000);
+        assertSame(expected, bitmap);
+        remove(bitmap, expected, CHUNK + 3);
+        assertSame(expected, bitmap);
+        add(bitmap, expected, CHUNK + 3);
+        add(bitmap, expected, CHUNK + 3);
+        assertSame(expected, bitmap);
+
+        // Emptying a chunk drops it; the chunks around it are untouched
+        add(bitmap, expected, 7);
+        add(bitmap, expected, 3 * CHUNK + 1);
+        for (int value = expected.nextSetBit(CHUNK); value >= 0 && value < 2 * CHUNK; value = expected.nextSetBit(value + 1)) {
+            remove(bitmap, expected, value);
+        }
+        assertSame(expected, bitmap);
+        remove(bitmap, expected, 12345);
+        assertSame(expected, bitmap);
+    }
+
+    @Test
+    void randomOperationsMatchBitSet() {
+        Random random = new Random(42);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for (int round = 0; round < 20; round++) {
+            // Alternate dense and sparse phases so chunks change layout both ways
+            int operations = 3000 + random.nextInt(6000);
+            boolean adding = round % 3 != 2;
+            for (int i = 0; i < operations; i++) {
+                int value = random.nextInt(4) * CHUNK + random.nextInt(round % 2 == 0 ? 9000 : CHUNK);
+                if (adding) {
+                    add(bitmap, expected, value);
+                } else {
+                    remove(bitmap, expected, value);
+                }
+            }
+            assertSame(expected, bitmap);
+        }
+    }
+
+    @Test
+    void andAndOrAcrossLayouts() {
+        Random random = new Random(7);
+        List<CompressedBitmap> bitmaps = new ArrayList<>();
+        List<BitSet> sets = new ArrayList<>();
+        // Per chunk: empty, a few values, just under and just over 4096, and nearly full
+        int[][] densities = {
+                {0, 10, 4096, 60_000},
+                {4097, 0, 500, 4000},
+                {60_000, 4095, 0, 4097},
+        };
+        for (int[] density : densities) {
+            CompressedBitmap bitmap = new CompressedBitmap();
+            BitSet set = new BitSet();
+            for (int chunk = 0; chunk < density.length; chunk++) {
+                while (set.get(chunk * CHUNK, (chunk + 1) * CHUNK).cardinality() < density[chunk]) {
+                    add(bitmap, set, chunk * CHUNK + random.nextInt(CHUNK));
+                }
+            }
+            bitmaps.add(bitmap);
+            sets.add(set);
+        }
+
+        for (int a = 0; a < bitmaps.size(); a++) {
+            for (int b = 0; b < bitmaps.size(); b++) {
+                BitSet and = (BitSet) sets.get(a).clone();
+                and.and(sets.get(b));
+                assertSame(and, CompressedBitmap.and(bitmaps.get(a), bitmaps.get(b)));
+
+                BitSet or = (BitSet) sets.get(a).clone();
+                or.or(sets.get(b));
+                assertSame(or, CompressedBitmap.or(List.of(bitmaps.get(a), bitmaps.get(b))));
+            }
+        }
+        BitSet all = new BitSet();
+        sets.forEach(all::or);
+        assertSame(all, CompressedBitmap.or(bitmaps));
+
+        // Results are new bitmaps: changing one leaves the operands as they were
+        CompressedBitmap union = CompressedBitmap.or(List.of(bitmaps.get(0)));
+        union.add(3 * CHUNK + 5);
+        assertSame(sets.get(0), bitmaps.get(0));
+    }
+
+    @Test
+    void descendingPagesSkipWholeChunks() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        Random random = new Random(3);
+        for (int i = 0; i < 30_000; i++) {
+            add(bitmap, expected, random.nextInt(5 * CHUNK));
+        }
+        int[] newestFirst = descending(expected);
+        for (int skip : new int[] {0, 1, 49, 5000, 12_345, newestFirst.length - 10, newestFirst.length, newestFirst.length + 5}) {
+            for (int limit : new int[] {0, 1, 50, 10_000}) {
+                int from = Math.min(skip, newestFirst.length);
+                int to = Math.min(newestFirst.length, from + limit);
+                int[] page = new int[to - from];
+                System.arraycopy(newestFirst, from, page, 0, page.length);
+                assertArrayEquals(page, bitmap.descending(skip, limit), "skip " + skip + " limit " + limit);
+            }
+        }
+    }
+
+    private static void add(CompressedBitmap bitmap, BitSet expected, int value) {
+        bitmap.add(value);
+        expected.set(value);
+    }
+
+    private static void remove(CompressedBitmap bitmap, BitSet expected, int value) {
+        bitmap.remove(value);
+        expected.clear(value);
+    }
+
+    private static void assertSame(BitSet expected, CompressedBitmap bitmap) {
+        assertEquals(expected.cardinality(), bitmap.cardinality());
+        int[] values = descending(expected);
+        assertArrayEquals(values, bitmap.descending(0, Integer.MAX_VALUE));
+        for (int value : values) {
+            assertEquals(true, bitmap.contains(value));
+        }
+        // Neighbours of set values, which share their chunk, must not be reported
+        for (int value : values) {
+            if (!expected.get(value + 1)) {
+                assertEquals(false, bitmap.contains(value + 1), "contains " + (value + 1));
+            }
+        }
+    }
+
+    private static int[] descending(BitSet set) {
+        int[] values = new int[set.cardinality()];
+        int count = 0;
+        for (int value = set.previousSetBit(set.length()); value >= 0; value = set.previousSetBit(value - 1)) {
+            values[count++] = value;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,156 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pos.model.DailySummary;
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DailyCloseServiceTest {
+
+    private static final String OUTLET = "eod";
+    private static final LocalDate DAY = LocalDate.of(2025, 12, 31);
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private DataStorageService dataStorage;
+    private DailyCloseService service;
+
+    @BeforeEach
+    void start() {
+        dataStorage = new DataStorageService(false);
+        service = service(dataStorage);
+    }
+
+    @Test
+    void closedDayReadsBackAsTheSameTotals() {
+        invoice(DAY.atTime(9, 15), "dine-in", line("item1", "Chicken Burger", 299.99, "Kitchen", 2),
+                line("item3", "Coca Cola", 99.05, "Bar", 3));
+        invoice(DAY.atTime(13, 40), "takeaway", line("item1", "Chicken Burger", 299.99, "Kitchen", 1));
+        invoice(DAY.atTime(13, 55), null, line("item2", "French Fries", 149.1, null, 1));
+        invoice(DAY.plusDays(1).atTime(0, 5), "dine-in", line("item2", "French Fries", 149.1, "Kitchen", 9));
+
+        DailySummary closed = service.close(OUTLET, DAY);
+        assertEquals(3, closed.getInvoiceCount());
+        assertEquals(1, closed.getOrderTypes().get("unknown").getCount());
+        assertEquals(2, closed.getHours().get(13).getCount());
+        assertEquals(3, closed.getItems().get("item1").getQuantity());
+        assertEquals(899.97, closed.getItems().get("item1").getRevenue());
+        assertEquals(3, closed.getDepartments().get("Kitchen").getCount());
+
+        // Totals built from the closed day equal the totals built from its invoices
+        Map<String, Object> range = service.getRange(OUTLET, DAY, DAY, "day", 100);
+        DailySummary expected = copyOf(closed);
+        expected.setDate(null);
+        expected.setClosedAt(null);
+        assertEquals(expected, range.get("totals"));
+        assertEquals(1, range.get("daysClosed"));
+    }
+
+    @Test
+    void closingAgainAfterARestartKeepsTheClosedSummary() {
+        invoice(DAY.atTime(20, 0), "dine-in", line("item1", "Chicken Burger", 299.0, "Kitchen", 2));
+        DailySummary closed = service.close(OUTLET, DAY);
+
+        // Closing again while the invoices are there recomputes the day
+        invoice(DAY.atTime(21, 0), "takeaway", line("item3", "Coca Cola", 99.0, "Bar", 1));
+        assertEquals(2, service.close(OUTLET, DAY).getInvoiceCount());
+
+        // After a restart the invoices are gone; the summary is read from disk and kept
+        dataStorage = new DataStorageService(false);
+        service = service(dataStorage);
+        DailySummary reloaded = service.getSummary(OUTLET, DAY);
+        assertEquals(2, reloaded.getInvoiceCount());
+        assertSame(reloaded, service.close(OUTLET, DAY));
+        assertEquals(reloaded, service(dataStorage).getSummary(OUTLET, DAY));
+        assertEquals(closed.getOutletId(), reloaded.getOutletId());
+
+        // A day that never had invoices is still closed, as an empty day
+        assertEquals(0, service.close(OUTLET, DAY.minusDays(1)).getInvoiceCount());
+    }
+
+    @Test
+    void rangesGroupByMonthAndYear() {
+        for (LocalDate day : List.of(LocalDate.of(2025, 11, 30), LocalDate.of(2025, 12, 30), DAY, LocalDate.of(2026, 1, 2))) {
+            invoice(day.atTime(12, 0), "dine-in", line("item1", "Chicken Burger", 100.0, "Kitchen", day.getDayOfMonth()));
+            service.close(OUTLET, day);
+        }
+
+        assertEquals(List.of(period("2025-12", 2, 2, 6100.0), period("2026-01", 1, 1, 200.0)),
+                service.getRange(OUTLET, LocalDate.of(2025, 12, 1), LocalDate.of(2026, 1, 31), "month", 10).get("periods"));
+        assertEquals(List.of(period("2025", 3, 3, 9100.0), period("2026", 1, 1, 200.0)),
+                service.getRange(OUTLET, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 6, 30), "year", 10).get("periods"));
+        assertNull(service.getRange(OUTLET, DAY, DAY, "week", 10));
+    }
+
+    @Test
+    void rangesThroughTodayAddTheOpenDay() {
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        invoice(yesterday.atTime(12, 0), "dine-in", line("item1", "Chicken Burger", 100.0, "Kitchen", 1));
+        invoice(yesterday.atTime(13, 0), "dine-in", line("item2", "French Fries", 50.0, "Kitchen", 2));
+        service.close(OUTLET, yesterday);
+        invoice(today.atStartOfDay(), "takeaway", line("item2", "French Fries", 50.0, "Kitchen", 3));
+
+        Map<String, Object> range = service.getRange(OUTLET, yesterday, today, "day", 1);
+        assertEquals(true, range.get("includesOpenDay"));
+        assertEquals(1, range.get("daysClosed"));
+        DailySummary totals = (DailySummary) range.get("totals");
+        assertEquals(3, totals.getInvoiceCount());
+        assertEquals(350.0, totals.getTotal());
+        // Only the best seller by revenue, counted over both days
+        assertEquals(Map.of("item2", new DailySummary.ItemSales("French Fries", "Kitchen", 5, 250.0)), totals.getItems());
+        assertEquals(List.of(period(yesterday.toString(), 1, 2, 200.0), period(today.toString(), 1, 1, 150.0)),
+                range.get("periods"));
+
+        Map<String, Object> closedOnly = service.getRange(OUTLET, yesterday, yesterday, "day", 10);
+        assertEquals(false, closedOnly.get("includesOpenDay"));
+        assertEquals(2L, ((DailySummary) closedOnly.get("totals")).getInvoiceCount());
+    }
+
+    private DailyCloseService service(DataStorageService dataStorage) {
+        DailyCloseService service = new DailyCloseService();
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "dataStorage", dataStorage);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        return service;
+    }
+
+    private void invoice(LocalDateTime time, String orderType, OrderItem... lines) {
+        double subtotal = 0;
+        for (OrderItem line : lines) {
+            subtotal += line.getPrice() * line.getQuantity();
+        }
+        dataStorage.forOutlet(OUTLET).createInvoice(new Invoice(null, null, orderType, null, List.of(lines),
+                subtotal, 0, subtotal, time));
+    }
+
+    private DailySummary copyOf(DailySummary summary) {
+        return objectMapper.convertValue(summary, DailySummary.class);
+    }
+
+    private static OrderItem line(String id, String name, double price, String department, int quantity) {
+        return new OrderItem(id, name, price, "Mains", department, quantity, true);
+    }
+
+    private static Map<String, Object> period(String period, int days, long invoices, double total) {
+        return Map.of("period", period, "days", days, "invoiceCount", invoices,
+                "subtotal", total, "tax", 0.0, "total", total);
+    }
+}
@@ -0,0 +1,31 @@
+package com.pos.service;
+
+import org.junit.jupiter.api.RepeatedTest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.pos.service.OutletStoreConcurrencyTest.race;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class DataStorageServiceTest {
+
+    private static final int THREADS = 16;
+
+    @RepeatedTest(5)
+    void concurrentNewOutletsNeverPassTheCap() throws Exception {
+        DataStorageService dataStorage = new DataStorageService(false);
+        int max = 8;
+        AtomicInteger opened = new AtomicInteger();
+        race(THREADS, worker -> {
+            if (dataStorage.openOutlet("outlet-" + worker, max) != null) {
+                opened.incrementAndGet();
+            }
+        });
+
+        // The default outlet already takes one place
+        assertEquals(max - 1, opened.get());
+        assertEquals(max, dataStorage.getOutletCount());
+        assertNotNull(dataStorage.openOutlet(OutletContext.DEFAULT_OUTLET, max));
+    }
+}
@@ -0,0 +1,85 @@
+package com.pos.service;
+
+import com.pos.model.MenuItem;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ExcelServiceTest {
+
+    private final DataStorageService dataStorage = new DataStorageService(false);
+    private final ExcelArtifactCache artifactCache = new ExcelArtifactCache();
+    private final ExcelService excelService = new ExcelService();
+
+    ExcelServiceTest() {
+        ReflectionTestUtils.setField(artifactCache, "maxBytes", 32L << 20);
+        ReflectionTestUtils.setField(excelService, "dataStorage", dataStorage);
+        ReflectionTestUtils.setField(excelService, "artifactCache", artifactCache);
+    }
+
+    @AfterEach
+    void clear() {
+        OutletContext.clear();
+    }
+
+    @Test
+    void exportIsServedFromCacheUntilTheMenuChanges() throws Exception {
+        byte[] first = excelService.exportMenuData();
+        assertSame(first, excelService.exportMenuData());
+
+        dataStorage.forOutlet(OutletContext.DEFAULT_OUTLET).createMenuItem(item("Masala Tea"));
+        assertEquals(menuItemNames(first).size() + 1, menuItemNames(excelService.exportMenuData()).size());
+    }
+
+    @Test
+    void replacedStoreNeverGetsThePreviousStoresExport() throws Exception {
+        OutletStore previous = dataStorage.forOutlet(OutletContext.DEFAULT_OUTLET);
+        long previousVersion = previous.getCatalog().getMenuVersion();
+        excelService.exportMenuData();
+
+        // A follower resync installs a new store whose versions count from the start again
+        OutletStore replacement = dataStorage.newSnapshotStore(OutletContext.DEFAULT_OUTLET);
+        List<String> names = new ArrayList<>();
+        while (replacement.getCatalog().getMenuVersion() < previousVersion) {
+            MenuItem created = replacement.createMenuItem(item("Replicated " + names.size()));
+            names.add(created.getName());
+        }
+        assertEquals(previousVersion, replacement.getCatalog().getMenuVersion());
+        dataStorage.replaceWithSnapshot(Map.of(OutletContext.DEFAULT_OUTLET, replacement));
+
+        assertEquals(names, menuItemNames(excelService.exportMenuData()));
+    }
+
+    private static MenuItem item(String name) {
+        MenuItem item = new MenuItem();
+        item.setName(name);
+        item.setProductCode(name.toUpperCase().replace(" ", "-"));
+        item.setPrice(40);
+        item.setCategory("Beverages");
+        item.setDepartment("Bar");
+        return item;
+    }
+
+    private static List<String> menuItemNames(byte[] export) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(export))) {
+            Sheet sheet = workbook.getSheet("Menu Items");
+            List<String> names = new ArrayList<>();
+            for (int row = 1; row <= sheet.getLastRowNum(); row++) {
+                names.add(sheet.getRow(row).getCell(1).getStringCellValue());
+            }
+            return names;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.pos.service.OutletStoreConcurrencyTest.race;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Duplicate requests with one Idempotency-Key, sent at the same time from many threads
+ * as a terminal retrying over a flaky network would.
+ */
+class IdempotencyCacheTest {
+
+    private static final int THREADS = 16;
+
+    private final IdempotencyCache cache = new IdempotencyCache();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10_000);
+        ReflectionTestUtils.setField(cache, "waitMillis", 5_000L);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void concurrentDuplicatesRunTheActionOnce() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        Queue<ResponseEntity<?>> responses = new ConcurrentLinkedQueue<>();
+        race(THREADS, worker -> responses.add(cache.execute("invoices", "key-1", Map.of("total", 100), () -> {
+            runs.incrementAndGet();
+            sleep(50);
+            return ResponseEntity.status(HttpStatus.CREATED).body("invoice-" + runs.get());
+        })));
+
+        assertEquals(1, runs.get());
+        assertEquals(THREADS, responses.size());
+        for (ResponseEntity<?> response : responses) {
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+            assertEquals("invoice-1", response.getBody());
+        }
+        long replayed = responses.stream()
+                .filter(response -> "true".equals(response.getHeaders().getFirst(IdempotencyCache.REPLAYED_HEADER)))
+                .count();
+        assertEquals(THREADS - 1, replayed);
+    }
+
+    @Test
+    void bodiesWithEqualHashCodesAreStillDifferentRequests() {
+        // "Aa" and "BB" share a String hashCode
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        cache.execute("orders", "key-2", List.of("Aa"), () -> ResponseEntity.ok("first"));
+        ResponseEntity<?> reused = cache.execute("orders", "key-2", List.of("BB"), () -> ResponseEntity.ok("second"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+    }
+
+    @Test
+    void duplicateOfSlowRequestGetsConflictInsteadOfWaitingForever() throws Exception {
+        ReflectionTestUtils.setField(cache, "waitMillis", 100L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread original = new Thread(() -> cache.execute("invoices", "key-3", "body", () -> {
+            started.countDown();
+            await(finish);
+            return ResponseEntity.ok("done");
+        }));
+        original.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ResponseEntity<?> duplicate = cache.execute("invoices", "key-3", "body", () -> ResponseEntity.ok("again"));
+        assertEquals(HttpStatus.CONFLICT, duplicate.getStatusCode());
+        assertEquals("1", duplicate.getHeaders().getFirst("Retry-After"));
+
+        finish.countDown();
+        original.join();
+        ResponseEntity<?> retry = cache.execute("invoices", "key-3", "body", () -> ResponseEntity.ok("again"));
+        assertEquals("done", retry.getBody());
+    }
+
+    @Test
+    void runningRequestsAreNotEvictedWhenTheCacheIsFull() throws Exception {
+        ReflectionTestUtils.setField(cache, "maxEntries", 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Thread original = new Thread(() -> cache.execute("invoices", "slow", "body", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(finish);
+            return ResponseEntity.ok("slow");
+        }));
+        original.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Overflow the cache while the first request is still running
+        for (int i = 0; i < 10; i++) {
+            cache.execute("invoices", "other-" + i, "body", () -> ResponseEntity.ok("other"));
+        }
+        Thread duplicate = new Thread(() -> cache.execute("invoices", "slow", "body", () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok("twice");
+        }));
+        duplicate.start();
+        finish.countDown();
+        original.join();
+        duplicate.join();
+        assertEquals(1, runs.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
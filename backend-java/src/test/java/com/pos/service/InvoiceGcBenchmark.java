@@ -0,0 +1,118 @@
+package com.pos.service;
+
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * GC pauses under sustained invoice creation, with line items kept on the heap and
+ * with pos.invoice.off-heap-items. Each mode starts from a collected heap, creates
+ * invoices that all stay retained (as a day of service does), and prints the number of
+ * collections, total and longest pause, and the heap left in use. Not part of the
+ * default test run; start it with mvn test -Dtest=InvoiceGcBenchmark, adding
+ * -DargLine=-XX:+UseG1GC (or another collector) to compare with the one in production.
+ */
+class InvoiceGcBenchmark {
+
+    private static final int INVOICES = 200_000;
+    private static final int LINES = 8;
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Long> pauses = new ConcurrentLinkedQueue<>();
+    private final NotificationListener listener = this::onCollection;
+
+    @AfterEach
+    void removeListeners() throws Exception {
+        for (NotificationEmitter emitter : emitters) {
+            emitter.removeNotificationListener(listener);
+        }
+        OutletContext.clear();
+    }
+
+    @Test
+    void pausesWithLinesOnAndOffHeap() throws Exception {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            NotificationEmitter emitter = (NotificationEmitter) collector;
+            emitter.addNotificationListener(listener, null, null);
+            emitters.add(emitter);
+        }
+        System.out.printf("collectors %s%n", ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .map(GarbageCollectorMXBean::getName).toList());
+        // Warm up the invoice path so the measured runs compare storage, not compilation
+        run(false, INVOICES / 10);
+        run(true, INVOICES / 10);
+
+        for (boolean offHeap : new boolean[] {false, true}) {
+            Result result = run(offHeap, INVOICES);
+            System.out.printf("%-8s %d invoices in %5d ms  %3d collections  total %5d ms  max %4d ms"
+                            + "  heap in use %4d MB%n",
+                    offHeap ? "off-heap" : "on-heap", INVOICES, result.elapsedMillis, result.pauses.length,
+                    Arrays.stream(result.pauses).sum(), result.max(), result.heapUsedBytes >> 20);
+        }
+    }
+
+    private Result run(boolean offHeap, int invoices) {
+        System.gc();
+        pauses.clear();
+        DataStorageService dataStorage = new DataStorageService(offHeap);
+        OutletContext.set("gc-bench");
+        long start = System.nanoTime();
+        for (int i = 0; i < invoices; i++) {
+            dataStorage.createInvoice(invoice(i));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long[] observed = pauses.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        // Heap still held with every invoice retained
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        assertEquals(invoices, dataStorage.getAllInvoices().size());
+        OutletContext.clear();
+        return new Result(elapsedMillis, observed, heapUsed);
+    }
+
+    private void onCollection(Notification notification, Object handback) {
+        if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            // Explicit collections between runs are not part of the load
+            if (!"System.gc()".equals(info.getGcCause())) {
+                pauses.add(info.getGcInfo().getDuration());
+            }
+        }
+    }
+
+    private static Invoice invoice(int n) {
+        List<OrderItem> items = new ArrayList<>(LINES);
+        for (int line = 0; line < LINES; line++) {
+            int item = (n + line) % 40 + 1;
+            items.add(new OrderItem("item" + item, "Menu item " + item, 50 + item, "Mains", "Kitchen", 1 + line % 3, true));
+        }
+        double subtotal = items.stream().mapToDouble(item -> item.getPrice() * item.getQuantity()).sum();
+        return new Invoice(null, null, "dine-in", "Table " + (n % 20 + 1), items, subtotal, subtotal * 0.05,
+                subtotal * 1.05, LocalDateTime.now());
+    }
+
+    private record Result(long elapsedMillis, long[] pauses, long heapUsedBytes) {
+        long max() {
+            return pauses.length == 0 ? 0 : pauses[pauses.length - 1];
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.pos.service;
+
+import com.pos.model.Invoice;
+import com.pos.model.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * First-page latency of filtered invoice listing, InvoiceIndex against a stream scan of
+ * every invoice. One million generated invoices: 30% takeaway, 50 tables, a year of days
+ * and 1-5 lines over 200 items. Prints the median of 15 runs per query for a page of 50
+ * and checks both ways return the same page and total. Not part of the default test run;
+ * start it with mvn test -Dtest=InvoiceIndexBenchmark.
+ */
+class InvoiceIndexBenchmark {
+
+    private static final int INVOICES = 1_000_000;
+    private static final int PAGE = 50;
+    private static final int RUNS = 15;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void firstPageScanVersusIndex() {
+        Random random = new Random(11);
+        List<Invoice> invoices = new ArrayList<>(INVOICES);
+        InvoiceIndex index = new InvoiceIndex();
+        long indexNanos = 0;
+        for (int i = 0; i < INVOICES; i++) {
+            Invoice invoice = invoice(i, random);
+            invoices.add(invoice);
+            long start = System.nanoTime();
+            index.add(invoice);
+            indexNanos += System.nanoTime() - start;
+        }
+        System.out.printf("indexed %d invoices, %.2f us each%n", INVOICES, indexNanos / 1000.0 / INVOICES);
+
+        LocalDate lastDay = FIRST_DAY.plusDays(364);
+        query(invoices, index, "takeaway, last 7 days", "takeaway", null, lastDay.minusDays(6), lastDay, null);
+        query(invoices, index, "Table 7 + item42", null, "Table 7", null, null, "item42");
+        query(invoices, index, "item150 in one month", null, null, FIRST_DAY.plusMonths(5),
+                FIRST_DAY.plusMonths(6).minusDays(1), "item150");
+        query(invoices, index, "dine-in, one day", "dine-in", null, FIRST_DAY.plusDays(100), FIRST_DAY.plusDays(100), null);
+        query(invoices, index, "dine-in, whole year", "dine-in", null, null, null, null);
+    }
+
+    private static void query(List<Invoice> invoices, InvoiceIndex index, String name, String orderType,
+                              String tableName, LocalDate from, LocalDate to, String itemId) {
+        Predicate<Invoice> matches = invoice -> (orderType == null || orderType.equals(invoice.getOrderType()))
+                && (tableName == null || tableName.equals(invoice.getTableName()))
+                && (from == null || !invoice.getTimestamp().toLocalDate().isBefore(from))
+                && (to == null || !invoice.getTimestamp().toLocalDate().isAfter(to))
+                && (itemId == null || invoice.getItems().stream().anyMatch(item -> itemId.equals(item.getId())));
+        // Newest first, as the listing returns them; the list is in arrival order
+        Supplier<Page> scan = () -> {
+            List<Invoice> all = invoices.stream().filter(matches).toList();
+            List<Invoice> page = new ArrayList<>(PAGE);
+            for (int i = all.size() - 1; i >= 0 && page.size() < PAGE; i--) {
+                page.add(all.get(i));
+            }
+            return new Page(all.size(), page);
+        };
+        Supplier<Page> indexed = () -> {
+            InvoiceIndex.Result result = index.filter(orderType, tableName, from, to, itemId);
+            return new Page(result.getTotal(), result.page(0, PAGE));
+        };
+
+        Page expected = scan.get();
+        Page actual = indexed.get();
+        assertEquals(expected.total(), actual.total(), name);
+        assertEquals(expected.invoices(), actual.invoices(), name);
+        System.out.printf("%-24s %8d matches  scan %7.2f ms  index %6.2f ms%n",
+                name, expected.total(), median(scan), median(indexed));
+    }
+
+    private static double median(Supplier<Page> query) {
+        double[] millis = new double[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            query.get();
+            millis[run] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+
+    private static Invoice invoice(int n, Random random) {
+        boolean takeaway = random.nextInt(10) < 3;
+        int lines = 1 + random.nextInt(5);
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int line = 0; line < lines; line++) {
+            int item = random.nextInt(200) + 1;
+            items.add(new OrderItem("item" + item, "Menu item " + item, 50 + item, "Mains", "Kitchen", 1, true));
+        }
+        // Arrival order follows the day, as it does in service
+        LocalDateTime time = FIRST_DAY.plusDays((long) n * 365 / INVOICES).atTime(12, 0);
+        return new Invoice(String.valueOf(n), null, takeaway ? "takeaway" : "dine-in",
+                takeaway ? null : "Table " + (random.nextInt(50) + 1), items, 0, 0, 0, time);
+    }
+
+    private record Page(int total, List<Invoice> invoices) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pos.model.Invoice;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvoiceJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void voidedEntriesAreNotReplayed() throws Exception {
+        InvoiceJournal journal = new InvoiceJournal(directory, objectMapper, 0);
+        journal.append(1, "default", invoice("1"));
+        journal.append(2, "default", invoice("2"));
+        journal.voidEntry(2);
+        journal.append(3, "second", invoice("3"));
+        journal.sync(3);
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        long last = InvoiceJournal.replay(directory, objectMapper, (sequence, outletId, invoice) ->
+                replayed.add(outletId + "/" + invoice.getId()));
+        assertEquals(3, last);
+        assertEquals(List.of("default/1", "second/3"), replayed);
+    }
+
+    @Test
+    void closedDaysAreDeletedOnceApplied() throws Exception {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Path old = directory.resolve("invoices-" + yesterday + ".journal");
+        Files.write(old, List.of(objectMapper.writeValueAsString(new InvoiceJournal.Entry(1, "default", invoice("1")))));
+
+        InvoiceJournal journal = new InvoiceJournal(directory, objectMapper, 1);
+        journal.append(2, "default", invoice("2"));
+        assertEquals(List.of(yesterday), journal.pastDays());
+
+        assertFalse(journal.delete(yesterday, 0));
+        assertTrue(journal.delete(yesterday, 1));
+        assertFalse(journal.delete(LocalDate.now(), 2));
+        journal.close();
+
+        assertFalse(Files.exists(old));
+        List<String> replayed = new ArrayList<>();
+        InvoiceJournal.replay(directory, objectMapper, (sequence, outletId, invoice) -> replayed.add(invoice.getId()));
+        assertEquals(List.of("2"), replayed);
+    }
+
+    private static Invoice invoice(String id) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setOrderType("takeaway");
+        return invoice;
+    }
+}
@@ -0,0 +1,105 @@
+package com.pos.service;
+
+import com.pos.model.KotTicket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.pos.service.OutletStoreConcurrencyTest.race;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KotRingBufferTest {
+
+    private static final int THREADS = 16;
+
+    private KotRingBuffer ring;
+
+    @AfterEach
+    void shutdown() {
+        ring.shutdown();
+    }
+
+    @Test
+    void everyTicketIsDeliveredOnceByAFixedPoolOfConsumers() throws Exception {
+        int sendsPerThread = 500;
+        Map<String, AtomicInteger> delivered = new ConcurrentHashMap<>();
+        Map<String, String> consumerOfDepartment = new ConcurrentHashMap<>();
+        AtomicInteger misrouted = new AtomicInteger();
+        ring = new KotRingBuffer(64, 3, (department, batch) -> {
+            String consumer = consumerOfDepartment.putIfAbsent(department, Thread.currentThread().getName());
+            if (consumer != null && !consumer.equals(Thread.currentThread().getName())) {
+                misrouted.incrementAndGet();
+            }
+            for (KotTicket ticket : batch) {
+                assertEquals(department, ticket.getDepartment());
+                delivered.computeIfAbsent(ticket.getTableId(), t -> new AtomicInteger()).incrementAndGet();
+            }
+        });
+        long threadsBefore = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("kot-consumer-")).count();
+
+        race(THREADS, worker -> {
+            for (int i = 0; i < sendsPerThread; i++) {
+                assertTrue(ring.reserve(TimeUnit.SECONDS.toNanos(5)));
+                // A new department name on every send must not start a thread
+                String table = worker + "-" + i;
+                ring.publish(List.of(ticket(table, "Kitchen"), ticket(table, "Station " + table)));
+            }
+        });
+
+        awaitDelivered(delivered, THREADS * sendsPerThread);
+        for (AtomicInteger count : delivered.values()) {
+            assertEquals(2, count.get());
+        }
+        assertEquals(0, misrouted.get());
+        long threadsAfter = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("kot-consumer-")).count();
+        assertTrue(threadsAfter <= threadsBefore, threadsAfter + " consumer threads, " + threadsBefore + " before");
+    }
+
+    @Test
+    void fullRingRefusesReservationsUntilConsumersCatchUp() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ring = new KotRingBuffer(4, 1, (department, batch) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.reserve(0));
+            ring.publish(List.of(ticket("t" + i, "Kitchen")));
+        }
+        assertFalse(ring.reserve(TimeUnit.MILLISECONDS.toNanos(20)));
+        assertEquals(1L, ring.getStats().get("rejected"));
+
+        release.countDown();
+        assertTrue(ring.reserve(TimeUnit.SECONDS.toNanos(5)));
+        ring.cancel();
+    }
+
+    private static void awaitDelivered(Map<String, AtomicInteger> delivered, int tables) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (delivered.size() == tables && delivered.values().stream().allMatch(count -> count.get() >= 2)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        assertEquals(tables, delivered.size());
+    }
+
+    private static KotTicket ticket(String tableId, String department) {
+        return new KotTicket(1, "default", tableId, tableId, department, List.of(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,115 @@
+package com.pos.service;
+
+import com.pos.model.MenuItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MenuSearchIndexTest {
+
+    private final MenuSearchIndex index = new MenuSearchIndex();
+
+    @Test
+    void partialWordsAndCodesMatchByPrefix() {
+        index.put(item("item1", "Chicken Burger", "CB001", "Grilled chicken with lettuce"));
+        index.put(item("item2", "French Fries", "FF001", "Crispy golden fries"));
+        index.put(item("item3", "Chickpea Curry", "CC001", null));
+
+        assertEquals(List.of("item1", "item3"), ids(index.search("chick", 10)));
+        assertEquals(List.of("item2"), ids(index.search("ff0", 10)));
+        assertEquals(List.of("item2"), ids(index.search("GOLD", 10)));
+        // Every word must match
+        assertEquals(List.of("item1"), ids(index.search("chick burg", 10)));
+        assertEquals(List.of(), ids(index.search("chicken fries", 10)));
+        assertEquals(List.of(), ids(index.search("  ", 10)));
+    }
+
+    @Test
+    void mistypedWordsMatchSimilarTerms() {
+        index.put(item("item1", "Chicken Burger", "CB001", null));
+        index.put(item("item2", "Masala Chai", "MC001", null));
+
+        assertEquals(List.of("item1"), ids(index.search("burgr", 10)));
+        assertEquals(List.of("item1"), ids(index.search("chiken", 10)));
+        assertEquals(List.of("item2"), ids(index.search("masla chai", 10)));
+        // Too short to be matched fuzzily
+        assertEquals(List.of(), ids(index.search("bx", 10)));
+    }
+
+    @Test
+    void codeBeatsNameBeatsDescriptionAndExactBeatsPrefix() {
+        index.put(item("desc", "Lemon Cake", "LC001", "Goes well with tea"));
+        index.put(item("prefix", "Teas Assorted", "TS001", null));
+        index.put(item("name", "Tea Cake", "TC001", null));
+        index.put(item("code", "Masala Chai", "TEA", null));
+
+        assertEquals(List.of("code", "name", "prefix", "desc"), ids(index.search("tea", 10)));
+        assertEquals(List.of("code", "name"), ids(index.search("tea", 2)));
+        assertEquals(List.of(), ids(index.search("tea", 0)));
+    }
+
+    @Test
+    void equalScoresListAlphabetically() {
+        index.put(item("item1", "Mango Lassi", "ML001", null));
+        index.put(item("item2", "Banana Lassi", "BL001", null));
+        index.put(item("item3", "Sweet Lassi", "SL001", null));
+
+        assertEquals(List.of("item2", "item1", "item3"), ids(index.search("lassi", 10)));
+        assertEquals(List.of("item2", "item1"), ids(index.search("lassi", 2)));
+    }
+
+    @Test
+    void updatedAndDeletedItemsStopMatching() {
+        index.put(item("item1", "Chicken Burger", "CB001", null));
+        index.put(item("item2", "Veg Burger", "VB001", null));
+
+        index.put(item("item1", "Paneer Wrap", "PW001", null));
+        assertEquals(List.of("item2"), ids(index.search("burger", 10)));
+        assertEquals(List.of(), ids(index.search("chicken", 10)));
+        assertEquals(List.of(), ids(index.search("cb0", 10)));
+        assertEquals(List.of("item1"), ids(index.search("paneer", 10)));
+
+        index.remove("item2");
+        index.remove("missing");
+        assertEquals(List.of(), ids(index.search("burger", 10)));
+        assertEquals(List.of(), ids(index.search("burgr", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void removedTermsLeaveNoTrieNodesBehind() {
+        index.put(item("item1", "Chicken Burger", "CB001", null));
+        int nodes = index.nodeCount();
+
+        // Renaming over and over does not grow the trie
+        for (int i = 0; i < 100; i++) {
+            index.put(item("item2", "Special " + i, "SP" + i, "Daily special number " + i));
+        }
+        index.remove("item2");
+        assertEquals(nodes, index.nodeCount());
+
+        // A term that is a prefix of a removed one, and one sharing its prefix, both survive
+        index.put(item("item3", "Chick", "CH001", null));
+        index.put(item("item4", "Chickpea", "CH002", null));
+        index.remove("item4");
+        assertEquals(List.of("item3", "item1"), ids(index.search("chick", 10)));
+        index.remove("item3");
+        assertEquals(nodes, index.nodeCount());
+        assertEquals(List.of("item1"), ids(index.search("chick", 10)));
+
+        index.remove("item1");
+        assertEquals(0, index.nodeCount());
+        assertTrue(index.search("c", 10).isEmpty());
+    }
+
+    private static MenuItem item(String id, String name, String code, String description) {
+        return new MenuItem(id, name, code, 100.0, "Mains", "Kitchen", description);
+    }
+
+    private static List<String> ids(List<MenuItem> items) {
+        return items.stream().map(MenuItem::getId).toList();
+    }
+}
@@ -0,0 +1,49 @@
+package com.pos.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderHistoryTest {
+
+    @Test
+    void everySendIsKeptWithItsWait() {
+        OrderHistory history = new OrderHistory(4);
+        history.orderOpened("table1", 1_000);
+        history.itemsSent("table1", "AC", 4_000);
+        history.itemsAdded("table1", 10_000);
+        history.itemsAdded("table1", 12_000);
+        history.itemsSent("table1", "AC", 15_000);
+        // Nothing new since the last send
+        history.itemsSent("table1", "AC", 16_000);
+        history.orderCompleted("table1", "AC", 20_000);
+
+        Map<String, Object> row = history.recent(1).get(0);
+        assertEquals(2, row.get("kotCount"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> sends = (List<Map<String, Object>>) row.get("sends");
+        assertEquals(2, sends.size());
+        assertEquals(3_000L, sends.get(0).get("waitMs"));
+        assertEquals(5_000L, sends.get(1).get("waitMs"));
+        assertEquals(sends.get(0).get("sentAt"), row.get("firstSentAt"));
+    }
+
+    @Test
+    void sendsBeyondTheLimitAreCountedButNotKept() {
+        OrderHistory history = new OrderHistory(4);
+        history.orderOpened("table1", 0);
+        int sends = OrderHistory.MAX_SENDS + 5;
+        for (int i = 1; i <= sends; i++) {
+            history.itemsAdded("table1", i * 100L);
+            history.itemsSent("table1", null, i * 100L + 10);
+        }
+        history.orderCompleted("table1", null, 100_000);
+
+        Map<String, Object> row = history.recent(1).get(0);
+        assertEquals(sends, row.get("kotCount"));
+        assertEquals(OrderHistory.MAX_SENDS, ((List<?>) row.get("sends")).size());
+    }
+}
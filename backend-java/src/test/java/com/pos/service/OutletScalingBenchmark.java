@@ -0,0 +1,92 @@
+package com.pos.service;
+
+import com.pos.model.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Order throughput as outlets are added, one terminal thread per outlet: each thread
+ * opens a table, adds lines, sends them to the kitchen and completes the order, over
+ * and over. With one shard per outlet the threads share no maps or locks, so total
+ * throughput should grow close to linearly up to the number of cores. For contrast the
+ * same threads are also run against a single shared outlet. Not part of the default
+ * test run; start it with mvn test -Dtest=OutletScalingBenchmark.
+ */
+class OutletScalingBenchmark {
+
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURED_MILLIS = 3_000;
+
+    @Test
+    void orderThroughputByOutletCount() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d cores%n", cores);
+        // Compile the order path before any measured run
+        run(2, false);
+        run(2, true);
+        double single = 0;
+        for (int outlets = 1; outlets <= Math.max(2, cores * 2); outlets *= 2) {
+            double sharded = run(outlets, false);
+            double shared = run(outlets, true);
+            if (outlets == 1) {
+                single = sharded;
+            }
+            System.out.printf("%3d outlets  %10.0f orders/s (x%.2f)  one shared outlet %10.0f orders/s%n",
+                    outlets, sharded, sharded / single, shared);
+        }
+    }
+
+    // Orders completed per second by one thread per outlet
+    private static double run(int threads, boolean sharedOutlet) throws Exception {
+        DataStorageService dataStorage = new DataStorageService(false);
+        AtomicLong completed = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            String outletId = sharedOutlet ? "shared" : "outlet-" + t;
+            Thread thread = new Thread(() -> {
+                OutletContext.set(outletId);
+                try {
+                    start.await();
+                    String tableId = "table" + (worker % 10 + 1);
+                    long warmUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+                    long end = warmUntil + TimeUnit.MILLISECONDS.toNanos(MEASURED_MILLIS);
+                    long orders = 0;
+                    boolean measuring = false;
+                    for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                        if (!measuring && now >= warmUntil) {
+                            measuring = true;
+                            orders = 0;
+                        }
+                        for (int line = 0; line < 3; line++) {
+                            dataStorage.createOrUpdateTableOrder(tableId, tableId, List.of(
+                                    new OrderItem("item" + (line + 1), "Item", 99.5, "Mains", "Kitchen", 1, false)));
+                        }
+                        dataStorage.markItemsAsSent(tableId);
+                        if (dataStorage.completeTableOrder(tableId)) {
+                            orders++;
+                        }
+                    }
+                    completed.addAndGet(orders);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    OutletContext.clear();
+                }
+            }, "outlet-bench-" + t);
+            thread.start();
+            workers.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+        return completed.get() * 1000.0 / MEASURED_MILLIS;
+    }
+}
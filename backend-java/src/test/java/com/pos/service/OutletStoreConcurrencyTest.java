@@ -0,0 +1,288 @@
+package com.pos.service;
+
+import com.pos.model.Invoice;
+import com.pos.model.KOTConfig;
+import com.pos.model.MenuItem;
+import com.pos.model.OrderItem;
+import com.pos.model.TableOrder;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * High-contention harnesses for the order, KOT, invoice and catalog paths of one outlet.
+ * Every worker waits on a common start gate so the operations really overlap, and each
+ * test checks an invariant afterwards rather than any particular interleaving.
+ */
+class OutletStoreConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private final OutletStore store = new OutletStore("stress", false, true);
+
+    @RepeatedTest(5)
+    void concurrentAddsAndSendsNeverLoseQuantity() throws Exception {
+        int addsPerThread = 500;
+        race(THREADS, worker -> {
+            for (int i = 0; i < addsPerThread; i++) {
+                store.createOrUpdateTableOrder("table1", "Table 1", List.of(line("item1", 1)));
+                if (i % 7 == worker % 7) {
+                    store.markItemsAsSent("table1");
+                }
+                // Readers iterate while writers replace the order
+                store.getAllTableOrders().forEach(order -> order.getItems().forEach(OrderItem::getQuantity));
+            }
+        });
+
+        TableOrder order = store.getTableOrderByTableId("table1");
+        int quantity = order.getItems().stream().mapToInt(OrderItem::getQuantity).sum();
+        assertEquals(THREADS * addsPerThread, quantity);
+        // At most one pending line per item; sent lines are never merged into
+        assertTrue(order.getItems().stream().filter(item -> !item.isSentToKitchen()).count() <= 1);
+    }
+
+    @RepeatedTest(5)
+    void eachOpenOrderIsCompletedExactlyOnce() throws Exception {
+        int rounds = 200;
+        List<String> tables = List.of("table1", "table2", "table3");
+        AtomicInteger completions = new AtomicInteger();
+        for (int round = 0; round < rounds; round++) {
+            for (String table : tables) {
+                store.createOrUpdateTableOrder(table, table, List.of(line("item2", 1)));
+            }
+            race(THREADS, worker -> {
+                for (String table : tables) {
+                    store.markItemsAsSent(table);
+                    if (store.completeTableOrder(table)) {
+                        completions.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        assertEquals(rounds * tables.size(), completions.get());
+        assertTrue(store.getAllTableOrders().isEmpty());
+        for (String table : tables) {
+            assertEquals("available", store.getTableById(table).getStatus());
+        }
+    }
+
+    @RepeatedTest(5)
+    void billedQuantityMatchesWhatWasAdded() throws Exception {
+        int addsPerThread = 300;
+        AtomicInteger billed = new AtomicInteger();
+        race(THREADS, worker -> {
+            for (int i = 0; i < addsPerThread; i++) {
+                if (worker % 4 == 0) {
+                    store.completeTableOrder("table4", order -> billed.addAndGet(
+                            order.getItems().stream().mapToInt(OrderItem::getQuantity).sum()));
+                } else {
+                    store.createOrUpdateTableOrder("table4", "Table 4", List.of(line("item1", 1)));
+                }
+            }
+        });
+
+        TableOrder open = store.getTableOrderByTableId("table4");
+        int remaining = open != null ? open.getItems().stream().mapToInt(OrderItem::getQuantity).sum() : 0;
+        assertEquals(THREADS * 3 / 4 * addsPerThread, billed.get() + remaining);
+    }
+
+    @RepeatedTest(5)
+    void openAndCompleteRacesLeaveTableStatusConsistent() throws Exception {
+        race(THREADS, worker -> {
+            for (int i = 0; i < 300; i++) {
+                if (worker % 2 == 0) {
+                    store.createOrUpdateTableOrder("table2", "Table 2", List.of(line("item3", 1)));
+                } else {
+                    store.completeTableOrder("table2");
+                }
+            }
+        });
+
+        boolean open = store.getTableOrderByTableId("table2") != null;
+        assertEquals(open ? "occupied" : "available", store.getTableById("table2").getStatus());
+    }
+
+    @RepeatedTest(5)
+    void invoiceCountEqualsCallsMade() throws Exception {
+        int invoicesPerThread = 1000;
+        Queue<String> ids = new ConcurrentLinkedQueue<>();
+        race(THREADS, worker -> {
+            for (int i = 0; i < invoicesPerThread; i++) {
+                Invoice invoice = new Invoice();
+                invoice.setOrderType("takeaway");
+                invoice.setItems(List.of(line("item1", 1)));
+                ids.add(store.createInvoice(invoice).getId());
+            }
+        });
+
+        int calls = THREADS * invoicesPerThread;
+        assertEquals(calls, store.getAllInvoices().size());
+        assertEquals(calls, new HashSet<>(ids).size());
+        assertEquals(calls, store.filterInvoices("takeaway", null, null, null, null).getTotal());
+    }
+
+    @Test
+    void kotNumbersAreUnique() throws Exception {
+        int numbersPerThread = 2000;
+        Queue<Integer> numbers = new ConcurrentLinkedQueue<>();
+        race(THREADS, worker -> {
+            for (int i = 0; i < numbersPerThread; i++) {
+                numbers.add(store.getNextKOTNumber());
+                if (i % 100 == 0) {
+                    store.updateKOTConfig(new KOTConfig());
+                }
+            }
+        });
+
+        Set<Integer> distinct = new HashSet<>(numbers);
+        assertEquals(THREADS * numbersPerThread, distinct.size());
+        assertEquals(THREADS * numbersPerThread, store.getNextKOTNumber() - 1);
+        assertNotNull(store.getKOTConfig());
+    }
+
+    @Test
+    void productCodesStayUnique() throws Exception {
+        int codes = 200;
+        AtomicInteger created = new AtomicInteger();
+        race(THREADS, worker -> {
+            for (int code = 0; code < codes; code++) {
+                MenuItem item = new MenuItem(null, "Item " + code, "P" + code, 10.0, "Mains", "Kitchen", null);
+                if (store.createMenuItem(item) != null) {
+                    created.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(codes, created.get());
+        Set<String> productCodes = new HashSet<>();
+        for (MenuItem item : store.getAllMenuItems()) {
+            assertTrue(productCodes.add(item.getProductCode()), "duplicate " + item.getProductCode());
+        }
+    }
+
+    @RepeatedTest(5)
+    void importsAreSeenWhole() throws Exception {
+        int before = store.getAllMenuItems().size();
+        int imported = 500;
+        List<MenuItem> items = new ArrayList<>();
+        for (int i = 0; i < imported; i++) {
+            items.add(new MenuItem(null, "Imported " + i, "IMP" + i, 10.0, "Mains", "Kitchen", null));
+        }
+        // A duplicate of the first row is skipped, not half-applied
+        items.add(new MenuItem(null, "Duplicate", "IMP0", 10.0, "Mains", "Kitchen", null));
+        AtomicInteger torn = new AtomicInteger();
+        race(THREADS, worker -> {
+            if (worker == 0) {
+                assertEquals(List.of(imported), store.importCatalog(List.of(), List.of(), items));
+                return;
+            }
+            for (int i = 0; i < 2000; i++) {
+                int size = store.getAllMenuItems().size();
+                if (size != before && size != before + imported) {
+                    torn.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(0, torn.get());
+        assertEquals(before + imported, store.getAllMenuItems().size());
+        assertEquals(imported, store.searchMenuItems("Imported", 1000).size());
+    }
+
+    @Test
+    void storedEntitiesAreNotSharedWithCallers() {
+        MenuItem item = new MenuItem(null, "Lassi", "LS001", 60.0, "Beverages", "Bar", null);
+        store.createMenuItem(item);
+        item.setPrice(1.0);
+        store.getMenuItemById(item.getId()).setPrice(2.0);
+        assertEquals(60.0, store.getMenuItemById(item.getId()).getPrice());
+        assertEquals(6000, store.getPriceTable().priceOf(item.getId()));
+    }
+
+    @Test
+    void tableStatusDoesNotChangeTheMenuVersion() {
+        long menuVersion = store.getCatalog().getMenuVersion();
+        long version = store.getCatalog().getVersion();
+        store.createOrUpdateTableOrder("table1", "Table 1", List.of(line("item1", 1)));
+        store.completeTableOrder("table1");
+        assertTrue(store.getCatalog().getVersion() > version);
+        assertEquals(menuVersion, store.getCatalog().getMenuVersion());
+
+        store.createMenuItem(new MenuItem(null, "Lassi", "LS002", 60.0, "Beverages", "Bar", null));
+        assertTrue(store.getCatalog().getMenuVersion() > menuVersion);
+    }
+
+    @RepeatedTest(5)
+    void resentInvoiceIdsAreStoredAndCountedOnce() throws Exception {
+        OutletStore offHeap = new OutletStore("stress-off-heap", true, true);
+        LocalDateTime time = LocalDateTime.now();
+        AtomicInteger created = new AtomicInteger();
+        race(THREADS, worker -> {
+            // Every terminal retries the same client-generated id
+            Invoice invoice = new Invoice("1700000000000", null, "takeaway", null,
+                    List.of(line("item" + (worker + 1), 2)), 20.0, 1.0, 21.0, time);
+            if (offHeap.createInvoice(invoice) != null) {
+                created.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, created.get());
+        assertEquals(1, offHeap.getAllInvoices().size());
+        List<Map<String, Object>> top = offHeap.getTopSellingItems("day", time, null, "quantity", 10);
+        assertEquals(1, top.size());
+        assertEquals(2L, top.get(0).get("quantity"));
+        // The stored invoice's lines are the winner's, also when read back from off-heap storage
+        OrderItem stored = offHeap.getInvoiceById("1700000000000").getItems().get(0);
+        assertEquals(top.get(0).get("itemId"), stored.getId());
+    }
+
+    private static OrderItem line(String itemId, int quantity) {
+        return new OrderItem(itemId, itemId, 10.0, "Mains", "Kitchen", quantity, false);
+    }
+
+    interface Worker {
+        void run(int worker) throws Exception;
+    }
+
+    // Runs the body on every thread at once and rethrows the first failure, if any
+    static void race(int threads, Worker body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(worker);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }, "stress-" + t);
+            thread.start();
+            workers.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.size() + " workers failed", failures.peek());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.pos.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrintSpoolerTest {
+
+    private final PrintSpooler spooler = new PrintSpooler();
+
+    @AfterEach
+    void stop() {
+        spooler.stop();
+    }
+
+    @Test
+    void retryResendsOnlyTheJobsNotWrittenWhole() throws Exception {
+        List<String> printed = new ArrayList<>();
+        // One count per copy that reaches the printer
+        CountDownLatch done = new CountDownLatch(3);
+        CountDownLatch queued = new CountDownLatch(1);
+        int[] calls = {0};
+        PrintSink sink = (outletId, printer, jobs) -> {
+            if (calls[0]++ == 0) {
+                awaitQuietly(queued);
+                // The connection broke after the first copy of the first job
+                printed.add(text(jobs.get(0)));
+                done.countDown();
+                throw new PrintSink.PartialWriteException(1, new IOException("Connection reset"));
+            }
+            jobs.forEach(job -> {
+                printed.add(text(job));
+                done.countDown();
+            });
+        };
+        configure(sink);
+
+        spooler.submit("default", "Kitchen", "KOT 1", bytes("kot-1"), 2);
+        spooler.submit("default", "Kitchen", "KOT 2", bytes("kot-2"), 1);
+        queued.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("kot-1", "kot-1", "kot-2"), printed);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) spooler.getStats().get("default").get("Kitchen");
+        assertEquals(1L, stats.get("retries"));
+        assertEquals(0L, stats.get("failed"));
+    }
+
+    @Test
+    void socketSinkSendsEachPrinterToItsOwnAddress() throws Exception {
+        try (ServerSocket kitchen = new ServerSocket(0); ServerSocket second = new ServerSocket(0);
+             ServerSocket fallback = new ServerSocket(0)) {
+            SocketPrintSink sink = new SocketPrintSink();
+            ReflectionTestUtils.setField(sink, "host", "127.0.0.1");
+            ReflectionTestUtils.setField(sink, "port", fallback.getLocalPort());
+            ReflectionTestUtils.setField(sink, "printerSpec", "Thermal Printer 1=127.0.0.1:" + kitchen.getLocalPort()
+                    + "; second/Thermal Printer 1=127.0.0.1:" + second.getLocalPort() + "; Network Printer=127.0.0.1");
+            ReflectionTestUtils.invokeMethod(sink, "init");
+
+            assertEquals(kitchen.getLocalPort(), sink.addressOf("default", "Thermal Printer 1").getPort());
+            assertEquals(second.getLocalPort(), sink.addressOf("second", "Thermal Printer 1").getPort());
+            assertEquals(fallback.getLocalPort(), sink.addressOf("second", "Network Printer").getPort());
+            assertEquals(fallback.getLocalPort(), sink.addressOf("default", "USB Printer").getPort());
+
+            sink.write("default", "Thermal Printer 1", List.of(bytes("a"), bytes("b")));
+            assertEquals("ab", receive(kitchen));
+            sink.write("second", "Thermal Printer 1", List.of(bytes("d")));
+            assertEquals("d", receive(second));
+            sink.write("default", "USB Printer", List.of(bytes("c")));
+            assertEquals("c", receive(fallback));
+        }
+    }
+
+    @Test
+    void outletsSharingAPrinterNameGetTheirOwnQueueAndSpool(@TempDir Path spool) throws Exception {
+        FilePrintSink files = new FilePrintSink(spool.toString());
+        CountDownLatch done = new CountDownLatch(2);
+        configure((outletId, printer, jobs) -> {
+            files.write(outletId, printer, jobs);
+            done.countDown();
+        });
+
+        spooler.submit("default", "Kitchen Printer", "KOT 1", bytes("one"), 1);
+        spooler.submit("second", "Kitchen Printer", "KOT 1", bytes("two"), 1);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(Set.of("default", "second"), spooler.getStats().keySet());
+        assertEquals(List.of("one"), spooled(spool.resolve("default").resolve("Kitchen_Printer")));
+        assertEquals(List.of("two"), spooled(spool.resolve("second").resolve("Kitchen_Printer")));
+    }
+
+    private static List<String> spooled(Path printerDir) throws IOException {
+        try (Stream<Path> files = Files.list(printerDir)) {
+            return files.map(file -> {
+                try {
+                    return text(Files.readAllBytes(file));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toList();
+        }
+    }
+
+    private void configure(PrintSink sink) {
+        ReflectionTestUtils.setField(spooler, "sink", sink);
+        ReflectionTestUtils.setField(spooler, "queueCapacity", 16);
+        ReflectionTestUtils.setField(spooler, "maxAttempts", 3);
+    }
+
+    private static String receive(ServerSocket server) throws IOException {
+        server.setSoTimeout(5000);
+        try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toString(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String text(byte[] data) {
+        return new String(data, StandardCharsets.US_ASCII);
+    }
+}
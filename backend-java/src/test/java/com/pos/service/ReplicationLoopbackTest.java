@@ -0,0 +1,242 @@
+package com.pos.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pos.PosApplication;
+import com.pos.config.OutletFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.pos.service.OutletStoreConcurrencyTest.race;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Replication between two backend processes on loopback: the leader runs in this JVM,
+ * the follower in a child JVM started from the same classpath. The follower first
+ * receives a snapshot, then the live stream while several terminals write to the
+ * leader at once, and must end up with the same orders, invoices and catalog in every
+ * outlet. It rejects writes until it is promoted. When the leader restarts with a new
+ * log, the follower must resync rather than resume by sequence number.
+ */
+class ReplicationLoopbackTest {
+
+    private static final List<String> OUTLETS = List.of("default", "second");
+    private static final Duration CATCH_UP_TIMEOUT = Duration.ofSeconds(90);
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void followerProcessMirrorsLeaderAndCanBePromoted() throws Exception {
+        int leaderPort = freePort();
+        int replicationPort = freePort();
+        int followerPort = freePort();
+        int followerReplicationPort = freePort();
+        String leader = "http://127.0.0.1:" + leaderPort;
+        String follower = "http://127.0.0.1:" + followerPort;
+
+        ConfigurableApplicationContext leaderContext = startLeader(leaderPort, replicationPort);
+        Process followerProcess = null;
+        try {
+            // Written before the follower exists: arrives with the snapshot
+            for (String outlet : OUTLETS) {
+                addItems(leader, outlet, "table1", 2);
+                createInvoice(leader, outlet);
+            }
+
+            followerProcess = startFollower(followerPort, replicationPort, followerReplicationPort);
+            awaitCaughtUp(leader, follower);
+            assertSameState(leader, follower);
+            assertTrue(json(send(follower, "second", "GET", "/api/invoices", null)).size() > 0);
+
+            // Concurrent terminals on both outlets: arrives through the live stream
+            race(8, worker -> {
+                String outlet = OUTLETS.get(worker % OUTLETS.size());
+                String table = "table" + (1 + worker % 3);
+                for (int i = 0; i < 25; i++) {
+                    addItems(leader, outlet, table, 1);
+                    if (i % 5 == 4) {
+                        send(leader, outlet, "POST", "/api/orders/table/" + table + "/sent", null);
+                    }
+                    createInvoice(leader, outlet);
+                }
+            });
+            send(leader, "default", "POST", "/api/menu-items",
+                    "{\"name\":\"Masala Tea\",\"productCode\":\"MT001\",\"price\":40,\"category\":\"Beverages\",\"department\":\"Bar\"}");
+            send(leader, "second", "POST", "/api/invoices/table/table2", null);
+            awaitCaughtUp(leader, follower);
+            assertSameState(leader, follower);
+
+            assertEquals(503, send(follower, "default", "POST", "/api/orders/table/table3/complete", null).statusCode());
+            assertEquals(200, send(follower, "default", "POST", "/api/replication/promote", null).statusCode());
+            assertEquals(201, createInvoice(follower, "default").statusCode());
+        } finally {
+            if (followerProcess != null) {
+                followerProcess.destroyForcibly().waitFor();
+            }
+            leaderContext.close();
+        }
+    }
+
+    @Test
+    void followerResyncsWithARestartedLeader() throws Exception {
+        int leaderPort = freePort();
+        int replicationPort = freePort();
+        int followerPort = freePort();
+        String leader = "http://127.0.0.1:" + leaderPort;
+        String follower = "http://127.0.0.1:" + followerPort;
+
+        ConfigurableApplicationContext leaderContext = startLeader(leaderPort, replicationPort);
+        Process followerProcess = null;
+        try {
+            addItems(leader, "default", "table1", 2);
+            followerProcess = startFollower(followerPort, replicationPort, freePort());
+            awaitCaughtUp(leader, follower);
+            long firstRunSeq = json(send(leader, "default", "GET", "/api/replication/status", null)).get("lastSeq").asLong();
+
+            // The new run starts from the seed data and soon logs past the follower's sequence
+            leaderContext.close();
+            leaderContext = startLeader(leaderPort, replicationPort);
+            while (json(send(leader, "default", "GET", "/api/replication/status", null)).get("lastSeq").asLong()
+                    <= firstRunSeq + 5) {
+                createInvoice(leader, "default");
+            }
+            awaitCaughtUp(leader, follower);
+            assertSameState(leader, follower, List.of("default"));
+        } finally {
+            if (followerProcess != null) {
+                followerProcess.destroyForcibly().waitFor();
+            }
+            leaderContext.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startLeader(int httpPort, int replicationPort) {
+        return new SpringApplicationBuilder(PosApplication.class).run(
+                "--server.port=" + httpPort,
+                "--pos.replication.role=leader",
+                "--pos.replication.port=" + replicationPort,
+                "--pos.print.dir=target/print-spool",
+                "--pos.eod.dir=target/daily-summaries",
+                "--pos.admission.per-client-heavy-per-minute=1000000");
+    }
+
+    private Process startFollower(int httpPort, int leaderReplicationPort, int replicationPort) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Path logFile = Paths.get("target", "replication-follower.log");
+        Files.createDirectories(logFile.getParent());
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), PosApplication.class.getName(),
+                "--server.port=" + httpPort,
+                "--pos.replication.role=follower",
+                "--pos.replication.leader-host=127.0.0.1",
+                "--pos.replication.leader-port=" + leaderReplicationPort,
+                "--pos.replication.port=" + replicationPort,
+                "--pos.print.dir=target/print-spool",
+                "--pos.eod.dir=target/daily-summaries",
+                "--pos.admission.per-client-heavy-per-minute=1000000")
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .directory(new File("."))
+                .start();
+    }
+
+    // Waits until the follower has applied everything the leader has logged
+    private void awaitCaughtUp(String leader, String follower) throws Exception {
+        long deadline = System.nanoTime() + CATCH_UP_TIMEOUT.toNanos();
+        String last = "follower not reachable";
+        while (System.nanoTime() < deadline) {
+            try {
+                JsonNode leaderStatus = json(send(leader, "default", "GET", "/api/replication/status", null));
+                JsonNode followerStatus = json(send(follower, "default", "GET", "/api/replication/status", null));
+                long leaderSeq = leaderStatus.get("lastSeq").asLong();
+                long appliedSeq = followerStatus.path("lastAppliedSeq").asLong(-1);
+                if (leaderSeq > 0 && appliedSeq == leaderSeq) {
+                    return;
+                }
+                last = "leader at " + leaderSeq + ", follower at " + appliedSeq;
+            } catch (IOException e) {
+                // Follower still starting
+            }
+            Thread.sleep(200);
+        }
+        fail("Follower did not catch up: " + last);
+    }
+
+    private void assertSameState(String leader, String follower) throws Exception {
+        assertSameState(leader, follower, OUTLETS);
+    }
+
+    private void assertSameState(String leader, String follower, List<String> outlets) throws Exception {
+        for (String outlet : outlets) {
+            for (String path : List.of("/api/orders", "/api/invoices", "/api/menu-items", "/api/tables", "/api/restaurant-settings", "/api/config/kot")) {
+                assertEquals(byId(json(send(leader, outlet, "GET", path, null))),
+                        byId(json(send(follower, outlet, "GET", path, null))), outlet + " " + path);
+            }
+        }
+    }
+
+    // Lists come from hash maps, so compare them keyed by id rather than in order
+    private static Object byId(JsonNode node) {
+        if (!node.isArray()) {
+            return node;
+        }
+        Map<String, JsonNode> byId = new TreeMap<>();
+        node.forEach(element -> byId.put(element.path("id").asText(), element));
+        return byId;
+    }
+
+    private void addItems(String base, String outlet, String table, int quantity) throws Exception {
+        String body = """
+                {"table_name": "%s", "items": [{"id": "item1", "name": "Chicken Burger", "price": 299.0,
+                  "category": "Mains", "department": "Kitchen", "quantity": %d}]}
+                """.formatted(table, quantity);
+        assertEquals(200, send(base, outlet, "POST", "/api/orders/table/" + table, body).statusCode());
+    }
+
+    private HttpResponse<String> createInvoice(String base, String outlet) throws Exception {
+        String body = """
+                {"orderType": "takeaway", "items": [{"id": "item3", "name": "Coca Cola", "price": 99.0, "quantity": 2}]}
+                """;
+        return send(base, outlet, "POST", "/api/invoices", body);
+    }
+
+    private HttpResponse<String> send(String base, String outlet, String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                .header(OutletFilter.OUTLET_HEADER, outlet)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(10))
+                .method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody())
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode json(HttpResponse<String> response) throws IOException {
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.pos.service;
+
+import com.pos.model.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Takeaway order throughput with several terminals sharing one queue. Every terminal
+ * places orders and moves orders through preparing, ready and collected, taking the
+ * next order from a shared hand-off so most transitions act on orders another terminal
+ * placed or advanced. Prints orders per second through the whole lifecycle for 1 to
+ * 8 terminals. Not part of the default test run; start it with
+ * mvn test -Dtest=TakeawayQueueBenchmark.
+ */
+class TakeawayQueueBenchmark {
+
+    private static final int ORDERS = 400_000;
+    private static final List<OrderItem> ITEMS = List.of(
+            new OrderItem("item1", "Masala Chai", 40, "Beverages", "Bar", 2, false),
+            new OrderItem("item2", "Samosa", 30, "Snacks", "Kitchen", 1, false));
+
+    @Test
+    void lifecycleThroughputByTerminalCount() throws Exception {
+        System.out.printf("%d cores%n", Runtime.getRuntime().availableProcessors());
+        // Compile the queue paths before any measured run
+        run(1, ORDERS / 4);
+        run(8, ORDERS / 4);
+        for (int terminals = 1; terminals <= 8; terminals *= 2) {
+            double perSecond = run(terminals, ORDERS);
+            System.out.printf("%d terminals  %10.0f orders/s%n", terminals, perSecond);
+        }
+    }
+
+    private static double run(int terminals, int orders) throws Exception {
+        TakeawayQueue queue = new TakeawayQueue();
+        // Ids waiting for their next step, handed between terminals
+        Queue<String> handOff = new ConcurrentLinkedQueue<>();
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger collected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(terminals);
+        for (int t = 0; t < terminals; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (collected.get() < orders) {
+                    String id = handOff.poll();
+                    if (id == null) {
+                        if (placed.getAndIncrement() < orders) {
+                            handOff.add(queue.place(null, ITEMS).id());
+                        }
+                        continue;
+                    }
+                    String status = queue.get(id).status();
+                    String next = TakeawayQueue.STATUSES.get(TakeawayQueue.STATUSES.indexOf(status) + 1);
+                    queue.advance(id, next);
+                    if (TakeawayQueue.COLLECTED.equals(next)) {
+                        collected.incrementAndGet();
+                    } else {
+                        handOff.add(id);
+                    }
+                }
+            }, "terminal-" + t));
+        }
+        threads.forEach(Thread::start);
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        assertEquals((long) orders, queue.stats().get("collected"));
+        return orders / seconds;
+    }
+}
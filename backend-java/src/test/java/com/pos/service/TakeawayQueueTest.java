@@ -0,0 +1,103 @@
+package com.pos.service;
+
+import com.pos.model.OrderItem;
+import com.pos.model.TakeawayOrder;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TakeawayQueueTest {
+
+    @Test
+    void ordersCannotBeChangedThroughWhatCallersHold() {
+        TakeawayQueue queue = new TakeawayQueue();
+        List<OrderItem> items = new ArrayList<>(List.of(new OrderItem("item1", "Tea", 20, "Drinks", "Bar", 1, false)));
+        TakeawayOrder placed = queue.place("Asha", items);
+
+        items.get(0).setQuantity(5);
+        items.add(new OrderItem("item2", "Coffee", 30, "Drinks", "Bar", 1, false));
+        queue.get(placed.id()).items().get(0).setQuantity(7);
+        queue.active(null).get(0).items().get(0).setPrice(0);
+        assertThrows(UnsupportedOperationException.class, () -> placed.items().clear());
+
+        TakeawayOrder stored = queue.get(placed.id());
+        assertEquals(1, stored.items().size());
+        assertEquals(1, stored.items().get(0).getQuantity());
+        assertEquals(20, stored.items().get(0).getPrice());
+    }
+
+    @Test
+    void advancingReplacesTheOrderAndFillsSkippedSteps() {
+        TakeawayQueue queue = new TakeawayQueue();
+        TakeawayOrder placed = queue.place(null, List.of(new OrderItem("item1", "Tea", 20, "Drinks", "Bar", 1, false)));
+
+        TakeawayOrder ready = queue.advance(placed.id(), TakeawayQueue.READY);
+        assertEquals(TakeawayQueue.PLACED, placed.status());
+        assertEquals(TakeawayQueue.READY, ready.status());
+        assertEquals(ready.readyAt(), ready.preparingAt());
+
+        TakeawayOrder collected = queue.advance(placed.id(), TakeawayQueue.COLLECTED);
+        assertEquals(List.of(collected), queue.history(10));
+        assertEquals(List.of(), queue.active(null));
+    }
+
+    @RepeatedTest(5)
+    void eachTransitionHasOneWinnerWhenTerminalsRace() throws Exception {
+        int orders = 500;
+        TakeawayQueue queue = new TakeawayQueue(orders);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            ids.add(queue.place(null, List.of(new OrderItem("item1", "Tea", 20, "Drinks", "Bar", 1, false))).id());
+        }
+        Map<String, AtomicInteger> wins = new ConcurrentHashMap<>();
+        Queue<TakeawayOrder> collected = new ConcurrentLinkedQueue<>();
+        OutletStoreConcurrencyTest.race(16, worker -> {
+            for (String id : ids) {
+                // Terminals press different buttons on the same order, so some skip steps
+                for (String status : TakeawayQueue.STATUSES.subList(1 + worker % 2, 4)) {
+                    TakeawayOrder next = queue.advance(id, status);
+                    if (next != null) {
+                        assertEquals(status, next.status());
+                        wins.computeIfAbsent(id + "/" + status, key -> new AtomicInteger()).incrementAndGet();
+                        if (TakeawayQueue.COLLECTED.equals(status)) {
+                            collected.add(next);
+                        }
+                    }
+                }
+            }
+        });
+
+        for (String id : ids) {
+            assertEquals(1, wins.get(id + "/" + TakeawayQueue.COLLECTED).get(), id);
+            for (String status : List.of(TakeawayQueue.PREPARING, TakeawayQueue.READY)) {
+                AtomicInteger count = wins.get(id + "/" + status);
+                assertTrue(count == null || count.get() == 1, id + " " + status);
+            }
+        }
+        assertEquals(List.of(), queue.active(null));
+        List<TakeawayOrder> history = queue.history(orders * 2);
+        assertEquals(orders, history.size());
+        assertEquals(new HashSet<>(collected), new HashSet<>(history));
+        Set<String> historyIds = new HashSet<>();
+        history.forEach(order -> historyIds.add(order.id()));
+        assertEquals(new HashSet<>(ids), historyIds);
+
+        Map<String, Object> stats = queue.stats();
+        assertEquals((long) orders, stats.get("collected"));
+        assertEquals((long) orders, ((Map<?, ?>) stats.get("placedToReady")).get("count"));
+        assertEquals((long) orders, ((Map<?, ?>) stats.get("readyToCollected")).get("count"));
+    }
+}
@@ -888,8 +888,8 @@ export const DineInPage: React.FC = () => {
       if (selectedTable && selectedTableData) {
         await addItemsToTable(selectedTable, selectedTableData.name, pending);
 
-        // Mark items as sent to kitchen
-        await markItemsAsSent(selectedTable);
+        // Mark items as sent to kitchen under the KOT number just printed
+        await markItemsAsSent(selectedTable, kotNumber);
 
         // Reload the table order to show all items including sent ones
         const order = getTableOrder(selectedTable);
@@ -62,7 +62,7 @@ interface RestaurantContextType {
   addItemsToTable: (tableId: string, tableName: string, items: OrderItem[]) => Promise<void>;
   getTableOrder: (tableId: string) => TableOrder | undefined;
   completeTableOrder: (tableId: string) => Promise<void>;
-  markItemsAsSent: (tableId: string) => Promise<void>;
+  markItemsAsSent: (tableId: string, kotNumber?: number) => Promise<void>;
   invoices: Invoice[];
   addInvoice: (invoice: Invoice) => Promise<void>;
   kotConfig: KOTConfig;
@@ -166,9 +166,9 @@ export function RestaurantProvider({ children }: { children: React.ReactNode })
     }
   };
 
-  const markItemsAsSent = async (tableId: string) => {
+  const markItemsAsSent = async (tableId: string, kotNumber?: number) => {
     try {
-      const updatedOrder = await api.markItemsAsSent(tableId);
+      const updatedOrder = await api.markItemsAsSent(tableId, kotNumber);
       
       setTableOrders(prev => {
         const newMap = new Map(prev);
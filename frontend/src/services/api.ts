@@ -126,8 +126,10 @@ export const addItemsToTable = async (tableId: string, tableName: string, items:
   return response.json();
 };
 
-export const markItemsAsSent = async (tableId: string): Promise<TableOrder> => {
-  const response = await fetch(`${API_BASE_URL}/orders/table/${tableId}/sent`, {
+// Pass the KOT number already printed on the ticket so the server does not allocate another
+export const markItemsAsSent = async (tableId: string, kotNumber?: number): Promise<TableOrder> => {
+  const query = kotNumber !== undefined ? `?kotNumber=${kotNumber}` : '';
+  const response = await fetch(`${API_BASE_URL}/orders/table/${tableId}/sent${query}`, {
     method: 'POST',
   });
   return response.json();